@@ -0,0 +1,57 @@
+#!/bin/bash
+# Compara throughput y p99 con hilos virtuales desactivados y activados (APP_VIRTUAL_THREADS).
+# Levanta el jar dos veces contra la misma base de datos, ejecuta virtual-threads.js con k6 y
+# muestra una tabla por endpoint. Requiere: k6, jq, el jar empaquetado (mvn -DskipTests package)
+# y las variables TOKEN, USER_ID, PRODUCTO_ID y FACTURA_ID (ver virtual-threads.js).
+#
+#   TOKEN=... USER_ID=... PRODUCTO_ID=... FACTURA_ID=... ./scripts/loadtest/run-virtual-threads.sh
+set -euo pipefail
+
+DIR="$(cd "$(dirname "$0")" && pwd)"
+ROOT="$(cd "$DIR/../.." && pwd)"
+JAR="${JAR:-$(ls "$ROOT"/target/*.jar | grep -v original | head -n 1)}"
+PORT="${PORT:-8080}"
+BASE_URL="http://localhost:$PORT"
+OUT="${OUT:-$ROOT/target/loadtest}"
+mkdir -p "$OUT"
+
+: "${TOKEN:?TOKEN requerido}" "${USER_ID:?USER_ID requerido}" "${PRODUCTO_ID:?PRODUCTO_ID requerido}" "${FACTURA_ID:?FACTURA_ID requerido}"
+
+run_mode() {
+  local mode="$1"
+  echo "=== APP_VIRTUAL_THREADS=$mode ==="
+  APP_VIRTUAL_THREADS="$mode" java ${JAVA_OPTS:-} -jar "$JAR" --server.port="$PORT" > "$OUT/app-$mode.log" 2>&1 &
+  local pid=$!
+  trap "kill $pid 2>/dev/null || true" EXIT
+
+  for _ in $(seq 1 60); do
+    if curl -sf "$BASE_URL/api/public/productos?size=1" > /dev/null; then break; fi
+    sleep 2
+  done
+
+  # calentamiento corto para JIT y pools de conexiones
+  k6 run --quiet -e BASE_URL="$BASE_URL" -e TOKEN="$TOKEN" -e USER_ID="$USER_ID" \
+    -e PRODUCTO_ID="$PRODUCTO_ID" -e FACTURA_ID="$FACTURA_ID" -e DURATION=15s "$DIR/virtual-threads.js" > /dev/null || true
+
+  k6 run --quiet --summary-export "$OUT/summary-$mode.json" -e BASE_URL="$BASE_URL" -e TOKEN="$TOKEN" \
+    -e USER_ID="$USER_ID" -e PRODUCTO_ID="$PRODUCTO_ID" -e FACTURA_ID="$FACTURA_ID" "$DIR/virtual-threads.js" || true
+
+  kill "$pid" 2>/dev/null || true
+  wait "$pid" 2>/dev/null || true
+  trap - EXIT
+}
+
+run_mode false
+run_mode true
+
+printf "\n%-10s %-8s %12s %12s\n" "endpoint" "virtual" "req/s" "p99 (ms)"
+for endpoint in listado checkout pdf; do
+  for mode in false true; do
+    jq -r --arg e "$endpoint" --arg m "$mode" '
+      [.metrics["http_reqs{endpoint:\($e)}"].rate, .metrics["http_req_duration{endpoint:\($e)}"]["p(99)"]]
+      | "\($e) \($m) \(.[0]) \(.[1])"' "$OUT/summary-$mode.json" \
+      | awk '{ printf "%-10s %-8s %12.1f %12.1f\n", $1, $2, $3, $4 }'
+  done
+done
+echo ""
+echo "Logs y resúmenes en $OUT (buscar 'pinned' en app-true.log para el diagnóstico de pinning)"
@@ -0,0 +1,58 @@
+// Prueba de carga k6: listado público, checkout y PDF de factura.
+// Uso directo:
+//   k6 run -e BASE_URL=http://localhost:8080 -e TOKEN=... -e USER_ID=... -e PRODUCTO_ID=... -e FACTURA_ID=... \
+//          scripts/loadtest/virtual-threads.js
+// Normalmente se ejecuta desde run-virtual-threads.sh, que compara APP_VIRTUAL_THREADS=false/true.
+// Ojo: el escenario checkout emite facturas reales y descuenta stock; usar una base de datos de pruebas.
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const TOKEN = __ENV.TOKEN;
+const USER_ID = __ENV.USER_ID;
+const PRODUCTO_ID = __ENV.PRODUCTO_ID;
+const FACTURA_ID = __ENV.FACTURA_ID;
+const VUS = parseInt(__ENV.VUS || '50', 10);
+const DURATION = __ENV.DURATION || '60s';
+
+const auth = { headers: { Authorization: `Bearer ${TOKEN}`, 'Content-Type': 'application/json' } };
+
+export const options = {
+  discardResponseBodies: true,
+  scenarios: {
+    listado: { executor: 'constant-vus', exec: 'listado', vus: VUS, duration: DURATION, tags: { endpoint: 'listado' } },
+    checkout: { executor: 'constant-vus', exec: 'checkout', vus: Math.max(1, Math.floor(VUS / 5)), duration: DURATION, tags: { endpoint: 'checkout' } },
+    pdf: { executor: 'constant-vus', exec: 'pdf', vus: Math.max(1, Math.floor(VUS / 5)), duration: DURATION, tags: { endpoint: 'pdf' } },
+  },
+  // Submétricas por endpoint para que aparezcan en el resumen exportado
+  thresholds: {
+    'http_req_duration{endpoint:listado}': ['p(99)<2000'],
+    'http_req_duration{endpoint:checkout}': ['p(99)<5000'],
+    'http_req_duration{endpoint:pdf}': ['p(99)<5000'],
+    'http_reqs{endpoint:listado}': ['count>0'],
+    'http_reqs{endpoint:checkout}': ['count>0'],
+    'http_reqs{endpoint:pdf}': ['count>0'],
+  },
+  summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+};
+
+export function listado() {
+  const page = Math.floor(Math.random() * 5);
+  const res = http.get(`${BASE_URL}/api/public/productos?page=${page}&size=20`);
+  check(res, { 'listado 200': (r) => r.status === 200 });
+}
+
+export function checkout() {
+  const carrito = http.post(`${BASE_URL}/api/carritos`,
+    JSON.stringify({ usuarioId: USER_ID, items: [{ productoId: PRODUCTO_ID, cantidad: 1 }] }),
+    Object.assign({ responseType: 'text' }, auth));
+  if (!check(carrito, { 'carrito 201': (r) => r.status === 201 })) return;
+  const carritoId = carrito.json('carrito.id');
+  const res = http.post(`${BASE_URL}/api/facturas/checkout`, JSON.stringify({ carritoId }), auth);
+  check(res, { 'checkout 201': (r) => r.status === 201 });
+}
+
+export function pdf() {
+  const res = http.get(`${BASE_URL}/api/facturas/${FACTURA_ID}/pdf`, auth);
+  check(res, { 'pdf 200': (r) => r.status === 200 });
+}
@@ -3,11 +3,13 @@ package com.repobackend.api;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 
 @SpringBootApplication
 @EnableMethodSecurity(prePostEnabled = true)
 @EnableCaching
+@EnableScheduling
 public class InventarioRepuestosBackendApplication {
 
     public static void main(String[] args) {
@@ -1,5 +1,9 @@
 package com.repobackend.api.admin.controller;
 
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -53,7 +57,8 @@ public class AdminUserController {
                 )
             ),
             @ApiResponse(responseCode = "400", description = "Datos inválidos o usuario ya existe", content = @Content),
-            @ApiResponse(responseCode = "403", description = "No tienes permisos para crear administradores", content = @Content)
+            @ApiResponse(responseCode = "403", description = "No tienes permisos para crear administradores", content = @Content),
+            @ApiResponse(responseCode = "503", description = "Servidor ocupado (hash de contraseñas saturado); reintentar según Retry-After", content = @Content)
         }
     )
     @PostMapping
@@ -65,7 +70,14 @@ public class AdminUserController {
             callerId = authentication.getName();
             callerIsAdmin = authentication.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
         }
-        CreateAdminResponse resp = adminUserService.createAdmin(req, callerId, callerIsAdmin);
+        CreateAdminResponse resp;
+        try {
+            resp = adminUserService.createAdmin(req, callerId, callerIsAdmin);
+        } catch (RejectedExecutionException ex) {
+            // pool de hash de contraseñas saturado: mismo 503 + Retry-After que el login
+            return ResponseEntity.status(503).header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(Map.of("error", "Servidor ocupado, intente de nuevo en unos segundos"));
+        }
         return ResponseEntity.status(201).body(resp);
     }
 }
@@ -3,7 +3,6 @@ package com.repobackend.api.admin.service;
 import java.util.Date;
 
 import org.springframework.core.env.Environment;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
@@ -11,18 +10,19 @@ import com.repobackend.api.auth.dto.AdminRequests.CreateAdminRequest;
 import com.repobackend.api.auth.dto.AdminRequests.CreateAdminResponse;
 import com.repobackend.api.auth.model.User;
 import com.repobackend.api.auth.repository.UserRepository;
+import com.repobackend.api.auth.service.PasswordHashingService;
 
 import org.springframework.http.HttpStatus;
 
 @Service
 public class AdminUserService {
     private final UserRepository userRepository;
-    private final BCryptPasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final Environment env;
 
-    public AdminUserService(UserRepository userRepository, BCryptPasswordEncoder passwordEncoder, Environment env) {
+    public AdminUserService(UserRepository userRepository, PasswordHashingService passwordHashingService, Environment env) {
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingService = passwordHashingService;
         this.env = env;
     }
 
@@ -30,6 +30,7 @@ public class AdminUserService {
      * Crea un usuario con rol admin (u otros roles) validando permisos.
      * callerIsAdmin: true si el llamador ya es ADMIN (puede crear admins sin adminKey).
      * Si no existe ningún admin en la BD, se permite crear uno con adminKey coincidente con APP_ADMIN_REGISTRATION_KEY.
+     * Propaga RejectedExecutionException si el pool de hash de contraseñas está saturado (el controlador responde 503).
      */
     public CreateAdminResponse createAdmin(CreateAdminRequest req, String callerId, boolean callerIsAdmin) {
         // validations
@@ -60,7 +61,7 @@ public class AdminUserService {
         User u = new User();
         u.setUsername(req.username);
         u.setEmail(req.email);
-        u.setPassword(passwordEncoder.encode(req.password));
+        u.setPassword(passwordHashingService.encode(req.password));
         u.setNombre(req.nombre);
         u.setApellido(req.apellido);
         if (req.roles == null || req.roles.isEmpty()) {
@@ -0,0 +1,130 @@
+package com.repobackend.api.analitica.controller;
+
+import java.util.Map;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.repobackend.api.analitica.service.AnaliticaService;
+
+// OpenAPI
+import io.swagger.v3.oas.annotations.tags.Tag;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.Parameter;
+
+@RestController
+@RequestMapping("/api/analitica")
+@Tag(name = "Analitica", description = "Reportes de ventas sobre rollups diarios (ventas_diarias)")
+public class AnaliticaController {
+    private final AnaliticaService analiticaService;
+
+    public AnaliticaController(AnaliticaService analiticaService) {
+        this.analiticaService = analiticaService;
+    }
+
+    @Operation(
+        summary = "Resumen de ventas",
+        description = "Totales del rango (unidades, bruto, descuentos, neto, IVA, total) y serie diaria. Sin fechas: últimos 30 días. tallerId es opcional solo para administradores de plataforma.",
+        parameters = {
+            @Parameter(name = "tallerId", description = "ID del taller", required = false, example = "507f1f77bcf86cd799439011"),
+            @Parameter(name = "desde", description = "Día inicial (yyyy-MM-dd)", required = false, example = "2025-01-01"),
+            @Parameter(name = "hasta", description = "Día final inclusive (yyyy-MM-dd)", required = false, example = "2025-01-31")
+        },
+        responses = {
+            @ApiResponse(responseCode = "200", description = "Resumen obtenido",
+                content = @Content(mediaType = "application/json",
+                    examples = @ExampleObject(value = "{\"desde\":\"2025-01-01\",\"hasta\":\"2025-01-31\",\"tallerId\":\"507f1f77bcf86cd799439011\",\"totales\":{\"unidades\":120,\"bruto\":2500000.0,\"descuentos\":0.0,\"neto\":2500000.0,\"iva\":475000.0,\"total\":2975000.0},\"dias\":[{\"dia\":\"2025-01-02\",\"unidades\":4,\"bruto\":90000.0,\"descuentos\":0.0,\"neto\":90000.0,\"iva\":17100.0,\"total\":107100.0}]}")
+                )
+            ),
+            @ApiResponse(responseCode = "400", description = "Parámetros inválidos", content = @Content),
+            @ApiResponse(responseCode = "403", description = "Sin permisos sobre el taller", content = @Content)
+        }
+    )
+    @GetMapping("/ventas/resumen")
+    public ResponseEntity<?> resumen(@RequestParam(required = false) String tallerId,
+                                     @RequestParam(required = false) String desde,
+                                     @RequestParam(required = false) String hasta,
+                                     Authentication authentication) {
+        return respuesta(analiticaService.resumen(userId(authentication), tallerId, desde, hasta));
+    }
+
+    @Operation(
+        summary = "Productos más vendidos",
+        description = "Ranking de productos del rango por total vendido o por unidades.",
+        parameters = {
+            @Parameter(name = "tallerId", description = "ID del taller", required = false, example = "507f1f77bcf86cd799439011"),
+            @Parameter(name = "orden", description = "total | unidades", required = false, example = "unidades"),
+            @Parameter(name = "limit", description = "Máximo de productos (1-100)", required = false, example = "20")
+        },
+        responses = {
+            @ApiResponse(responseCode = "200", description = "Ranking obtenido", content = @Content),
+            @ApiResponse(responseCode = "400", description = "Parámetros inválidos", content = @Content),
+            @ApiResponse(responseCode = "403", description = "Sin permisos sobre el taller", content = @Content)
+        }
+    )
+    @GetMapping("/ventas/productos")
+    public ResponseEntity<?> productos(@RequestParam(required = false) String tallerId,
+                                       @RequestParam(required = false) String desde,
+                                       @RequestParam(required = false) String hasta,
+                                       @RequestParam(defaultValue = "total") String orden,
+                                       @RequestParam(defaultValue = "20") int limit,
+                                       Authentication authentication) {
+        return respuesta(analiticaService.productos(userId(authentication), tallerId, desde, hasta, orden, limit));
+    }
+
+    @Operation(
+        summary = "Ventas por categoría",
+        description = "Ventas del rango agrupadas por categoría, de mayor a menor total.",
+        responses = {
+            @ApiResponse(responseCode = "200", description = "Ventas por categoría", content = @Content),
+            @ApiResponse(responseCode = "400", description = "Parámetros inválidos", content = @Content),
+            @ApiResponse(responseCode = "403", description = "Sin permisos sobre el taller", content = @Content)
+        }
+    )
+    @GetMapping("/ventas/categorias")
+    public ResponseEntity<?> categorias(@RequestParam(required = false) String tallerId,
+                                        @RequestParam(required = false) String desde,
+                                        @RequestParam(required = false) String hasta,
+                                        Authentication authentication) {
+        return respuesta(analiticaService.categorias(userId(authentication), tallerId, desde, hasta));
+    }
+
+    @Operation(
+        summary = "Reconstruir rollups de ventas",
+        description = "Recalcula ventas_diarias desde las facturas (agregación con $merge). Sin fechas reconstruye todo el histórico. Solo administradores.",
+        responses = {
+            @ApiResponse(responseCode = "200", description = "Reconstrucción completada",
+                content = @Content(mediaType = "application/json",
+                    examples = @ExampleObject(value = "{\"desde\":\"2025-01-01\",\"hasta\":\"2025-01-31\",\"eliminados\":310,\"generados\":312,\"ms\":840}")
+                )
+            ),
+            @ApiResponse(responseCode = "403", description = "Solo administradores", content = @Content)
+        }
+    )
+    @PostMapping("/ventas/reconstruir")
+    public ResponseEntity<?> reconstruir(@RequestParam(required = false) String desde,
+                                         @RequestParam(required = false) String hasta,
+                                         Authentication authentication) {
+        return respuesta(analiticaService.reconstruir(userId(authentication), desde, hasta));
+    }
+
+    private static String userId(Authentication authentication) {
+        return authentication == null ? null : authentication.getName();
+    }
+
+    private static ResponseEntity<?> respuesta(Map<String, Object> r) {
+        Object error = r.get("error");
+        if (error == null) return ResponseEntity.ok(r);
+        if ("No autenticado".equals(error)) return ResponseEntity.status(401).body(r);
+        if (String.valueOf(error).startsWith("Permisos")) return ResponseEntity.status(403).body(r);
+        return ResponseEntity.badRequest().body(r);
+    }
+}
@@ -0,0 +1,31 @@
+package com.repobackend.api.analitica.listener;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.repobackend.api.analitica.service.VentasDiariasService;
+import com.repobackend.api.factura.event.FacturaEstadoEvent;
+
+@Component
+public class VentasDiariasListener {
+    private static final Logger logger = LoggerFactory.getLogger(VentasDiariasListener.class);
+    private final VentasDiariasService ventasDiariasService;
+
+    public VentasDiariasListener(VentasDiariasService ventasDiariasService) {
+        this.ventasDiariasService = ventasDiariasService;
+    }
+
+    // fallbackExecution: sin transacción activa (no hay MongoTransactionManager) el evento se procesa igual
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onFacturaEstado(FacturaEstadoEvent ev) {
+        try {
+            ventasDiariasService.aplicar(ev.factura, ev.anulada ? -1 : 1);
+        } catch (Exception ex) {
+            // la reconstrucción (POST /api/analitica/reconstruir) corrige lo que se pierda aquí
+            logger.error("Error al actualizar ventas_diarias para la factura {}", ev.factura == null ? null : ev.factura.getId(), ex);
+        }
+    }
+}
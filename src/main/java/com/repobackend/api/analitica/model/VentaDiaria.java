@@ -0,0 +1,79 @@
+package com.repobackend.api.analitica.model;
+
+import java.util.Date;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Rollup diario de ventas por (día, taller, producto). Los reportes por taller y por categoría agregan
+ * estos documentos, nunca las facturas. Clave única (dia, tallerId, productoId); tallerId "" si el
+ * producto no tiene taller.
+ */
+@Document(collection = "ventas_diarias")
+public class VentaDiaria {
+    @Id
+    private String id;
+
+    private String dia; // yyyy-MM-dd en la zona de app.analitica.zona
+    private String tallerId;
+    private String productoId;
+    private String categoriaId; // última categoría vista para el producto
+    private String nombreProducto; // snapshot para reportes sin lookup
+
+    private long unidades;
+    private double bruto; // cantidad * precioUnitario
+    private double descuentos;
+    private double neto; // bruto - descuentos (base imponible)
+    private double iva;
+    private double total; // neto + iva
+    private long lineas; // items de factura agregados
+    private long facturas; // facturas que incluyen el producto ese día
+
+    private Date actualizadoEn;
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getDia() { return dia; }
+    public void setDia(String dia) { this.dia = dia; }
+
+    public String getTallerId() { return tallerId; }
+    public void setTallerId(String tallerId) { this.tallerId = tallerId; }
+
+    public String getProductoId() { return productoId; }
+    public void setProductoId(String productoId) { this.productoId = productoId; }
+
+    public String getCategoriaId() { return categoriaId; }
+    public void setCategoriaId(String categoriaId) { this.categoriaId = categoriaId; }
+
+    public String getNombreProducto() { return nombreProducto; }
+    public void setNombreProducto(String nombreProducto) { this.nombreProducto = nombreProducto; }
+
+    public long getUnidades() { return unidades; }
+    public void setUnidades(long unidades) { this.unidades = unidades; }
+
+    public double getBruto() { return bruto; }
+    public void setBruto(double bruto) { this.bruto = bruto; }
+
+    public double getDescuentos() { return descuentos; }
+    public void setDescuentos(double descuentos) { this.descuentos = descuentos; }
+
+    public double getNeto() { return neto; }
+    public void setNeto(double neto) { this.neto = neto; }
+
+    public double getIva() { return iva; }
+    public void setIva(double iva) { this.iva = iva; }
+
+    public double getTotal() { return total; }
+    public void setTotal(double total) { this.total = total; }
+
+    public long getLineas() { return lineas; }
+    public void setLineas(long lineas) { this.lineas = lineas; }
+
+    public long getFacturas() { return facturas; }
+    public void setFacturas(long facturas) { this.facturas = facturas; }
+
+    public Date getActualizadoEn() { return actualizadoEn; }
+    public void setActualizadoEn(Date actualizadoEn) { this.actualizadoEn = actualizadoEn; }
+}
@@ -0,0 +1,182 @@
+package com.repobackend.api.analitica.service;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.GroupOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Service;
+
+import com.repobackend.api.auth.service.AuthorizationService;
+
+/**
+ * Reportes de ventas leídos solo de ventas_diarias (índice tallerId+dia): el costo depende de días × productos
+ * del rango, no de la cantidad de facturas. Los administradores de plataforma pueden omitir tallerId
+ * (todos los talleres); el resto necesita ser ADMIN o VENDEDOR del taller.
+ */
+@Service
+public class AnaliticaService {
+    private static final int MAX_LIMIT = 100;
+
+    private final MongoTemplate mongoTemplate;
+    private final AuthorizationService authorizationService;
+    private final VentasDiariasService ventasDiariasService;
+
+    @Value("${app.analitica.max-dias:366}")
+    private int maxDias;
+
+    public AnaliticaService(MongoTemplate mongoTemplate, AuthorizationService authorizationService, VentasDiariasService ventasDiariasService) {
+        this.mongoTemplate = mongoTemplate;
+        this.authorizationService = authorizationService;
+        this.ventasDiariasService = ventasDiariasService;
+    }
+
+    /** Totales del rango y serie por día. */
+    public Map<String, Object> resumen(String userId, String tallerId, String desde, String hasta) {
+        Map<String, Object> rango = validar(userId, tallerId, desde, hasta);
+        if (rango.containsKey("error")) return rango;
+        Aggregation agg = Aggregation.newAggregation(
+                Aggregation.match(filtro(tallerId, rango)),
+                sumas(Aggregation.group("dia")),
+                Aggregation.sort(Sort.by(Sort.Direction.ASC, "_id")));
+        List<Map<String, Object>> dias = new ArrayList<>();
+        Map<String, Object> totales = new LinkedHashMap<>();
+        for (String campo : List.of("unidades", "bruto", "descuentos", "neto", "iva", "total")) totales.put(campo, 0);
+        for (Document d : mongoTemplate.aggregate(agg, VentasDiariasService.COLECCION, Document.class)) {
+            Map<String, Object> dia = fila("dia", d);
+            dias.add(dia);
+            totales.put("unidades", ((Number) totales.get("unidades")).longValue() + ((Number) dia.get("unidades")).longValue());
+            for (String campo : List.of("bruto", "descuentos", "neto", "iva", "total")) {
+                totales.put(campo, ((Number) totales.get(campo)).doubleValue() + ((Number) dia.get(campo)).doubleValue());
+            }
+        }
+        Map<String, Object> out = new LinkedHashMap<>(rango);
+        out.put("tallerId", tallerId);
+        out.put("totales", totales);
+        out.put("dias", dias);
+        return out;
+    }
+
+    /** Productos más vendidos del rango. orden: "total" (por defecto) o "unidades". */
+    public Map<String, Object> productos(String userId, String tallerId, String desde, String hasta, String orden, int limit) {
+        Map<String, Object> rango = validar(userId, tallerId, desde, hasta);
+        if (rango.containsKey("error")) return rango;
+        if (limit <= 0 || limit > MAX_LIMIT) limit = 20;
+        String campoOrden = "unidades".equals(orden) ? "unidades" : "total";
+        Aggregation agg = Aggregation.newAggregation(
+                Aggregation.match(filtro(tallerId, rango)),
+                sumas(Aggregation.group("productoId")
+                        .last("nombreProducto").as("nombreProducto")
+                        .last("categoriaId").as("categoriaId")
+                        .sum("facturas").as("facturas")),
+                Aggregation.sort(Sort.by(Sort.Direction.DESC, campoOrden).and(Sort.by(Sort.Direction.ASC, "_id"))),
+                Aggregation.limit(limit));
+        List<Map<String, Object>> productos = new ArrayList<>();
+        for (Document d : mongoTemplate.aggregate(agg, VentasDiariasService.COLECCION, Document.class)) {
+            Map<String, Object> p = fila("productoId", d);
+            p.put("nombreProducto", d.get("nombreProducto"));
+            p.put("categoriaId", d.get("categoriaId"));
+            p.put("facturas", d.get("facturas"));
+            productos.add(p);
+        }
+        Map<String, Object> out = new LinkedHashMap<>(rango);
+        out.put("tallerId", tallerId);
+        out.put("orden", campoOrden);
+        out.put("productos", productos);
+        return out;
+    }
+
+    /** Ventas del rango agrupadas por categoría, de mayor a menor total. */
+    public Map<String, Object> categorias(String userId, String tallerId, String desde, String hasta) {
+        Map<String, Object> rango = validar(userId, tallerId, desde, hasta);
+        if (rango.containsKey("error")) return rango;
+        Aggregation agg = Aggregation.newAggregation(
+                Aggregation.match(filtro(tallerId, rango)),
+                sumas(Aggregation.group("categoriaId")),
+                Aggregation.sort(Sort.by(Sort.Direction.DESC, "total")));
+        List<Map<String, Object>> categorias = new ArrayList<>();
+        for (Document d : mongoTemplate.aggregate(agg, VentasDiariasService.COLECCION, Document.class)) {
+            categorias.add(fila("categoriaId", d));
+        }
+        Map<String, Object> out = new LinkedHashMap<>(rango);
+        out.put("tallerId", tallerId);
+        out.put("categorias", categorias);
+        return out;
+    }
+
+    /** Reconstrucción completa o por rango; solo administradores de plataforma. */
+    public Map<String, Object> reconstruir(String userId, String desde, String hasta) {
+        if (userId == null || !authorizationService.isPlatformAdmin(userId)) {
+            return Map.of("error", "Permisos insuficientes para reconstruir la analítica");
+        }
+        try {
+            LocalDate d = desde == null || desde.isBlank() ? null : LocalDate.parse(desde);
+            LocalDate h = hasta == null || hasta.isBlank() ? null : LocalDate.parse(hasta);
+            if (d != null && h != null && h.isBefore(d)) return Map.of("error", "hasta no puede ser anterior a desde");
+            return ventasDiariasService.reconstruir(d, h);
+        } catch (DateTimeParseException ex) {
+            return Map.of("error", "Fechas inválidas, use el formato yyyy-MM-dd");
+        }
+    }
+
+    // permisos y rango [desde, hasta]; por defecto los últimos 30 días
+    private Map<String, Object> validar(String userId, String tallerId, String desde, String hasta) {
+        if (userId == null) return Map.of("error", "No autenticado");
+        boolean tallerVacio = tallerId == null || tallerId.isBlank();
+        if (!authorizationService.isPlatformAdmin(userId)) {
+            if (tallerVacio) return Map.of("error", "tallerId es requerido");
+            if (!authorizationService.isMemberWithAnyRole(userId, tallerId, List.of("ADMIN", "VENDEDOR"))) {
+                return Map.of("error", "Permisos insuficientes para ver la analítica de este taller");
+            }
+        }
+        LocalDate h;
+        LocalDate d;
+        try {
+            h = hasta == null || hasta.isBlank() ? LocalDate.now(ventasDiariasService.getZona()) : LocalDate.parse(hasta);
+            d = desde == null || desde.isBlank() ? h.minusDays(29) : LocalDate.parse(desde);
+        } catch (DateTimeParseException ex) {
+            return Map.of("error", "Fechas inválidas, use el formato yyyy-MM-dd");
+        }
+        if (h.isBefore(d)) return Map.of("error", "hasta no puede ser anterior a desde");
+        if (ChronoUnit.DAYS.between(d, h) >= maxDias) return Map.of("error", "El rango no puede superar " + maxDias + " días");
+        Map<String, Object> rango = new LinkedHashMap<>();
+        rango.put("desde", d.toString());
+        rango.put("hasta", h.toString());
+        return rango;
+    }
+
+    private static Criteria filtro(String tallerId, Map<String, Object> rango) {
+        Criteria c = Criteria.where("dia").gte(rango.get("desde")).lte(rango.get("hasta"));
+        if (tallerId != null && !tallerId.isBlank()) c = c.and("tallerId").is(tallerId);
+        return c;
+    }
+
+    private static GroupOperation sumas(GroupOperation group) {
+        return group.sum("unidades").as("unidades")
+                .sum("bruto").as("bruto")
+                .sum("descuentos").as("descuentos")
+                .sum("neto").as("neto")
+                .sum("iva").as("iva")
+                .sum("total").as("total");
+    }
+
+    private static Map<String, Object> fila(String clave, Document d) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put(clave, d.get("_id"));
+        m.put("unidades", ((Number) d.get("unidades")).longValue());
+        for (String campo : List.of("bruto", "descuentos", "neto", "iva", "total")) {
+            m.put(campo, ((Number) d.get(campo)).doubleValue());
+        }
+        return m;
+    }
+}
@@ -0,0 +1,200 @@
+package com.repobackend.api.analitica.service;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import com.repobackend.api.analitica.model.VentaDiaria;
+import com.repobackend.api.factura.model.Factura;
+import com.repobackend.api.factura.model.FacturaItem;
+
+/**
+ * Materializa ventas_diarias a partir de las facturas.
+ *
+ * - Incremental: al emitir una factura se suman sus items (agrupados por producto) con un bulk de upserts $inc;
+ *   al anularla se restan los mismos valores.
+ * - Reconstrucción: una agregación sobre facturas EMITIDA/ACEPTADA que termina en $merge sobre la clave única
+ *   (dia, tallerId, productoId). Corrige cualquier desviación del modo incremental y rellena el histórico.
+ */
+@Service
+public class VentasDiariasService {
+    private static final Logger logger = LoggerFactory.getLogger(VentasDiariasService.class);
+    public static final String COLECCION = "ventas_diarias";
+    static final List<String> ESTADOS_VENTA = List.of("EMITIDA", "ACEPTADA");
+
+    private final MongoTemplate mongoTemplate;
+    private final ZoneId zona;
+
+    public VentasDiariasService(MongoTemplate mongoTemplate, @Value("${app.analitica.zona:America/Bogota}") String zona) {
+        this.mongoTemplate = mongoTemplate;
+        this.zona = ZoneId.of(zona);
+    }
+
+    public ZoneId getZona() {
+        return zona;
+    }
+
+    /** Suma (signo 1) o resta (signo -1) los items de la factura en los rollups de su día. */
+    public void aplicar(Factura factura, int signo) {
+        if (factura == null || factura.getItems() == null || factura.getItems().isEmpty()) return;
+        Date fecha = factura.getEmitidaEn() != null ? factura.getEmitidaEn() : factura.getCreadoEn();
+        if (fecha == null) fecha = new Date();
+        String dia = LocalDate.ofInstant(fecha.toInstant(), zona).toString();
+
+        // una factura puede repetir producto en varias líneas: un solo upsert por producto
+        Map<String, Acumulado> porProducto = new LinkedHashMap<>();
+        for (FacturaItem item : factura.getItems()) {
+            if (item == null || item.getProductoId() == null) continue;
+            porProducto.computeIfAbsent(item.getProductoId(), k -> new Acumulado()).sumar(item);
+        }
+        if (porProducto.isEmpty()) return;
+
+        Date ahora = new Date();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, VentaDiaria.class);
+        for (Map.Entry<String, Acumulado> e : porProducto.entrySet()) {
+            Acumulado a = e.getValue();
+            Query q = Query.query(Criteria.where("dia").is(dia).and("tallerId").is(claveTaller(a.tallerId)).and("productoId").is(e.getKey()));
+            Update u = new Update()
+                    .inc("unidades", signo * a.unidades)
+                    .inc("bruto", signo * (a.neto + a.descuentos))
+                    .inc("descuentos", signo * a.descuentos)
+                    .inc("neto", signo * a.neto)
+                    .inc("iva", signo * a.iva)
+                    .inc("total", signo * (a.neto + a.iva))
+                    .inc("lineas", signo * a.lineas)
+                    .inc("facturas", signo)
+                    .set("actualizadoEn", ahora);
+            if (a.categoriaId != null) u.set("categoriaId", a.categoriaId);
+            if (a.nombre != null) u.set("nombreProducto", a.nombre);
+            bulk.upsert(q, u);
+        }
+        bulk.execute();
+    }
+
+    /**
+     * Recalcula los rollups de [desde, hasta] (ambos opcionales, inclusive) desde las facturas.
+     * Los días del rango se borran antes del $merge para que no queden productos que ya no tienen ventas.
+     * Los items anteriores a los snapshots tallerId/categoriaId se completan con un $lookup al producto.
+     */
+    public Map<String, Object> reconstruir(LocalDate desde, LocalDate hasta) {
+        long inicio = System.currentTimeMillis();
+        Document fechaFiltro = new Document();
+        Criteria diasFiltro = Criteria.where("dia");
+        if (desde != null) {
+            fechaFiltro.append("$gte", Date.from(desde.atStartOfDay(zona).toInstant()));
+            diasFiltro = diasFiltro.gte(desde.toString());
+        }
+        if (hasta != null) {
+            fechaFiltro.append("$lt", Date.from(hasta.plusDays(1).atStartOfDay(zona).toInstant()));
+            diasFiltro = diasFiltro.lte(hasta.toString());
+        }
+        Document match = new Document("estado", new Document("$in", ESTADOS_VENTA));
+        if (!fechaFiltro.isEmpty()) match.append("fecha", fechaFiltro);
+
+        List<Document> pipeline = new ArrayList<>();
+        pipeline.add(new Document("$addFields", new Document("fecha", new Document("$ifNull", List.of("$emitidaEn", "$creadoEn")))));
+        pipeline.add(new Document("$match", match));
+        pipeline.add(new Document("$unwind", "$items"));
+        pipeline.add(new Document("$addFields", new Document("pid", new Document("$convert",
+                new Document("input", "$items.productoId").append("to", "objectId").append("onError", null).append("onNull", null)))));
+        pipeline.add(new Document("$lookup", new Document("from", "productos").append("localField", "pid")
+                .append("foreignField", "_id").append("as", "p")));
+        pipeline.add(new Document("$project", new Document("_id", 0)
+                .append("facturaId", "$_id")
+                .append("dia", new Document("$dateToString", new Document("format", "%Y-%m-%d").append("date", "$fecha").append("timezone", zona.getId())))
+                .append("tallerId", new Document("$ifNull", List.of("$items.tallerId",
+                        new Document("$ifNull", List.of(new Document("$arrayElemAt", List.of("$p.tallerId", 0)), "")))))
+                .append("categoriaId", new Document("$ifNull", List.of("$items.categoriaId", new Document("$arrayElemAt", List.of("$p.categoriaId", 0)))))
+                .append("productoId", "$items.productoId")
+                .append("nombreProducto", "$items.nombreProducto")
+                .append("cantidad", new Document("$ifNull", List.of("$items.cantidad", 0)))
+                .append("descuento", new Document("$ifNull", List.of("$items.descuento", 0)))
+                .append("subtotal", new Document("$ifNull", List.of("$items.subtotal", 0)))
+                .append("iva", new Document("$ifNull", List.of("$items.valorIva", 0)))));
+        pipeline.add(new Document("$match", new Document("productoId", new Document("$ne", null))));
+        pipeline.add(new Document("$group", new Document("_id", new Document("dia", "$dia").append("tallerId", "$tallerId").append("productoId", "$productoId"))
+                .append("categoriaId", new Document("$last", "$categoriaId"))
+                .append("nombreProducto", new Document("$last", "$nombreProducto"))
+                .append("unidades", new Document("$sum", "$cantidad"))
+                .append("descuentos", new Document("$sum", "$descuento"))
+                .append("neto", new Document("$sum", "$subtotal"))
+                .append("iva", new Document("$sum", "$iva"))
+                .append("lineas", new Document("$sum", 1))
+                .append("facturas", new Document("$addToSet", "$facturaId"))));
+        pipeline.add(new Document("$project", new Document("_id", 0)
+                .append("dia", "$_id.dia")
+                .append("tallerId", "$_id.tallerId")
+                .append("productoId", "$_id.productoId")
+                .append("categoriaId", 1)
+                .append("nombreProducto", 1)
+                .append("unidades", new Document("$toLong", "$unidades"))
+                .append("bruto", new Document("$add", List.of("$neto", "$descuentos")))
+                .append("descuentos", 1)
+                .append("neto", 1)
+                .append("iva", 1)
+                .append("total", new Document("$add", List.of("$neto", "$iva")))
+                .append("lineas", new Document("$toLong", "$lineas"))
+                .append("facturas", new Document("$toLong", new Document("$size", "$facturas")))
+                .append("actualizadoEn", "$$NOW")));
+        pipeline.add(new Document("$merge", new Document("into", COLECCION)
+                .append("on", List.of("dia", "tallerId", "productoId"))
+                .append("whenMatched", "replace")
+                .append("whenNotMatched", "insert")));
+
+        Query borrar = desde == null && hasta == null ? new Query() : new Query(diasFiltro);
+        long borrados = mongoTemplate.remove(borrar, VentaDiaria.class).getDeletedCount();
+        mongoTemplate.getCollection("facturas").aggregate(pipeline).allowDiskUse(true).toCollection();
+        long generados = mongoTemplate.count(borrar, VentaDiaria.class);
+        long ms = System.currentTimeMillis() - inicio;
+        logger.info("ventas_diarias reconstruido ({} a {}): {} documentos previos, {} generados en {} ms", desde, hasta, borrados, generados, ms);
+
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("desde", desde == null ? null : desde.toString());
+        out.put("hasta", hasta == null ? null : hasta.toString());
+        out.put("eliminados", borrados);
+        out.put("generados", generados);
+        out.put("ms", ms);
+        return out;
+    }
+
+    static String claveTaller(String tallerId) {
+        return tallerId == null ? "" : tallerId;
+    }
+
+    private static final class Acumulado {
+        String tallerId;
+        String categoriaId;
+        String nombre;
+        long unidades;
+        double descuentos;
+        double neto;
+        double iva;
+        long lineas;
+
+        void sumar(FacturaItem item) {
+            if (item.getTallerId() != null) tallerId = item.getTallerId();
+            if (item.getCategoriaId() != null) categoriaId = item.getCategoriaId();
+            if (item.getNombreProducto() != null) nombre = item.getNombreProducto();
+            unidades += item.getCantidad() == null ? 0 : item.getCantidad();
+            descuentos += item.getDescuento() == null ? 0 : item.getDescuento();
+            neto += item.getSubtotal() == null ? 0 : item.getSubtotal();
+            iva += item.getValorIva() == null ? 0 : item.getValorIva();
+            lineas++;
+        }
+    }
+}
@@ -13,7 +13,7 @@ import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
@@ -23,6 +23,7 @@ import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import com.repobackend.api.auth.security.CustomUserDetailsService;
 import com.repobackend.api.auth.security.JwtAuthFilter;
 import com.repobackend.api.auth.security.JwtUtil;
+import com.repobackend.api.auth.service.PasswordHashingService;
 
 import jakarta.servlet.http.HttpServletResponse;
 
@@ -36,8 +37,8 @@ public class SecurityConfig {
     private CustomUserDetailsService customUserDetailsService;
 
     @Bean
-    public BCryptPasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(PasswordHashingService passwordHashingService) {
+        return passwordHashingService.passwordEncoder();
     }
 
     @Bean
@@ -69,6 +70,10 @@ public class SecurityConfig {
             .requestMatchers(HttpMethod.GET, "/api/public/categorias", "/api/public/categorias/**").permitAll()
             // Public simplified products endpoint used by mobile app
             .requestMatchers(HttpMethod.GET, "/api/public/productos", "/api/public/productos/**").permitAll()
+            // Public non-blocking catalog (reactive Mongo)
+            .requestMatchers(HttpMethod.GET, "/api/public/v2/**").permitAll()
+            // Public typeahead (in-memory prefix index)
+            .requestMatchers(HttpMethod.GET, "/api/public/suggest").permitAll()
             // Public product/catalog endpoints: permitir vista sin autenticación
             .requestMatchers(HttpMethod.GET, "/api/productos", "/api/productos/**").permitAll()
             // Public categories listing/details
@@ -90,6 +95,8 @@ public class SecurityConfig {
             .requestMatchers("/api/auth/me", "/api/auth/revoke-all").authenticated()
             // Admin-only endpoints (other admin routes)
             .requestMatchers("/api/admin/**").hasRole("ADMIN")
+            // Analítica de ventas: ADMIN o VENDEDOR (el servicio valida la membresía del taller)
+            .requestMatchers("/api/analitica/**").hasAnyRole("ADMIN","VENDEDOR")
             // Stock modifications: POST/PUT/DELETE requieren ADMIN o VENDEDOR
             .requestMatchers(HttpMethod.POST, "/api/stock/**").hasAnyRole("ADMIN","VENDEDOR")
             .requestMatchers(HttpMethod.PUT, "/api/stock/**").hasAnyRole("ADMIN","VENDEDOR")
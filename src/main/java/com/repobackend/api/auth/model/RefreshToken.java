@@ -14,6 +14,7 @@ public class RefreshToken {
     private Date issuedAt = new Date();
     private Date expiresAt;
     private boolean revoked = false;
+    private Date revokedAt;
     private String deviceInfo;
 
     public String getId() { return id; }
@@ -27,7 +28,12 @@ public class RefreshToken {
     public Date getExpiresAt() { return expiresAt; }
     public void setExpiresAt(Date expiresAt) { this.expiresAt = expiresAt; }
     public boolean isRevoked() { return revoked; }
-    public void setRevoked(boolean revoked) { this.revoked = revoked; }
+    public void setRevoked(boolean revoked) {
+        this.revoked = revoked;
+        if (revoked && revokedAt == null) revokedAt = new Date();
+    }
+    public Date getRevokedAt() { return revokedAt; }
+    public void setRevokedAt(Date revokedAt) { this.revokedAt = revokedAt; }
     public String getDeviceInfo() { return deviceInfo; }
     public void setDeviceInfo(String deviceInfo) { this.deviceInfo = deviceInfo; }
 }
@@ -8,7 +8,8 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.web.filter.OncePerRequestFilter;
 
-import io.jsonwebtoken.Claims;
+import com.repobackend.api.config.AccessLogFilter;
+
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -31,13 +32,13 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         if (auth != null && auth.startsWith("Bearer ")) {
             String token = auth.substring(7);
             try {
-                Claims claims = jwtUtil.parseToken(token);
-                String userId = claims.getSubject();
+                String userId = jwtUtil.parseToken(token).subject();
                 var userDetails = userDetailsService.loadUserByUsername(userId);
                 var authToken = new org.springframework.security.authentication.UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities());
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authToken);
+                request.setAttribute(AccessLogFilter.USER_ID_ATTRIBUTE, userId);
             } catch (Exception ex) {
                 logger.debug("Invalid JWT token for request [{}]: {}", request.getRequestURI(), ex.getMessage());
                 // invalid token -> leave context unauthenticated
@@ -1,8 +1,15 @@
 package com.repobackend.api.auth.security;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -10,6 +17,8 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -17,9 +26,22 @@ import io.jsonwebtoken.security.Keys;
 @Component
 public class JwtUtil {
     private static final Logger logger = LoggerFactory.getLogger(JwtUtil.class);
+    // iat is a NumericDate (whole seconds); this private claim keeps the issue instant in ms for revocation checks
+    private static final String ISSUED_AT_MS = "iat_ms";
+
     private final Key key;
+    // The parser is immutable and thread-safe: build it once instead of per request
+    private final JwtParser parser;
+    private final int cacheMaxEntries;
+    private final long maxTokenLifetimeMs;
+    // SHA-256(token) -> verified claims, valid until the token's exp
+    private final Map<String, TokenClaims> claimsCache = new ConcurrentHashMap<>();
+    // subject -> tokens issued before this instant (ms) are rejected, see revokeTokensIssuedBefore
+    private final Map<String, Long> revokedBefore = new ConcurrentHashMap<>();
 
-    public JwtUtil(@Value("${app.jwt.secret:replace_this_secret_change_in_prod}") String secret) {
+    public JwtUtil(@Value("${app.jwt.secret:replace_this_secret_change_in_prod}") String secret,
+                   @Value("${app.jwt.claims-cache-size:10000}") int cacheMaxEntries,
+                   @Value("${app.jwt.expiration-ms:900000}") long maxTokenLifetimeMs) {
         if (secret == null || secret.isBlank() || secret.equals("replace_this_secret_change_in_prod")) {
             logger.warn("JWT secret is using default placeholder — change APP_JWT_SECRET in production");
         }
@@ -29,6 +51,9 @@ public class JwtUtil {
             throw new IllegalArgumentException("JWT secret is too short; provide at least 32 bytes of entropy");
         }
         this.key = Keys.hmacShaKeyFor(secretBytes);
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
+        this.cacheMaxEntries = cacheMaxEntries;
+        this.maxTokenLifetimeMs = maxTokenLifetimeMs;
     }
 
     public String generateToken(String subject, long expirationMs) {
@@ -38,12 +63,90 @@ public class JwtUtil {
                 .setSubject(subject)
                 .setId(UUID.randomUUID().toString())
                 .setIssuedAt(now)
+                .claim(ISSUED_AT_MS, now.getTime())
                 .setExpiration(exp)
                 .signWith(key, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    public Claims parseToken(String token) {
-        return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
+    /**
+     * Verifies the token and returns an immutable snapshot of its claims. Tokens already verified are served
+     * from an in-memory cache keyed by SHA-256(token) until their exp, so repeated requests skip signature check
+     * and JSON parsing. Throws JwtException if the token is invalid, expired or revoked.
+     */
+    public TokenClaims parseToken(String token) {
+        String digest = digest(token);
+        long now = System.currentTimeMillis();
+        TokenClaims cached = claimsCache.get(digest);
+        if (cached != null) {
+            if (cached.expiresAtMs() > now) {
+                ensureNotRevoked(cached);
+                return cached;
+            }
+            claimsCache.remove(digest, cached);
+        }
+        TokenClaims claims = TokenClaims.of(parser.parseClaimsJws(token).getBody());
+        ensureNotRevoked(claims);
+        if (claims.expiresAtMs() > 0) cache(digest, claims);
+        return claims;
+    }
+
+    /**
+     * Rejects every access token of the subject issued at or before the given instant (e.g. after
+     * "revoke all sessions"). Cached entries of the subject are dropped. The cut-off is kept in memory for the
+     * maximum token lifetime.
+     */
+    public void revokeTokensIssuedBefore(String subject, long instantMs) {
+        if (subject == null) return;
+        revokedBefore.merge(subject, instantMs, Math::max);
+        claimsCache.values().removeIf(c -> subject.equals(c.subject()));
+        purgeRevocations(System.currentTimeMillis());
+    }
+
+    private void ensureNotRevoked(TokenClaims claims) {
+        Long cutoff = revokedBefore.get(claims.subject());
+        if (cutoff == null) return;
+        // Inclusive comparison: tokens without iat_ms only carry whole seconds, so one issued in the
+        // revocation's second is rejected too (the client just logs in again)
+        if (claims.issuedAtMs() <= cutoff) throw new JwtException("Token revoked");
+    }
+
+    private void cache(String digest, TokenClaims claims) {
+        if (claimsCache.size() >= cacheMaxEntries) {
+            long now = System.currentTimeMillis();
+            for (Iterator<TokenClaims> it = claimsCache.values().iterator(); it.hasNext();) {
+                if (it.next().expiresAtMs() <= now) it.remove();
+            }
+            // still full: skip caching rather than grow unbounded
+            if (claimsCache.size() >= cacheMaxEntries) return;
+        }
+        claimsCache.put(digest, claims);
+    }
+
+    private void purgeRevocations(long now) {
+        revokedBefore.values().removeIf(cutoff -> cutoff + maxTokenLifetimeMs < now);
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(md.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Immutable view of the verified claims the application uses. Safe to share across requests,
+     * unlike jjwt's Claims (a mutable map). issuedAtMs / expiresAtMs are -1 when the claim is absent.
+     */
+    public record TokenClaims(String subject, String id, long issuedAtMs, long expiresAtMs) {
+        static TokenClaims of(Claims claims) {
+            Long iatMs = claims.get(ISSUED_AT_MS, Long.class);
+            Date iat = claims.getIssuedAt();
+            Date exp = claims.getExpiration();
+            long issuedAt = iatMs != null ? iatMs : iat != null ? iat.getTime() : -1L;
+            return new TokenClaims(claims.getSubject(), claims.getId(), issuedAt, exp != null ? exp.getTime() : -1L);
+        }
     }
 }
@@ -6,6 +6,7 @@ import java.util.Arrays;
 import java.util.Base64;
 import java.util.Date;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 import com.repobackend.api.auth.config.SecurityConstants;
 import com.repobackend.api.auth.dto.UserProfile;
@@ -13,11 +14,14 @@ import com.repobackend.api.auth.exception.OAuthException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseCookie;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import com.repobackend.api.auth.dto.AuthRequests.LoginRequest;
@@ -38,10 +42,11 @@ public class AuthService {
     private static final Logger logger = LoggerFactory.getLogger(AuthService.class);
     private final UserRepository userRepository;
     private final RefreshTokenRepository refreshTokenRepository;
-    private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    private final PasswordHashingService passwordHashingService;
     private final JwtUtil jwtUtil;
     private final TallerService tallerService;
     private final OAuthService oauthService;
+    private final MongoTemplate mongoTemplate;
 
     @Value("${app.jwt.expiration-ms:900000}")
     private long jwtExpirationMs;
@@ -50,12 +55,15 @@ public class AuthService {
     private long refreshExpirationMs;
 
     public AuthService(UserRepository userRepository, RefreshTokenRepository refreshTokenRepository, JwtUtil jwtUtil,
-            TallerService tallerService, OAuthService oauthService) {
+            TallerService tallerService, OAuthService oauthService, PasswordHashingService passwordHashingService,
+            MongoTemplate mongoTemplate) {
         this.userRepository = userRepository;
         this.refreshTokenRepository = refreshTokenRepository;
         this.jwtUtil = jwtUtil;
         this.tallerService = tallerService;
         this.oauthService = oauthService;
+        this.passwordHashingService = passwordHashingService;
+        this.mongoTemplate = mongoTemplate;
     }
 
     public ResponseEntity<?> register(RegisterRequest req) {
@@ -68,7 +76,11 @@ public class AuthService {
         User u = new User();
         u.setUsername(req.username);
         u.setEmail(req.email);
-        u.setPassword(passwordEncoder.encode(req.password));
+        try {
+            u.setPassword(passwordHashingService.encode(req.password));
+        } catch (RejectedExecutionException ex) {
+            return busy();
+        }
         u.setNombre(req.nombre);
         u.setApellido(req.apellido);
         // By default, a new registrant is a CLIENT (app customer). Invitations will link the user to a taller
@@ -117,12 +129,31 @@ public class AuthService {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Credenciales inválidas");
         }
         User u = maybe.get();
-        if (!passwordEncoder.matches(req.password, u.getPassword())) {
+        boolean passwordOk;
+        try {
+            passwordOk = passwordHashingService.matches(req.password, u.getPassword());
+        } catch (RejectedExecutionException ex) {
+            logger.warn("Login rechazado por saturación del pool de hash: {}", ex.getMessage());
+            return busy();
+        }
+        if (!passwordOk) {
             String ip = request == null ? "-" : request.getRemoteAddr();
             String ua = request == null ? "-" : request.getHeader("User-Agent");
             logger.warn("Login failed for user/email: {} ip={} ua={} - invalid password", req.usernameOrEmail, ip, ua);
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Credenciales inválidas");
         }
+        if (passwordHashingService.needsRehash(u.getPassword())) {
+            String userId = u.getId();
+            String oldHash = u.getPassword();
+            // Update condicional de solo el hash: no pisa otros cambios del usuario hechos mientras tanto, y no
+            // aplica si la contraseña cambió entre el login y el fin del rehash
+            passwordHashingService.rehashAsync(req.password, newHash -> {
+                Query q = new Query(Criteria.where("id").is(userId).and("password").is(oldHash));
+                if (mongoTemplate.updateFirst(q, new Update().set("password", newHash), User.class).getModifiedCount() > 0) {
+                    logger.info("Hash de contraseña actualizado para usuario {}", userId);
+                }
+            });
+        }
         // Generate JWT access token and a random refresh token
         String accessToken = jwtUtil.generateToken(u.getId(), jwtExpirationMs);
         String rawRefresh = java.util.UUID.randomUUID() + "-" + System.currentTimeMillis();
@@ -150,6 +181,12 @@ public class AuthService {
         }});
     }
 
+    private ResponseEntity<?> busy() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("Servidor ocupado, intente de nuevo en unos segundos");
+    }
+
     private String sha256(String input) {
         try {
             MessageDigest md = MessageDigest.getInstance("SHA-256");
@@ -233,7 +270,7 @@ public class AuthService {
         String token = bearerToken.substring("Bearer ".length());
         String userId;
         try {
-            userId = jwtUtil.parseToken(token).getSubject();
+            userId = jwtUtil.parseToken(token).subject();
         } catch (Exception ex) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("acces token inválido");
         }
@@ -242,6 +279,8 @@ public class AuthService {
             rt.setRevoked(true);
         }
         refreshTokenRepository.saveAll(tokens);
+        // also reject access tokens issued so far (and drop them from the verified-claims cache)
+        jwtUtil.revokeTokensIssuedBefore(userId, System.currentTimeMillis());
         return ResponseEntity.ok().build();
     }
 
@@ -251,6 +290,7 @@ public class AuthService {
         java.util.List<RefreshToken> tokens = refreshTokenRepository.findByUserId(userId);
         for (RefreshToken rt : tokens) rt.setRevoked(true);
         refreshTokenRepository.saveAll(tokens);
+        jwtUtil.revokeTokensIssuedBefore(userId, System.currentTimeMillis());
         return ResponseEntity.ok().build();
     }
 
@@ -277,7 +317,7 @@ public class AuthService {
         String token = bearerToken.substring("Bearer ".length());
         String userId;
         try {
-            userId = jwtUtil.parseToken(token).getSubject();
+            userId = jwtUtil.parseToken(token).subject();
         } catch (Exception ex) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Access token inválido");
         }
@@ -376,7 +416,12 @@ public class AuthService {
             }
             u.setNombre(first);
             u.setApellido(last);
-            u.setPassword(passwordEncoder.encode(java.util.UUID.randomUUID().toString()));
+            try {
+                u.setPassword(passwordHashingService.encode(java.util.UUID.randomUUID().toString()));
+            } catch (RejectedExecutionException ex) {
+                logger.warn("Registro OAuth rechazado por saturación del pool de hash: {}", ex.getMessage());
+                return busy();
+            }
             // Default role for OAuth-registered users is CLIENT; invitations will join them to a taller.
             u.setRoles(java.util.List.of("CLIENT"));
             // set provider info from Google token
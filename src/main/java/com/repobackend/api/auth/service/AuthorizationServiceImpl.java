@@ -3,10 +3,13 @@ package com.repobackend.api.auth.service;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Service;
 
 import com.repobackend.api.auth.model.User;
 import com.repobackend.api.auth.repository.UserRepository;
+import com.repobackend.api.config.CacheConfig;
 import com.repobackend.api.producto.model.Producto;
 import com.repobackend.api.producto.repository.ProductoRepository;
 import com.repobackend.api.taller.model.Taller;
@@ -17,29 +20,34 @@ public class AuthorizationServiceImpl implements AuthorizationService {
     private final UserRepository userRepository;
     private final TallerRepository tallerRepository;
     private final ProductoRepository productoRepository;
+    // roles por userId con TTL corto: cada endpoint protegido consulta isPlatformAdmin una o más veces
+    private final Cache rolesCache;
 
-    public AuthorizationServiceImpl(UserRepository userRepository, TallerRepository tallerRepository, ProductoRepository productoRepository) {
+    public AuthorizationServiceImpl(UserRepository userRepository, TallerRepository tallerRepository, ProductoRepository productoRepository, CacheManager cacheManager) {
         this.userRepository = userRepository;
         this.tallerRepository = tallerRepository;
         this.productoRepository = productoRepository;
+        this.rolesCache = cacheManager.getCache(CacheConfig.ROLES_USUARIO);
     }
 
     @Override
     public boolean isPlatformAdmin(String userId) {
         if (userId == null) return false;
-        Optional<User> maybe = userRepository.findById(userId);
-        if (maybe.isEmpty()) return false;
-        User u = maybe.get();
-        return u.getRoles() != null && u.getRoles().contains("ADMIN");
+        return roles(userId).contains("ADMIN");
     }
 
     @Override
     public boolean isGlobalVendedor(String userId) {
         if (userId == null) return false;
-        Optional<User> maybe = userRepository.findById(userId);
-        if (maybe.isEmpty()) return false;
-        User u = maybe.get();
-        return u.getRoles() != null && u.getRoles().contains("VENDEDOR");
+        return roles(userId).contains("VENDEDOR");
+    }
+
+    private List<String> roles(String userId) {
+        return rolesCache.get(userId, () -> {
+            Optional<User> maybe = userRepository.findById(userId);
+            if (maybe.isEmpty() || maybe.get().getRoles() == null) return List.of();
+            return List.copyOf(maybe.get().getRoles());
+        });
     }
 
     @SuppressWarnings("unchecked")
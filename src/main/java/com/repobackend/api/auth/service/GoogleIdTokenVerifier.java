@@ -0,0 +1,254 @@
+package com.repobackend.api.auth.service;
+
+import java.math.BigInteger;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.MessageDigest;
+import java.security.PublicKey;
+import java.security.spec.RSAPublicKeySpec;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.repobackend.api.auth.exception.OAuthException;
+import com.repobackend.api.common.http.OutboundHttpClient;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.IncorrectClaimException;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MissingClaimException;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+
+/**
+ * Verificación local de ID tokens de Google (RS256) contra las claves públicas del JWKS de Google.
+ *
+ * - El JWKS se cachea según el max-age del header Cache-Control y se refresca en segundo plano antes de vencer.
+ * - Un kid desconocido fuerza un refresco (rotación de claves), como mucho una vez por minuto.
+ * - Los tokens ya verificados se guardan unos segundos (clave: SHA-256 del token) para absorber reintentos del cliente.
+ */
+@Component
+public class GoogleIdTokenVerifier {
+    private static final Logger logger = LoggerFactory.getLogger(GoogleIdTokenVerifier.class);
+    private static final List<String> ISSUERS = List.of("accounts.google.com", "https://accounts.google.com");
+    private static final Pattern MAX_AGE = Pattern.compile("max-age=(\\d+)");
+    private static final long DEFAULT_MAX_AGE_MS = 3_600_000L;
+    private static final long REFRESH_AHEAD_MS = 300_000L;
+    private static final long MIN_FORCED_REFRESH_INTERVAL_MS = 60_000L;
+    private static final int MAX_VERIFIED_ENTRIES = 10_000;
+
+    private final OutboundHttpClient http;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final String jwksUri;
+    private final String clientId;
+    private final long verifiedTtlMs;
+    private final JwtParser parser;
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private final Map<String, VerifiedToken> verified = new ConcurrentHashMap<>();
+
+    private volatile KeySet keySet;
+    private volatile long lastForcedRefresh = 0;
+
+    public GoogleIdTokenVerifier(OutboundHttpClient http,
+                                 @Value("${app.oauth.google.jwks-uri:https://www.googleapis.com/oauth2/v3/certs}") String jwksUri,
+                                 @Value("${app.oauth.google.client-id:}") String clientId,
+                                 @Value("${app.oauth.google.verified-cache-ttl-ms:60000}") long verifiedTtlMs) {
+        this.http = http;
+        this.jwksUri = jwksUri;
+        this.clientId = clientId;
+        this.verifiedTtlMs = verifiedTtlMs;
+        var builder = Jwts.parserBuilder()
+                .setAllowedClockSkewSeconds(30)
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        if (!"RS256".equals(header.getAlgorithm())) throw new JwtException("Algoritmo no permitido: " + header.getAlgorithm());
+                        return publicKey(header.getKeyId());
+                    }
+                });
+        if (clientId != null && !clientId.isBlank()) builder.requireAudience(clientId);
+        this.parser = builder.build();
+    }
+
+    /**
+     * Verifica firma, audiencia, emisor y expiración. Retorna los claims del token (email, name, sub, ...).
+     */
+    public Map<String, Object> verify(String idToken) throws OAuthException {
+        if (idToken == null || idToken.isBlank()) throw new OAuthException("Google token requerido", 400);
+        String digest = sha256(idToken);
+        long now = System.currentTimeMillis();
+        VerifiedToken cached = verified.get(digest);
+        if (cached != null) {
+            if (cached.expiresAt > now) return cached.claims;
+            verified.remove(digest);
+        }
+
+        Claims claims;
+        try {
+            claims = parser.parseClaimsJws(idToken).getBody();
+        } catch (ExpiredJwtException ex) {
+            throw new OAuthException("Google token expired", 401);
+        } catch (IncorrectClaimException | MissingClaimException ex) {
+            throw new OAuthException("Google token audience mismatch", 401);
+        } catch (JwksUnavailableException ex) {
+            throw new OAuthException("Failed to fetch Google public keys", ex, 502);
+        } catch (JwtException | IllegalArgumentException ex) {
+            throw new OAuthException("Invalid Google token: " + ex.getMessage(), 401);
+        }
+        if (!ISSUERS.contains(claims.getIssuer())) throw new OAuthException("Invalid issuer in Google token", 401);
+
+        Map<String, Object> data = new HashMap<>(claims);
+        long exp = claims.getExpiration() == null ? now : claims.getExpiration().getTime();
+        cacheVerified(digest, data, Math.min(now + verifiedTtlMs, exp));
+        return data;
+    }
+
+    /**
+     * Refresco en segundo plano: renueva el JWKS unos minutos antes de que venza su max-age,
+     * de modo que los logins casi nunca esperan una descarga.
+     */
+    @Scheduled(fixedDelayString = "${app.oauth.google.jwks-refresh-check-ms:60000}", initialDelay = 0)
+    public void refreshIfStale() {
+        KeySet current = keySet;
+        if (current != null && System.currentTimeMillis() < current.expiresAt - REFRESH_AHEAD_MS) return;
+        try {
+            refresh();
+        } catch (Exception ex) {
+            logger.warn("No se pudo refrescar el JWKS de Google: {}", ex.getMessage());
+        }
+    }
+
+    private PublicKey publicKey(String kid) {
+        KeySet current = keySet;
+        if (current == null || current.expiresAt <= System.currentTimeMillis()) current = refreshUnderLock(current);
+        PublicKey key = current.keys.get(kid);
+        if (key == null && System.currentTimeMillis() - lastForcedRefresh >= MIN_FORCED_REFRESH_INTERVAL_MS) {
+            lastForcedRefresh = System.currentTimeMillis();
+            current = refreshUnderLock(current);
+            key = current.keys.get(kid);
+        }
+        if (key == null) throw new JwtException("Clave de firma desconocida: " + kid);
+        return key;
+    }
+
+    /** Single-flight: si otro hilo ya refrescó mientras esperábamos el lock, se usa su resultado. */
+    private KeySet refreshUnderLock(KeySet seen) {
+        refreshLock.lock();
+        try {
+            KeySet current = keySet;
+            if (current != null && current != seen) return current;
+            return refresh();
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private KeySet refresh() {
+        try {
+            HttpRequest req = HttpRequest.newBuilder(URI.create(jwksUri)).GET().build();
+            HttpResponse<String> resp = http.send(req);
+            if (resp.statusCode() != 200) throw new JwksUnavailableException("JWKS status=" + resp.statusCode(), null);
+            Map<String, Object> body = mapper.readValue(resp.body(), new TypeReference<Map<String, Object>>() {});
+            Map<String, PublicKey> keys = new HashMap<>();
+            Object list = body.get("keys");
+            if (list instanceof List) {
+                KeyFactory kf = KeyFactory.getInstance("RSA");
+                for (Object o : (List<?>) list) {
+                    if (!(o instanceof Map)) continue;
+                    Map<?, ?> jwk = (Map<?, ?>) o;
+                    if (!"RSA".equals(jwk.get("kty"))) continue;
+                    BigInteger n = new BigInteger(1, Base64.getUrlDecoder().decode(String.valueOf(jwk.get("n"))));
+                    BigInteger e = new BigInteger(1, Base64.getUrlDecoder().decode(String.valueOf(jwk.get("e"))));
+                    keys.put(String.valueOf(jwk.get("kid")), kf.generatePublic(new RSAPublicKeySpec(n, e)));
+                }
+            }
+            long maxAgeMs = resp.headers().firstValue("Cache-Control").map(GoogleIdTokenVerifier::parseMaxAgeMs).orElse(DEFAULT_MAX_AGE_MS);
+            KeySet fresh = new KeySet(Map.copyOf(keys), System.currentTimeMillis() + maxAgeMs);
+            keySet = fresh;
+            logger.debug("JWKS de Google actualizado: {} claves, max-age {} ms", keys.size(), maxAgeMs);
+            return fresh;
+        } catch (JwksUnavailableException ex) {
+            throw ex;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new JwksUnavailableException("Interrumpido descargando JWKS", ex);
+        } catch (Exception ex) {
+            throw new JwksUnavailableException("Error descargando JWKS: " + ex.getMessage(), ex);
+        }
+    }
+
+    static long parseMaxAgeMs(String cacheControl) {
+        if (cacheControl == null) return DEFAULT_MAX_AGE_MS;
+        Matcher m = MAX_AGE.matcher(cacheControl);
+        return m.find() ? Long.parseLong(m.group(1)) * 1000L : DEFAULT_MAX_AGE_MS;
+    }
+
+    private void cacheVerified(String digest, Map<String, Object> claims, long expiresAt) {
+        if (verified.size() >= MAX_VERIFIED_ENTRIES) {
+            long now = System.currentTimeMillis();
+            for (Iterator<VerifiedToken> it = verified.values().iterator(); it.hasNext();) {
+                if (it.next().expiresAt <= now) it.remove();
+            }
+            if (verified.size() >= MAX_VERIFIED_ENTRIES) return;
+        }
+        verified.put(digest, new VerifiedToken(Collections.unmodifiableMap(claims), expiresAt));
+    }
+
+    private static String sha256(String s) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(md.digest(s.getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static final class KeySet {
+        final Map<String, PublicKey> keys;
+        final long expiresAt;
+
+        KeySet(Map<String, PublicKey> keys, long expiresAt) {
+            this.keys = keys;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static final class VerifiedToken {
+        final Map<String, Object> claims;
+        final long expiresAt;
+
+        VerifiedToken(Map<String, Object> claims, long expiresAt) {
+            this.claims = claims;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /** Error al obtener el JWKS (red, status no 200 o JSON inválido): se traduce a 502. */
+    static final class JwksUnavailableException extends RuntimeException {
+        JwksUnavailableException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
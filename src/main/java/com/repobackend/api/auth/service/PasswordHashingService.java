@@ -0,0 +1,188 @@
+package com.repobackend.api.auth.service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Hash de contraseñas con algoritmo y coste configurables (bcrypt o argon2).
+ *
+ * El trabajo de CPU corre en un pool acotado (app.security.password.threads / queue-capacity): un pico de logins
+ * no puede ocupar todos los hilos de Tomcat; si la cola está llena se rechaza enseguida con
+ * RejectedExecutionException (los controladores responden 503). Los hashes existentes se verifican con el
+ * algoritmo con el que fueron creados y needsRehash indica si hay que regenerarlos con los parámetros actuales.
+ */
+@Service
+public class PasswordHashingService {
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHashingService.class);
+
+    private final String algorithm;
+    private final int bcryptStrength;
+    private final BCryptPasswordEncoder bcrypt;
+    private final Argon2PasswordEncoder argon2;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMs;
+    private final MeterRegistry meterRegistry;
+
+    public PasswordHashingService(@Value("${app.security.password.algorithm:bcrypt}") String algorithm,
+                                  @Value("${app.security.password.bcrypt-strength:10}") int bcryptStrength,
+                                  @Value("${app.security.password.argon2.memory-kb:19456}") int argon2MemoryKb,
+                                  @Value("${app.security.password.argon2.iterations:2}") int argon2Iterations,
+                                  @Value("${app.security.password.argon2.parallelism:1}") int argon2Parallelism,
+                                  @Value("${app.security.password.threads:0}") int threads,
+                                  @Value("${app.security.password.queue-capacity:64}") int queueCapacity,
+                                  @Value("${app.security.password.timeout-ms:5000}") long timeoutMs,
+                                  ObjectProvider<MeterRegistry> meterRegistry) {
+        this.algorithm = "argon2".equalsIgnoreCase(algorithm) ? "argon2" : "bcrypt";
+        this.bcryptStrength = bcryptStrength;
+        this.bcrypt = new BCryptPasswordEncoder(bcryptStrength);
+        this.argon2 = new Argon2PasswordEncoder(16, 32, argon2Parallelism, argon2MemoryKb, argon2Iterations);
+        this.timeoutMs = timeoutMs;
+        this.meterRegistry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors());
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                r -> {
+                    Thread t = new Thread(r, "password-hash-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        Gauge.builder("auth.password.queue", executor, e -> e.getQueue().size()).register(this.meterRegistry);
+        logger.info("Hash de contraseñas: algoritmo={} hilos={} cola={}", this.algorithm, poolSize, queueCapacity);
+    }
+
+    /** Genera el hash con el algoritmo y coste configurados. */
+    public String encode(CharSequence raw) {
+        return run("encode", () -> current().encode(raw));
+    }
+
+    /** Verifica contra el algoritmo con el que se generó el hash (bcrypt "$2..." o argon2 "$argon2..."). */
+    public boolean matches(CharSequence raw, String encoded) {
+        if (raw == null || encoded == null || encoded.isBlank()) return false;
+        return run("matches", () -> encoderFor(encoded).matches(raw, encoded));
+    }
+
+    /** true si el hash se generó con otro algoritmo o con un coste distinto al configurado. */
+    public boolean needsRehash(String encoded) {
+        if (encoded == null || encoded.isBlank()) return false;
+        boolean isArgon2 = encoded.startsWith("$argon2");
+        if ("argon2".equals(algorithm)) return !isArgon2 || argon2.upgradeEncoding(encoded);
+        if (isArgon2) return true;
+        return bcryptCost(encoded) != bcryptStrength;
+    }
+
+    /**
+     * Regenera el hash en segundo plano (tras un login correcto) y entrega el nuevo valor al callback.
+     * Si el pool está saturado simplemente se omite; se volverá a intentar en el próximo login.
+     */
+    public void rehashAsync(CharSequence raw, Consumer<String> onRehashed) {
+        String copy = raw.toString();
+        try {
+            executor.execute(() -> {
+                try {
+                    String hash = timed("rehash", () -> current().encode(copy));
+                    onRehashed.accept(hash);
+                } catch (Exception ex) {
+                    logger.warn("No se pudo regenerar el hash de contraseña: {}", ex.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            logger.debug("Pool de hash saturado, se omite el rehash");
+        }
+    }
+
+    /**
+     * PasswordEncoder para Spring Security (AuthenticationManager): mismos algoritmos, ejecución en el hilo que llama.
+     */
+    public PasswordEncoder passwordEncoder() {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) { return current().encode(rawPassword); }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return encodedPassword != null && encoderFor(encodedPassword).matches(rawPassword, encodedPassword);
+            }
+
+            @Override
+            public boolean upgradeEncoding(String encodedPassword) { return needsRehash(encodedPassword); }
+        };
+    }
+
+    private PasswordEncoder current() {
+        return "argon2".equals(algorithm) ? argon2 : bcrypt;
+    }
+
+    private PasswordEncoder encoderFor(String encoded) {
+        return encoded.startsWith("$argon2") ? argon2 : bcrypt;
+    }
+
+    private static int bcryptCost(String encoded) {
+        // formato $2a$10$...
+        try {
+            int start = encoded.indexOf('$', 1) + 1;
+            return Integer.parseInt(encoded.substring(start, encoded.indexOf('$', start)));
+        } catch (Exception ex) {
+            return -1;
+        }
+    }
+
+    private <T> T run(String operation, Callable<T> task) {
+        Future<T> future = executor.submit(() -> timed(operation, task));
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            future.cancel(true);
+            throw new RejectedExecutionException("Tiempo de espera agotado calculando hash de contraseña");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrumpido calculando hash de contraseña");
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private <T> T timed(String operation, Callable<T> task) throws Exception {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            return task.call();
+        } finally {
+            sample.stop(Timer.builder("auth.password.hash")
+                    .tag("operation", operation)
+                    .tag("algorithm", algorithm)
+                    .register(meterRegistry));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -17,6 +17,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.repobackend.api.carrito.dto.CarritoItemRequest;
 import com.repobackend.api.carrito.dto.CarritoRequest;
 import com.repobackend.api.carrito.dto.CarritoResponse;
+import com.repobackend.api.carrito.service.CarritoPricingService;
 import com.repobackend.api.carrito.service.CarritoService;
 
 import jakarta.validation.Valid;
@@ -33,10 +34,12 @@ import io.swagger.v3.oas.annotations.media.ExampleObject;
 @Tag(name = "Carritos", description = "Operaciones sobre carritos de compra")
 public class CarritoController {
     private final CarritoService carritoService;
+    private final CarritoPricingService carritoPricingService;
     private final ObjectMapper objectMapper;
 
-    public CarritoController(CarritoService carritoService, ObjectMapper objectMapper) {
+    public CarritoController(CarritoService carritoService, CarritoPricingService carritoPricingService, ObjectMapper objectMapper) {
         this.carritoService = carritoService;
+        this.carritoPricingService = carritoPricingService;
         this.objectMapper = objectMapper;
     }
 
@@ -97,6 +100,20 @@ public class CarritoController {
         return ResponseEntity.ok(Map.of("carrito", carritoService.toResponse(maybe.get())));
     }
 
+    @Operation(summary = "Obtener carrito con precios",
+        description = "Devuelve el carrito con nombre, precio, subtotales, IVA y total por línea y del carrito, "
+            + "y marca las líneas cuya cantidad supera el stock disponible",
+        responses = {@ApiResponse(responseCode = "200", description = "Carrito con precios",
+                        content = @Content(mediaType = "application/json",
+                            examples = @ExampleObject(value = "{\"carrito\":{\"id\":\"507f1f77bcf86cd799439999\",\"items\":[{\"productoId\":\"507f191e810c19729de860ea\",\"nombre\":\"Filtro de aceite\",\"cantidad\":2,\"precioUnitario\":25000.0,\"tasaIva\":19.0,\"subtotal\":50000.0,\"valorIva\":9500.0,\"totalItem\":59500.0,\"stockDisponible\":1,\"stockInsuficiente\":true,\"disponible\":true}],\"subtotal\":50000.0,\"totalIva\":9500.0,\"total\":59500.0,\"stockSuficiente\":false}}"))),
+                     @ApiResponse(responseCode = "404", description = "Carrito no encontrado", content = @Content)})
+    @GetMapping("/{id}/detalle")
+    public ResponseEntity<?> getDetalle(@PathVariable String id) {
+        var maybe = carritoService.getById(id);
+        if (maybe.isEmpty()) return ResponseEntity.status(404).body(Map.of("error", "Carrito no encontrado"));
+        return ResponseEntity.ok(Map.of("carrito", carritoPricingService.detalle(maybe.get())));
+    }
+
     @Operation(
         summary = "Merge de carrito anónimo",
         description = "Sincroniza un carrito anónimo al usuario autenticado tras el login. Combina items del carrito anónimo con el carrito del usuario.",
@@ -162,20 +179,11 @@ public class CarritoController {
     )
     @PostMapping("/{id}/items")
     public ResponseEntity<?> addItem(@PathVariable String id, @Valid @RequestBody CarritoItemRequest body, Authentication authentication) {
-        // Permitir carritos anónimos: userId puede ser null
+        // Permitir carritos anónimos: userId puede ser null.
+        // El servicio sólo modifica si el carrito es anónimo o del usuario (403 si tiene otro dueño)
         String userId = authentication == null ? null : authentication.getName();
-        var maybe = carritoService.getById(id);
-        if (maybe.isEmpty()) return ResponseEntity.status(404).body(Map.of("error", "Carrito no encontrado"));
-        var carrito = maybe.get();
-        String ownerId = carrito.getUsuarioId() == null ? null : carrito.getUsuarioId().toHexString();
-        // Si el carrito tiene dueño Y el usuario actual no es el dueño -> 403
-        if (ownerId != null && !ownerId.equals(userId)) {
-            return ResponseEntity.status(403).body(Map.of("error", "No tienes permisos para modificar este carrito"));
-        }
-        // Permitir modificar si: 1) carrito anónimo (ownerId==null), o 2) usuario es el dueño
-        var r = carritoService.addItem(id, body);
-        if (r.containsKey("error")) return ResponseEntity.status(400).body(r);
-        return ResponseEntity.ok(r);
+        var r = carritoService.addItem(id, body, userId);
+        return toResponseEntity(r);
     }
 
     @Operation(summary = "Remover item de carrito", description = "Remueve un item del carrito del usuario autenticado",
@@ -184,18 +192,8 @@ public class CarritoController {
     public ResponseEntity<?> removeItem(@PathVariable String id, @PathVariable String productoId, Authentication authentication) {
         // Permitir carritos anónimos: userId puede ser null
         String userId = authentication == null ? null : authentication.getName();
-        var maybe = carritoService.getById(id);
-        if (maybe.isEmpty()) return ResponseEntity.status(404).body(Map.of("error", "Carrito no encontrado"));
-        var carrito = maybe.get();
-        String ownerId = carrito.getUsuarioId() == null ? null : carrito.getUsuarioId().toHexString();
-        // Si el carrito tiene dueño Y el usuario actual no es el dueño -> 403
-        if (ownerId != null && !ownerId.equals(userId)) {
-            return ResponseEntity.status(403).body(Map.of("error", "No tienes permisos para modificar este carrito"));
-        }
-        // Permitir modificar si: 1) carrito anónimo (ownerId==null), o 2) usuario es el dueño
-        var r = carritoService.removeItem(id, productoId);
-        if (r.containsKey("error")) return ResponseEntity.status(400).body(r);
-        return ResponseEntity.ok(r);
+        var r = carritoService.removeItem(id, productoId, userId);
+        return toResponseEntity(r);
     }
 
     @Operation(summary = "Vaciar carrito", description = "Elimina todos los items del carrito",
@@ -204,14 +202,8 @@ public class CarritoController {
     public ResponseEntity<?> clear(@PathVariable String id, Authentication authentication) {
         String userId = authentication == null ? null : authentication.getName();
         if (userId == null) return ResponseEntity.status(401).body(Map.of("error", "No autenticado"));
-        var maybe = carritoService.getById(id);
-        if (maybe.isEmpty()) return ResponseEntity.status(404).body(Map.of("error", "Carrito no encontrado"));
-        var carrito = maybe.get();
-        String ownerId = carrito.getUsuarioId() == null ? null : carrito.getUsuarioId().toHexString();
-        if (ownerId == null || !ownerId.equals(userId)) return ResponseEntity.status(403).body(Map.of("error", "No tienes permisos para modificar este carrito"));
-        var r = carritoService.clear(id);
-        if (r.containsKey("error")) return ResponseEntity.status(400).body(r);
-        return ResponseEntity.ok(r);
+        var r = carritoService.clear(id, userId);
+        return toResponseEntity(r);
     }
 
     @Operation(summary = "Eliminar carrito", description = "Elimina un carrito por id",
@@ -229,4 +221,12 @@ public class CarritoController {
         if (r.containsKey("error")) return ResponseEntity.status(400).body(r);
         return ResponseEntity.ok(r);
     }
-}
\ No newline at end of file
+
+    private ResponseEntity<?> toResponseEntity(Map<String, Object> r) {
+        if (r.containsKey("error")) {
+            int status = r.get("status") == null ? 400 : (int) r.get("status");
+            return ResponseEntity.status(status).body(r);
+        }
+        return ResponseEntity.ok(r);
+    }
+}
@@ -0,0 +1,52 @@
+package com.repobackend.api.carrito.dto;
+
+public class CarritoDetalleItemResponse {
+    private String productoId;
+    private String nombre;
+    private String thumbnailUrl;
+    private Integer cantidad;
+    private Double precioUnitario;
+    private Double tasaIva;
+    private Double subtotal;
+    private Double valorIva;
+    private Double totalItem;
+    private Integer stockDisponible;
+    private boolean stockInsuficiente; // cantidad > stockDisponible
+    private boolean disponible = true; // false si el producto ya no existe
+
+    public String getProductoId() { return productoId; }
+    public void setProductoId(String productoId) { this.productoId = productoId; }
+
+    public String getNombre() { return nombre; }
+    public void setNombre(String nombre) { this.nombre = nombre; }
+
+    public String getThumbnailUrl() { return thumbnailUrl; }
+    public void setThumbnailUrl(String thumbnailUrl) { this.thumbnailUrl = thumbnailUrl; }
+
+    public Integer getCantidad() { return cantidad; }
+    public void setCantidad(Integer cantidad) { this.cantidad = cantidad; }
+
+    public Double getPrecioUnitario() { return precioUnitario; }
+    public void setPrecioUnitario(Double precioUnitario) { this.precioUnitario = precioUnitario; }
+
+    public Double getTasaIva() { return tasaIva; }
+    public void setTasaIva(Double tasaIva) { this.tasaIva = tasaIva; }
+
+    public Double getSubtotal() { return subtotal; }
+    public void setSubtotal(Double subtotal) { this.subtotal = subtotal; }
+
+    public Double getValorIva() { return valorIva; }
+    public void setValorIva(Double valorIva) { this.valorIva = valorIva; }
+
+    public Double getTotalItem() { return totalItem; }
+    public void setTotalItem(Double totalItem) { this.totalItem = totalItem; }
+
+    public Integer getStockDisponible() { return stockDisponible; }
+    public void setStockDisponible(Integer stockDisponible) { this.stockDisponible = stockDisponible; }
+
+    public boolean isStockInsuficiente() { return stockInsuficiente; }
+    public void setStockInsuficiente(boolean stockInsuficiente) { this.stockInsuficiente = stockInsuficiente; }
+
+    public boolean isDisponible() { return disponible; }
+    public void setDisponible(boolean disponible) { this.disponible = disponible; }
+}
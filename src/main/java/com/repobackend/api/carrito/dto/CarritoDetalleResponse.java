@@ -0,0 +1,42 @@
+package com.repobackend.api.carrito.dto;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Carrito con precios, IVA y disponibilidad de stock calculados en el servidor.
+ */
+public class CarritoDetalleResponse {
+    private String id;
+    private String usuarioId;
+    private List<CarritoDetalleItemResponse> items;
+    private Double subtotal;
+    private Double totalIva;
+    private Double total;
+    private boolean stockSuficiente; // false si alguna línea supera el stock disponible
+    private Date creadoEn;
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getUsuarioId() { return usuarioId; }
+    public void setUsuarioId(String usuarioId) { this.usuarioId = usuarioId; }
+
+    public List<CarritoDetalleItemResponse> getItems() { return items; }
+    public void setItems(List<CarritoDetalleItemResponse> items) { this.items = items; }
+
+    public Double getSubtotal() { return subtotal; }
+    public void setSubtotal(Double subtotal) { this.subtotal = subtotal; }
+
+    public Double getTotalIva() { return totalIva; }
+    public void setTotalIva(Double totalIva) { this.totalIva = totalIva; }
+
+    public Double getTotal() { return total; }
+    public void setTotal(Double total) { this.total = total; }
+
+    public boolean isStockSuficiente() { return stockSuficiente; }
+    public void setStockSuficiente(boolean stockSuficiente) { this.stockSuficiente = stockSuficiente; }
+
+    public Date getCreadoEn() { return creadoEn; }
+    public void setCreadoEn(Date creadoEn) { this.creadoEn = creadoEn; }
+}
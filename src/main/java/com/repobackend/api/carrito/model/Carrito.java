@@ -16,6 +16,7 @@ public class Carrito {
     private List<CarritoItem> items;
     private ObjectId realizadoPor; // puede ser null
     private Date creadoEn = new Date();
+    private Date actualizadoEn = new Date(); // última modificación; los carritos anónimos inactivos se purgan
 
     public String getId() { return id; }
     public void setId(String id) { this.id = id; }
@@ -31,4 +32,7 @@ public class Carrito {
 
     public Date getCreadoEn() { return creadoEn; }
     public void setCreadoEn(Date creadoEn) { this.creadoEn = creadoEn; }
+
+    public Date getActualizadoEn() { return actualizadoEn; }
+    public void setActualizadoEn(Date actualizadoEn) { this.actualizadoEn = actualizadoEn; }
 }
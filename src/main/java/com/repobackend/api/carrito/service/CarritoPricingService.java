@@ -0,0 +1,106 @@
+package com.repobackend.api.carrito.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.stereotype.Service;
+
+import com.repobackend.api.carrito.dto.CarritoDetalleItemResponse;
+import com.repobackend.api.carrito.dto.CarritoDetalleResponse;
+import com.repobackend.api.carrito.model.Carrito;
+import com.repobackend.api.carrito.model.CarritoItem;
+import com.repobackend.api.factura.model.Factura;
+import com.repobackend.api.factura.model.FacturaItem;
+import com.repobackend.api.factura.service.FacturaCalculoService;
+import com.repobackend.api.producto.model.Producto;
+import com.repobackend.api.producto.repository.ProductoRepository;
+import com.repobackend.api.stock.service.StockService;
+
+/**
+ * Vista del carrito con precios: resuelve todos los productos con un findAllById y el stock con una
+ * sola agregación, y calcula subtotales e IVA con las mismas reglas que la facturación.
+ */
+@Service
+public class CarritoPricingService {
+    private final ProductoRepository productoRepository;
+    private final StockService stockService;
+    private final FacturaCalculoService calculoService;
+
+    public CarritoPricingService(ProductoRepository productoRepository, StockService stockService, FacturaCalculoService calculoService) {
+        this.productoRepository = productoRepository;
+        this.stockService = stockService;
+        this.calculoService = calculoService;
+    }
+
+    public CarritoDetalleResponse detalle(Carrito carrito) {
+        List<CarritoItem> items = carrito.getItems() == null ? List.of() : carrito.getItems();
+        Set<String> ids = new LinkedHashSet<>();
+        for (CarritoItem it : items) {
+            if (it.getProductoId() != null) ids.add(it.getProductoId());
+        }
+
+        Map<String, Producto> productos = new HashMap<>();
+        for (Producto p : productoRepository.findAllById(ids)) productos.put(p.getId(), p);
+        Map<String, Integer> stock = stockService.getTotalStockByProductos(ids);
+
+        // Factura transitoria: sólo para reutilizar calcularTotales sobre las líneas con precio
+        Factura borrador = new Factura();
+        List<FacturaItem> lineas = new ArrayList<>();
+        List<CarritoDetalleItemResponse> detalle = new ArrayList<>();
+        boolean stockSuficiente = true;
+        for (CarritoItem it : items) {
+            CarritoDetalleItemResponse r = new CarritoDetalleItemResponse();
+            r.setProductoId(it.getProductoId());
+            int cantidad = it.getCantidad() == null ? 0 : it.getCantidad();
+            r.setCantidad(cantidad);
+            Producto p = productos.get(it.getProductoId());
+            if (p == null) {
+                r.setDisponible(false);
+                r.setStockDisponible(0);
+                detalle.add(r);
+                continue;
+            }
+            r.setNombre(p.getNombre());
+            r.setThumbnailUrl(p.getThumbnailUrl());
+            r.setPrecioUnitario(p.getPrecio());
+            r.setTasaIva(p.getTasaIva());
+            if (cantidad > 0) {
+                FacturaItem linea = calculoService.construirItemDesdeProducto(p, cantidad, null);
+                lineas.add(linea);
+                r.setTasaIva(linea.getTasaIva());
+                r.setSubtotal(linea.getSubtotal());
+                r.setValorIva(linea.getValorIva());
+                r.setTotalItem(linea.getTotalItem());
+            }
+            int disponible = stockDisponible(p, stock.get(p.getId()));
+            r.setStockDisponible(disponible);
+            r.setStockInsuficiente(cantidad > disponible);
+            if (r.isStockInsuficiente()) stockSuficiente = false;
+            detalle.add(r);
+        }
+        borrador.setItems(lineas);
+        calculoService.calcularTotales(borrador);
+
+        CarritoDetalleResponse resp = new CarritoDetalleResponse();
+        resp.setId(carrito.getId());
+        resp.setUsuarioId(carrito.getUsuarioId() == null ? null : carrito.getUsuarioId().toHexString());
+        resp.setItems(detalle);
+        resp.setSubtotal(borrador.getSubtotal());
+        resp.setTotalIva(borrador.getTotalIva());
+        resp.setTotal(borrador.getTotal());
+        resp.setStockSuficiente(stockSuficiente);
+        resp.setCreadoEn(carrito.getCreadoEn());
+        return resp;
+    }
+
+    // Igual que ProductoService.toResponse: sin stock en almacenes se usa el stock legacy del producto
+    private static int stockDisponible(Producto p, Integer totalAlmacenes) {
+        int total = totalAlmacenes == null ? 0 : totalAlmacenes;
+        if (total == 0 && p.getStock() != null && p.getStock() > 0) return p.getStock();
+        return total;
+    }
+}
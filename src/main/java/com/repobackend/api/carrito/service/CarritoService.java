@@ -2,13 +2,21 @@ package com.repobackend.api.carrito.service;
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
+import org.bson.Document;
 import org.bson.types.ObjectId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -23,13 +31,16 @@ import com.repobackend.api.carrito.repository.CarritoRepository;
 @Service
 public class CarritoService {
     private static final Logger logger = LoggerFactory.getLogger(CarritoService.class);
+    private static final int MAX_INTENTOS_MERGE = 5;
 
     private final CarritoRepository carritoRepository;
     private final ObjectMapper objectMapper;
+    private final MongoTemplate mongoTemplate;
 
-    public CarritoService(CarritoRepository carritoRepository, ObjectMapper objectMapper) {
+    public CarritoService(CarritoRepository carritoRepository, ObjectMapper objectMapper, MongoTemplate mongoTemplate) {
         this.carritoRepository = carritoRepository;
         this.objectMapper = objectMapper;
+        this.mongoTemplate = mongoTemplate;
     }
 
     /**
@@ -65,54 +76,46 @@ public class CarritoService {
         return carritoRepository.findByUsuarioId(usuarioId);
     }
 
-    public Map<String, Object> addItem(String carritoId, CarritoItemRequest body) {
-        Optional<Carrito> maybe = carritoRepository.findById(carritoId);
-        if (maybe.isEmpty()) return Map.of("error", "Carrito no encontrado");
-        Carrito c = maybe.get();
+    /**
+     * Agrega (o suma) un producto al carrito en una sola operación atómica sobre el documento:
+     * $inc posicional si el item ya existe, $push si no. La verificación de dueño va en el mismo filtro
+     * (carrito anónimo o del usuario), así que no hay lectura previa ni se pierden altas concurrentes.
+     */
+    public Map<String, Object> addItem(String carritoId, CarritoItemRequest body, String userId) {
         String productoId = body.getProductoId();
-        if (productoId == null) return Map.of("error", "productoId es requerido");
+        if (productoId == null) return Map.of("error", "productoId es requerido", "status", 400);
         int cantidad = body.getCantidad() == null ? 1 : body.getCantidad();
-        List<CarritoItem> items = c.getItems();
-        if (items == null) items = new ArrayList<>();
-        boolean found = false;
-        for (CarritoItem it : items) {
-            if (it.getProductoId() != null && it.getProductoId().equals(productoId)) {
-                Integer cur = it.getCantidad();
-                it.setCantidad((cur == null ? 0 : cur) + cantidad);
-                found = true;
-                break;
-            }
-        }
-        if (!found) {
-            CarritoItem it = new CarritoItem();
-            it.setProductoId(productoId);
-            it.setCantidad(cantidad);
-            items.add(it);
-        }
-        c.setItems(items);
-        Carrito saved = carritoRepository.save(c);
-        return Map.of("carrito", toResponse(saved));
+        Carrito updated = incrementOrPush(editable(carritoId, userId), productoId, cantidad);
+        if (updated == null) return mutationFailure(carritoId, userId, true);
+        return Map.of("carrito", toResponse(updated));
     }
 
-    public Map<String, Object> removeItem(String carritoId, String productoId) {
-        Optional<Carrito> maybe = carritoRepository.findById(carritoId);
-        if (maybe.isEmpty()) return Map.of("error", "Carrito no encontrado");
-        Carrito c = maybe.get();
-        List<CarritoItem> items = c.getItems();
-        if (items == null || items.isEmpty()) return Map.of("carrito", toResponse(c));
-        items.removeIf(it -> productoId.equals(it.getProductoId()));
-        c.setItems(items);
-        Carrito saved = carritoRepository.save(c);
-        return Map.of("carrito", toResponse(saved));
+    public Map<String, Object> removeItem(String carritoId, String productoId, String userId) {
+        Query q = new Query(editable(carritoId, userId));
+        Update u = new Update().pull("items", new Document("productoId", productoId)).set("actualizadoEn", new Date());
+        Carrito updated = mongoTemplate.findAndModify(q, u, FindAndModifyOptions.options().returnNew(true), Carrito.class);
+        if (updated == null) return mutationFailure(carritoId, userId, true);
+        return Map.of("carrito", toResponse(updated));
     }
 
+    /**
+     * Vacía el carrito sin comprobar dueño (uso interno, p. ej. tras facturar).
+     */
     public Map<String, Object> clear(String carritoId) {
-        Optional<Carrito> maybe = carritoRepository.findById(carritoId);
-        if (maybe.isEmpty()) return Map.of("error", "Carrito no encontrado");
-        Carrito c = maybe.get();
-        c.setItems(new ArrayList<>());
-        Carrito saved = carritoRepository.save(c);
-        return Map.of("carrito", toResponse(saved));
+        Carrito updated = setItemsEmpty(new Query(Criteria.where("_id").is(carritoId)));
+        if (updated == null) return Map.of("error", "Carrito no encontrado");
+        return Map.of("carrito", toResponse(updated));
+    }
+
+    /**
+     * Vacía el carrito sólo si pertenece al usuario.
+     */
+    public Map<String, Object> clear(String carritoId, String userId) {
+        ObjectId owner = toObjectIdOrNull(userId);
+        if (owner == null) return Map.of("error", "No tienes permisos para modificar este carrito", "status", 403);
+        Carrito updated = setItemsEmpty(new Query(Criteria.where("_id").is(carritoId).and("usuarioId").is(owner)));
+        if (updated == null) return mutationFailure(carritoId, userId, false);
+        return Map.of("carrito", toResponse(updated));
     }
 
     public Map<String, Object> delete(String carritoId) {
@@ -127,9 +130,14 @@ public class CarritoService {
     // - Si existe un carrito anónimo con id `anonCartId` y el usuario ya tiene un carrito, se suman cantidades y se elimina el carrito anónimo.
     // - Si existe un carrito anónimo y el usuario no tiene carrito, se asigna el usuarioId al carrito anónimo (se reutiliza).
     // - Si no se envía `anonCartId` pero se envían `items`, se mergean esos items en el carrito del usuario (crear si no existe).
+    // El carrito anónimo se reclama de forma atómica (findAndModify con usuarioId null que le asigna el usuario), de
+    // modo que dos merges simultáneos del mismo carrito no suman sus items dos veces. Al combinar con un carrito
+    // existente, sus items se suman al destino en un solo update y recién después se borra el reclamado: si algo
+    // falla a mitad, los items siguen en un carrito del usuario en vez de perderse.
     public Map<String, Object> mergeAnonymousCartIntoUser(String anonCartId, List<CarritoItemRequest> items, String userId) {
         if (userId == null) return Map.of("error", "Usuario no autenticado");
         try {
+            ObjectId owner = new ObjectId(userId);
             // 1) buscar carrito del usuario existente (tomamos el primer carrito si hay varios)
             List<Carrito> userCarts = carritoRepository.findByUsuarioId(userId);
             Carrito target = null;
@@ -137,38 +145,31 @@ public class CarritoService {
 
             // 2) si se proporcionó anonCartId intentar usarlo
             if (anonCartId != null && !anonCartId.isBlank()) {
-                Optional<Carrito> maybeAnon = carritoRepository.findById(anonCartId);
-                if (maybeAnon.isEmpty()) return Map.of("error", "Carrito anónimo no encontrado");
-                Carrito anon = maybeAnon.get();
-                // Si el carrito ya pertenece a un usuario y no es anónimo, evitar reasignarlo
-                if (anon.getUsuarioId() != null) {
+                Query anonQuery = new Query(Criteria.where("_id").is(anonCartId).and("usuarioId").is(null));
+                // reclamar: asignar el usuario al carrito anónimo (otro merge ya no lo encuentra como anónimo)
+                Update assign = new Update().set("usuarioId", owner).set("actualizadoEn", new Date());
+                Carrito claimed = mongoTemplate.findAndModify(anonQuery, assign, FindAndModifyOptions.options().returnNew(true), Carrito.class);
+                // sin carrito previo el reclamado pasa a ser el del usuario
+                if (claimed != null && target == null) return Map.of("carrito", toResponse(claimed));
+                if (claimed == null) {
+                    Optional<Carrito> maybeAnon = carritoRepository.findById(anonCartId);
+                    if (maybeAnon.isEmpty()) return Map.of("error", "Carrito anónimo no encontrado");
+                    Carrito anon = maybeAnon.get();
                     // si pertenece al mismo usuario, devolverlo
-                    if (anon.getUsuarioId().toHexString().equals(userId)) return Map.of("carrito", toResponse(anon));
+                    if (anon.getUsuarioId() != null && anon.getUsuarioId().equals(owner)) return Map.of("carrito", toResponse(anon));
                     // si pertenece a otro usuario, evitar merge
                     return Map.of("error", "El carrito proporcionado no es anónimo");
                 }
-                if (target != null) {
-                    // merge anon -> target y eliminar anon
-                    List<CarritoItem> merged = mergeItems(target.getItems(), anon.getItems());
-                    target.setItems(merged);
-                    carritoRepository.save(target);
-                    carritoRepository.deleteById(anon.getId());
-                    return Map.of("carrito", toResponse(target));
-                } else {
-                    // asignar usuario al carrito anónimo y devolverlo
-                    anon.setUsuarioId(new ObjectId(userId));
-                    Carrito saved = carritoRepository.save(anon);
-                    return Map.of("carrito", toResponse(saved));
-                }
+                Carrito merged = addAll(target, claimed.getItems());
+                mongoTemplate.remove(new Query(Criteria.where("_id").is(claimed.getId()).and("usuarioId").is(owner)), Carrito.class);
+                return Map.of("carrito", toResponse(merged));
             }
 
             // 3) si no hay anonCartId pero sí items: merge crear/actualizar target
             if (items != null && !items.isEmpty()) {
                 if (target != null) {
-                    List<CarritoItem> merged = mergeItems(target.getItems(), toCarritoItemList(items));
-                    target.setItems(merged);
-                    carritoRepository.save(target);
-                    return Map.of("carrito", toResponse(target));
+                    Carrito merged = addAll(target, toCarritoItemList(items));
+                    return Map.of("carrito", toResponse(merged));
                 } else {
                     // crear nuevo carrito para usuario
                     CarritoRequest req = new CarritoRequest();
@@ -193,6 +194,97 @@ public class CarritoService {
         }
     }
 
+    /**
+     * Suma los items al carrito destino en un solo update atómico: $inc con arrayFilters para los productos que
+     * ya están y $push $each para los nuevos. El filtro exige que el carrito siga con ese reparto (los existentes
+     * presentes, los nuevos ausentes); si otro request lo cambió entre la lectura y el update, se relee y se
+     * reintenta. Retorna el estado final del carrito.
+     */
+    private Carrito addAll(Carrito target, List<CarritoItem> extra) {
+        List<CarritoItem> items = mergeItems(List.of(), extra);
+        if (items.isEmpty()) return target;
+        Carrito actual = target;
+        for (int intento = 0; intento < MAX_INTENTOS_MERGE; intento++) {
+            Set<String> presentes = new HashSet<>();
+            if (actual.getItems() != null) actual.getItems().forEach(it -> presentes.add(it.getProductoId()));
+            Update u = new Update().set("actualizadoEn", new Date());
+            List<String> existentes = new ArrayList<>();
+            List<Document> nuevos = new ArrayList<>();
+            for (CarritoItem it : items) {
+                int qty = it.getCantidad() == null ? 0 : it.getCantidad();
+                if (presentes.contains(it.getProductoId())) {
+                    String f = "e" + existentes.size();
+                    u.inc("items.$[" + f + "].cantidad", qty).filterArray(Criteria.where(f + ".productoId").is(it.getProductoId()));
+                    existentes.add(it.getProductoId());
+                } else {
+                    nuevos.add(new Document("productoId", it.getProductoId()).append("cantidad", qty));
+                }
+            }
+            if (!nuevos.isEmpty()) u.push("items").each(nuevos.toArray());
+            List<Criteria> filtro = new ArrayList<>();
+            filtro.add(Criteria.where("_id").is(target.getId()));
+            if (!existentes.isEmpty()) filtro.add(Criteria.where("items.productoId").all(existentes));
+            if (!nuevos.isEmpty()) filtro.add(Criteria.where("items.productoId").nin(nuevos.stream().map(d -> d.get("productoId")).toList()));
+            Query q = new Query(new Criteria().andOperator(filtro.toArray(new Criteria[0])));
+            Carrito updated = mongoTemplate.findAndModify(q, u, FindAndModifyOptions.options().returnNew(true), Carrito.class);
+            if (updated != null) return updated;
+            actual = carritoRepository.findById(target.getId())
+                    .orElseThrow(() -> new IllegalStateException("Carrito destino no encontrado"));
+        }
+        throw new IllegalStateException("El carrito cambió durante la sincronización, intente de nuevo");
+    }
+
+    /**
+     * $inc posicional sobre items.$.cantidad si el producto ya está en el carrito; si no, $push del item
+     * condicionado a que siga sin estar. Si entre ambos pasos otro request insertó el mismo producto,
+     * el $push no hace match y se reintenta el $inc. Retorna null si el filtro base no coincide.
+     */
+    private Carrito incrementOrPush(Criteria base, String productoId, int cantidad) {
+        FindAndModifyOptions returnNew = FindAndModifyOptions.options().returnNew(true);
+        Query inc = new Query(new Criteria().andOperator(base, Criteria.where("items.productoId").is(productoId)));
+        Update incUpdate = new Update().inc("items.$.cantidad", cantidad).set("actualizadoEn", new Date());
+        Carrito updated = mongoTemplate.findAndModify(inc, incUpdate, returnNew, Carrito.class);
+        if (updated != null) return updated;
+
+        Query push = new Query(new Criteria().andOperator(base, Criteria.where("items.productoId").ne(productoId)));
+        Update pushUpdate = new Update()
+                .push("items", new Document("productoId", productoId).append("cantidad", cantidad))
+                .set("actualizadoEn", new Date());
+        updated = mongoTemplate.findAndModify(push, pushUpdate, returnNew, Carrito.class);
+        if (updated != null) return updated;
+
+        return mongoTemplate.findAndModify(inc, incUpdate, returnNew, Carrito.class);
+    }
+
+    private Carrito setItemsEmpty(Query q) {
+        Update u = new Update().set("items", new ArrayList<>()).set("actualizadoEn", new Date());
+        return mongoTemplate.findAndModify(q, u, FindAndModifyOptions.options().returnNew(true), Carrito.class);
+    }
+
+    // Filtro de carrito modificable por el usuario: anónimo (usuarioId null) o propio
+    private Criteria editable(String carritoId, String userId) {
+        ObjectId owner = toObjectIdOrNull(userId);
+        Criteria byId = Criteria.where("_id").is(carritoId);
+        if (owner == null) return byId.and("usuarioId").is(null);
+        return byId.orOperator(Criteria.where("usuarioId").is(null), Criteria.where("usuarioId").is(owner));
+    }
+
+    // Sólo en el camino de error: distinguir carrito inexistente (404) de carrito ajeno (403)
+    private Map<String, Object> mutationFailure(String carritoId, String userId, boolean anonymousAllowed) {
+        Optional<Carrito> maybe = carritoRepository.findById(carritoId);
+        if (maybe.isEmpty()) return Map.of("error", "Carrito no encontrado", "status", 404);
+        ObjectId ownerId = maybe.get().getUsuarioId();
+        boolean allowed = ownerId == null ? anonymousAllowed : ownerId.toHexString().equals(userId);
+        if (!allowed) {
+            return Map.of("error", "No tienes permisos para modificar este carrito", "status", 403);
+        }
+        return Map.of("error", "No se pudo actualizar el carrito", "status", 409);
+    }
+
+    private static ObjectId toObjectIdOrNull(String id) {
+        return id != null && ObjectId.isValid(id) ? new ObjectId(id) : null;
+    }
+
     // Helper: mergear dos listas de CarritoItem (sumando cantidades)
     private List<CarritoItem> mergeItems(List<CarritoItem> base, List<CarritoItem> extra) {
         java.util.Map<String, CarritoItem> map = new java.util.HashMap<>();
@@ -276,13 +276,14 @@ public class CategoriaController {
                 )
             ),
             @ApiResponse(responseCode = "404", description = "Categoría no encontrada", content = @Content),
-            @ApiResponse(responseCode = "403", description = "Sin permisos para eliminar esta categoría", content = @Content)
+            @ApiResponse(responseCode = "403", description = "Sin permisos para eliminar esta categoría", content = @Content),
+            @ApiResponse(responseCode = "503", description = "No se pudo encolar el borrado de los medios; la categoría no se eliminó", content = @Content)
         }
     )
     @DeleteMapping("/{id}")
     public ResponseEntity<?> eliminar(@PathVariable String id) {
         var r = categoriaService.eliminarCategoria(id);
-        if (r.containsKey("error")) return ResponseEntity.status(404).body(r);
+        if (r.containsKey("error")) return ResponseEntity.status(r.get("status") == null ? 404 : (int) r.get("status")).body(r);
         return ResponseEntity.ok(r);
     }
 }
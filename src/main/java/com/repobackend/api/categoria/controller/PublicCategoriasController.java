@@ -8,8 +8,10 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import com.repobackend.api.categoria.service.CategoriaService;
+import com.repobackend.api.common.http.CatalogHttpCache;
 
 import io.swagger.v3.oas.annotations.tags.Tag;
 import io.swagger.v3.oas.annotations.Operation;
@@ -30,9 +32,11 @@ import org.slf4j.LoggerFactory;
 public class PublicCategoriasController {
     private static final Logger logger = LoggerFactory.getLogger(PublicCategoriasController.class);
     private final CategoriaService categoriaService;
+    private final CatalogHttpCache httpCache;
 
-    public PublicCategoriasController(CategoriaService categoriaService) {
+    public PublicCategoriasController(CategoriaService categoriaService, CatalogHttpCache httpCache) {
         this.categoriaService = categoriaService;
+        this.httpCache = httpCache;
     }
 
     @Operation(
@@ -61,18 +65,25 @@ public class PublicCategoriasController {
     public ResponseEntity<?> listarCategorias(
             @RequestParam(required = false, defaultValue = "0") int page,
             @RequestParam(required = false, defaultValue = "20") int size,
-            @RequestParam(required = false) String q) {
+            @RequestParam(required = false) String q,
+            WebRequest request) {
 
         logger.info("GET /api/public/categorias called with page={} size={} q='{}'", page, size, q);
 
+        String etag = categoriaService.etagListadoPublico(q, page, size);
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(304).cacheControl(httpCache.cacheControl()).build();
+        }
+        var ok = ResponseEntity.ok().cacheControl(httpCache.cacheControl()).eTag(etag);
+
         // Si hay búsqueda por nombre
         if (q != null && !q.isBlank()) {
             var res = categoriaService.buscarPorNombrePaginado(q, page, size);
-            return ResponseEntity.ok(res);
+            return ok.body(res);
         }
 
         // Devolver todas las categorías
-        return ResponseEntity.ok(categoriaService.listarTodasLasCategorias(page, size));
+        return ok.body(categoriaService.listarTodasLasCategorias(page, size));
     }
 
     @Operation(
@@ -96,7 +107,7 @@ public class PublicCategoriasController {
         }
     )
     @GetMapping("/{id}")
-    public ResponseEntity<?> getCategoria(@PathVariable String id) {
+    public ResponseEntity<?> getCategoria(@PathVariable String id, WebRequest request) {
         logger.info("GET /api/public/categorias/{} called", id);
 
         var maybe = categoriaService.getById(id);
@@ -104,7 +115,14 @@ public class PublicCategoriasController {
             return ResponseEntity.status(404).body(Map.of("error", "Categoría no encontrada"));
         }
 
-        return ResponseEntity.ok(Map.of("categoria", maybe.get()));
+        var c = maybe.get();
+        long lastModified = c.getActualizadoEn() != null ? c.getActualizadoEn().getTime()
+                : (c.getCreadoEn() != null ? c.getCreadoEn().getTime() : -1);
+        String etag = CatalogHttpCache.weakEtag("categoria", c.getId(), c.getVersion(), lastModified);
+        if (request.checkNotModified(etag, lastModified)) {
+            return ResponseEntity.status(304).cacheControl(httpCache.cacheControl()).build();
+        }
+        return ResponseEntity.ok().cacheControl(httpCache.cacheControl()).eTag(etag).body(Map.of("categoria", c));
     }
 }
 
@@ -0,0 +1,18 @@
+package com.repobackend.api.categoria.event;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Una categoría fue creada, modificada o eliminada. Lo publica CategoriaService tras escribir en Mongo
+ * para que los índices en memoria (p. ej. TypeaheadIndex) se actualicen.
+ */
+public class CategoriaCambiadoEvent extends ApplicationEvent {
+    public final String categoriaId;
+    public final boolean eliminado;
+
+    public CategoriaCambiadoEvent(Object source, String categoriaId, boolean eliminado) {
+        super(source);
+        this.categoriaId = categoriaId;
+        this.eliminado = eliminado;
+    }
+}
@@ -29,6 +29,10 @@ public class Categoria {
     private List<Map<String, Object>> listaMedios;
 
     private Date creadoEn = new Date();
+    // version/actualizadoEn cambian con cada modificación (ETag / Last-Modified)
+    // Sin inicializadores: al leer un documento sin estos campos quedarían con la hora de la lectura
+    private Long version;
+    private Date actualizadoEn;
 
     public String getId() { return id; }
     public void setId(String id) { this.id = id; }
@@ -52,6 +56,24 @@ public class Categoria {
     public Date getCreadoEn() { return creadoEn; }
     public void setCreadoEn(Date creadoEn) { this.creadoEn = creadoEn; }
 
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
+    public Date getActualizadoEn() { return actualizadoEn; }
+    public void setActualizadoEn(Date actualizadoEn) { this.actualizadoEn = actualizadoEn; }
+
+    // Valores iniciales de version y actualizadoEn: llamar al crear, después de fijar creadoEn
+    public void marcarCreado() {
+        this.version = 0L;
+        this.actualizadoEn = creadoEn != null ? creadoEn : new Date();
+    }
+
+    // Incrementa version y actualizadoEn: llamar antes de guardar cualquier cambio (validadores ETag/Last-Modified)
+    public void marcarModificado() {
+        this.version = (version == null ? 0L : version) + 1;
+        this.actualizadoEn = new Date();
+    }
+
     public List<Map<String, Object>> getListaMedios() { return listaMedios; }
     public void setListaMedios(List<Map<String, Object>> listaMedios) { this.listaMedios = listaMedios; }
 }
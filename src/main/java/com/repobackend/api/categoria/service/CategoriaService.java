@@ -5,18 +5,27 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
 
 import com.repobackend.api.auth.service.AuthorizationService;
 import com.repobackend.api.categoria.dto.CategoriaRequest;
 import com.repobackend.api.categoria.dto.CategoriaResponse;
+import com.repobackend.api.categoria.event.CategoriaCambiadoEvent;
 import com.repobackend.api.categoria.model.Categoria;
 import com.repobackend.api.categoria.repository.CategoriaRepository;
+import com.repobackend.api.common.http.CatalogHttpCache;
+import com.repobackend.api.config.CacheConfig;
 import com.repobackend.api.media.MediaSanitizer;
-import com.repobackend.api.cloud.service.CloudinaryService;
+import com.repobackend.api.media.service.MediaGarbageCollector;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,16 +35,20 @@ public class CategoriaService {
     private static final Logger logger = LoggerFactory.getLogger(CategoriaService.class);
      private final CategoriaRepository categoriaRepository;
      private final AuthorizationService authorizationService;
-     private final CloudinaryService cloudinaryService;
+     private final MediaGarbageCollector mediaGarbageCollector;
+     private final MongoTemplate mongoTemplate;
+     private final ApplicationEventPublisher eventPublisher;
 
-    public CategoriaService(CategoriaRepository categoriaRepository, AuthorizationService authorizationService, CloudinaryService cloudinaryService) {
+    public CategoriaService(CategoriaRepository categoriaRepository, AuthorizationService authorizationService, MediaGarbageCollector mediaGarbageCollector, MongoTemplate mongoTemplate, ApplicationEventPublisher eventPublisher) {
         this.categoriaRepository = categoriaRepository;
         this.authorizationService = authorizationService;
-        this.cloudinaryService = cloudinaryService;
+        this.mediaGarbageCollector = mediaGarbageCollector;
+        this.mongoTemplate = mongoTemplate;
+        this.eventPublisher = eventPublisher;
     }
 
     @PreAuthorize("hasRole('ADMIN') or hasRole('VENDEDOR')")
-    @CacheEvict(value = "categoriasGlobales", allEntries = true)
+    @CacheEvict(value = CacheConfig.CATEGORIAS_GLOBALES, allEntries = true)
     public Map<String, Object> crearCategoria(Map<String, Object> body) {
         Categoria c = new Categoria();
         // Generate idString if not provided
@@ -56,6 +69,7 @@ public class CategoriaService {
             if (lm instanceof List) c.setListaMedios(MediaSanitizer.sanitize((List<java.util.Map<String, Object>>) lm));
         }
         c.setCreadoEn(new Date());
+        c.marcarCreado();
         // Authorization: platform admin o miembro del taller con rol ADMIN/VENDEDOR
         org.springframework.security.core.Authentication auth = org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication();
         String caller = auth == null ? null : auth.getName();
@@ -63,12 +77,13 @@ public class CategoriaService {
             return Map.of("error", "Permisos insuficientes para crear categoría en este taller");
         }
         Categoria saved = categoriaRepository.save(c);
+        publicarCambio(saved.getId(), false);
         return Map.of("categoria", saved);
     }
 
     // DTO-based creation
     @PreAuthorize("hasRole('ADMIN') or hasRole('VENDEDOR')")
-    @CacheEvict(value = "categoriasGlobales", allEntries = true)
+    @CacheEvict(value = CacheConfig.CATEGORIAS_GLOBALES, allEntries = true)
     public Map<String, Object> crearCategoria(CategoriaRequest req) {
         Categoria c = toEntity(req);
         // Ahora las categorías siempre deben pertenecer a un taller => validar tallerId
@@ -80,6 +95,7 @@ public class CategoriaService {
             c.setIdString(java.util.UUID.randomUUID().toString());
         }
         c.setCreadoEn(new Date());
+        c.marcarCreado();
         org.springframework.security.core.Authentication auth = org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication();
         String caller = auth == null ? null : auth.getName();
         // Authorization: platform admin o miembro del taller con rol ADMIN/VENDEDOR
@@ -89,6 +105,7 @@ public class CategoriaService {
         // Sanitizar listaMedios si existe
         if (c.getListaMedios() != null) c.setListaMedios(MediaSanitizer.sanitize(c.getListaMedios()));
         Categoria saved = categoriaRepository.save(c);
+        publicarCambio(saved.getId(), false);
         return Map.of("categoria", toResponse(saved));
     }
 
@@ -119,7 +136,7 @@ public class CategoriaService {
     }
 
     // Listar categorías globales (tallerId == null)
-    @Cacheable("categoriasGlobales")
+    @Cacheable(CacheConfig.CATEGORIAS_GLOBALES)
     public Map<String,Object> listarCategoriasGlobales(int page, int size) {
         if (page < 0) page = 0;
         if (size <= 0) size = 20;
@@ -154,6 +171,40 @@ public class CategoriaService {
         return categoriaRepository.findById(id);
     }
 
+    /**
+     * Rellena version=0 y actualizadoEn=creadoEn en categorías anteriores a estos campos (ver
+     * ProductoService.backfillVersion).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillVersion() {
+        try {
+            long n = CatalogHttpCache.backfillValidadores(mongoTemplate, Categoria.class);
+            if (n > 0) logger.info("Backfill de version/actualizadoEn de categoría: {} documentos actualizados", n);
+        } catch (Exception ex) {
+            logger.warn("No se pudo completar el backfill de version/actualizadoEn de categoría: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * ETag del listado público (mismos filtros que listarTodasLasCategorias / buscarPorNombrePaginado)
+     * a partir de _id, version y actualizadoEn de la página más el conteo.
+     */
+    public String etagListadoPublico(String q, int page, int size) {
+        if (page < 0) page = 0;
+        if (size <= 0) size = 20;
+        Criteria criteria = q == null || q.isBlank() ? new Criteria() : Criteria.where("nombre").regex(java.util.regex.Pattern.quote(q), "i");
+        Query pageQuery = new Query(criteria).skip((long) page * size).limit(size);
+        pageQuery.fields().include("_id", "version", "actualizadoEn");
+        long total = mongoTemplate.count(new Query(criteria), Categoria.class);
+        List<Object> parts = new java.util.ArrayList<>(List.of("categorias", String.valueOf(q), page, size, total));
+        for (Categoria c : mongoTemplate.find(pageQuery, Categoria.class)) {
+            parts.add(c.getId());
+            parts.add(c.getVersion());
+            parts.add(c.getActualizadoEn() == null ? 0 : c.getActualizadoEn().getTime());
+        }
+        return CatalogHttpCache.weakEtag(parts.toArray());
+    }
+
     public Categoria findByIdString(String idString) {
         return categoriaRepository.findByIdString(idString);
     }
@@ -171,6 +222,7 @@ public class CategoriaService {
     }
 
     @PreAuthorize("hasRole('ADMIN') or hasRole('VENDEDOR')")
+    @CacheEvict(value = CacheConfig.CATEGORIAS_GLOBALES, allEntries = true)
     public Map<String, Object> actualizarCategoria(String id, Map<String, Object> body) {
         Optional<Categoria> maybe = categoriaRepository.findById(id);
         if (maybe.isEmpty()) return Map.of("error", "Categoria no encontrada");
@@ -188,12 +240,15 @@ public class CategoriaService {
             Object lm = body.get("listaMedios");
             if (lm instanceof List) c.setListaMedios(MediaSanitizer.sanitize((List<java.util.Map<String, Object>>) lm));
         }
+        c.marcarModificado();
         Categoria saved = categoriaRepository.save(c);
+        publicarCambio(saved.getId(), false);
         return Map.of("categoria", saved);
     }
 
     // DTO-based update
     @PreAuthorize("hasRole('ADMIN') or hasRole('VENDEDOR')")
+    @CacheEvict(value = CacheConfig.CATEGORIAS_GLOBALES, allEntries = true)
     public Map<String, Object> actualizarCategoria(String id, CategoriaRequest req) {
         Optional<Categoria> maybe = categoriaRepository.findById(id);
         if (maybe.isEmpty()) return Map.of("error", "Categoria no encontrada");
@@ -208,12 +263,14 @@ public class CategoriaService {
         if (req.getNombre() != null) c.setNombre(req.getNombre());
         if (req.getDescripcion() != null) c.setDescripcion(req.getDescripcion());
         if (req.getListaMedios() != null) c.setListaMedios(MediaSanitizer.sanitize(req.getListaMedios()));
+        c.marcarModificado();
         Categoria saved = categoriaRepository.save(c);
-        // invalidar cache de categoriasGlobales por si acaso
+        publicarCambio(saved.getId(), false);
         return Map.of("categoria", toResponse(saved));
     }
 
     @PreAuthorize("hasRole('ADMIN') or hasRole('VENDEDOR')")
+    @CacheEvict(value = CacheConfig.CATEGORIAS_GLOBALES, allEntries = true)
     public Map<String, Object> eliminarCategoria(String id) {
         Optional<Categoria> maybe = categoriaRepository.findById(id);
         if (maybe.isEmpty()) return Map.of("error", "Categoria no encontrada");
@@ -224,74 +281,22 @@ public class CategoriaService {
         if (!authorizationService.isPlatformAdmin(caller) && !authorizationService.isMemberWithAnyRole(caller, c.getTallerId(), java.util.List.of("ADMIN","VENDEDOR"))) {
             return Map.of("error", "Permisos insuficientes para eliminar esta categoría");
         }
-        // Intentar eliminar recursos asociados en Cloudinary (si hay listaMedios)
+        // Encolar el borrado de los medios en Cloudinary; la cola los elimina en segundo plano.
+        // Si no se pudo encolar, no borrar la categoría: sus medios quedarían huérfanos en Cloudinary
         try {
-            if (c.getListaMedios() != null && !c.getListaMedios().isEmpty()) {
-                logger.info("Intentando eliminar {} medios de Cloudinary para categoría {}", c.getListaMedios().size(), id);
-                for (Map<String, Object> m : c.getListaMedios()) {
-                    if (m == null) continue;
-                    String publicId = null;
-                    Object p = m.get("publicId");
-                    if (p instanceof String && !((String)p).isBlank()) {
-                        publicId = ((String)p).trim();
-                        logger.info("PublicId encontrado directamente: {}", publicId);
-                    } else {
-                        // intentar extraer publicId desde secure_url o url
-                        Object su = m.get("secure_url");
-                        Object uo = m.get("url");
-                        String u = su != null ? su.toString() : (uo != null ? uo.toString() : null);
-                        logger.info("Extrayendo publicId de URL: {}", u);
-                        if (u != null && !u.isBlank()) {
-                            int pos = u.indexOf("/image/upload/");
-                            if (pos >= 0) {
-                                String after = u.substring(pos + "/image/upload/".length());
-                                // quitar prefijo de versión si existe: v12345/
-                                after = after.replaceFirst("^v\\d+/", "");
-                                publicId = after;
-                            } else {
-                                pos = u.indexOf("/upload/");
-                                if (pos >= 0) {
-                                    String after = u.substring(pos + "/upload/".length());
-                                    after = after.replaceFirst("^v\\d+/", "");
-                                    publicId = after;
-                                }
-                            }
-                        }
-                    }
-                    if (publicId != null && !publicId.isBlank()) {
-                        logger.info("Intentando destruir recurso Cloudinary con publicId: {}", publicId);
-                        try {
-                            // Cloudinary a veces necesita el publicId sin extensión
-                            String publicIdSinExt = publicId;
-                            if (publicId.contains(".")) {
-                                publicIdSinExt = publicId.substring(0, publicId.lastIndexOf('.'));
-                            }
-                            // Intentar primero sin extensión (formato preferido por Cloudinary)
-                            try {
-                                Map<String,Object> result = cloudinaryService.destroy(publicIdSinExt);
-                                logger.info("Recurso Cloudinary '{}' eliminado exitosamente: {}", publicIdSinExt, result);
-                            } catch (Exception ex1) {
-                                // Si falla, intentar con extensión
-                                logger.warn("Fallo al eliminar sin extensión '{}', intentando con extensión: {}", publicIdSinExt, ex1.getMessage());
-                                Map<String,Object> result = cloudinaryService.destroy(publicId);
-                                logger.info("Recurso Cloudinary '{}' eliminado exitosamente con extensión: {}", publicId, result);
-                            }
-                        } catch (Exception ex) {
-                            logger.error("No se pudo destruir recurso Cloudinary '{}' al eliminar categoría {}: {}", publicId, id, ex.getMessage(), ex);
-                        }
-                    } else {
-                        logger.warn("No se pudo extraer publicId del medio: {}", m);
-                    }
-                }
-            } else {
-                logger.info("No hay medios para eliminar en categoría {}", id);
-            }
+            mediaGarbageCollector.enqueue(c.getListaMedios(), "categoria", id);
         } catch (Exception ex) {
-            // registrar y continuar con eliminación en base de datos
-            logger.error("Error al intentar eliminar recursos en Cloudinary para la categoría {}: {}", id, ex.getMessage(), ex);
+            logger.error("No se pudieron encolar los medios de la categoría {} para borrado: {}", id, ex.getMessage(), ex);
+            return Map.of("error", "No se pudo eliminar la categoría, intente de nuevo", "status", 503);
         }
 
         categoriaRepository.deleteById(id);
+        publicarCambio(id, true);
         return Map.of("deleted", true);
     }
+
+    // Notifica a los índices en memoria (typeahead) que la categoría cambió
+    private void publicarCambio(String categoriaId, boolean eliminado) {
+        try { eventPublisher.publishEvent(new CategoriaCambiadoEvent(this, categoriaId, eliminado)); } catch (Exception ex) { /* no bloquear la escritura */ }
+    }
 }
\ No newline at end of file
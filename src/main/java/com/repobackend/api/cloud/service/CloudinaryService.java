@@ -1,8 +1,8 @@
 package com.repobackend.api.cloud.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.repobackend.api.common.http.OutboundHttpClient;
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.net.URLEncoder;
@@ -10,8 +10,15 @@ import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
@@ -20,12 +27,15 @@ import org.springframework.stereotype.Service;
  * - Lee credenciales desde properties / environment
  * - Provee método para generar firma para uploads firmados
  * - Provee helpers para destruir recursos y construir URLs con transformaciones (mínimo ejemplo)
+ * - Las llamadas salen por OutboundHttpClient (timeouts, límite por host, circuit breaker y métricas)
  *
  * Comentarios en español y siguiendo buenas prácticas: responsabilidades claras y única.
  */
 @Service
 public class CloudinaryService {
-    private final HttpClient httpClient = HttpClient.newHttpClient();
+    public static final int MAX_BULK_DELETE = 100;
+
+    private final OutboundHttpClient httpClient;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     @Value("${cloudinary.cloud_name:}")
@@ -40,14 +50,24 @@ public class CloudinaryService {
     @Value("${cloudinary.default_folder:}")
     private String defaultFolder;
 
-    public CloudinaryService(@Value("${cloudinary.cloud_name:}") String cloudName,
+    @Autowired
+    public CloudinaryService(OutboundHttpClient httpClient,
+                              @Value("${cloudinary.cloud_name:}") String cloudName,
                               @Value("${cloudinary.api_key:}") String apiKey,
                               @Value("${cloudinary.api_secret:}") String apiSecret) {
+        this.httpClient = httpClient;
         this.cloudName = cloudName;
         this.apiKey = apiKey;
         this.apiSecret = apiSecret;
     }
 
+    /**
+     * Constructor para uso fuera de Spring (p.ej. tools/CloudinarySigTest) con un cliente HTTP por defecto.
+     */
+    public CloudinaryService(String cloudName, String apiKey, String apiSecret) {
+        this(OutboundHttpClient.withDefaults(), cloudName, apiKey, apiSecret);
+    }
+
     /**
      * Genera un mapa con apiKey, timestamp y signature para un upload firmado.
      * Acepta parámetros opcionales que quieras incluir en la firma (p.ej. folder, public_id)
@@ -98,7 +118,21 @@ public class CloudinaryService {
      * Destruye un recurso por su publicId. Retorna el mapa de respuesta de Cloudinary o lanza excepción si hay error.
      */
     public Map<String,Object> destroy(String publicId) throws Exception {
-        if (publicId == null || publicId.isBlank()) throw new IllegalArgumentException("publicId es requerido");
+        try {
+            return destroyAsync(publicId).get();
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof Exception) throw (Exception) cause;
+            throw ex;
+        }
+    }
+
+    /**
+     * Versión asíncrona de destroy: no bloquea el hilo que llama.
+     */
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<Map<String,Object>> destroyAsync(String publicId) {
+        if (publicId == null || publicId.isBlank()) return CompletableFuture.failedFuture(new IllegalArgumentException("publicId es requerido"));
         long timestamp = Instant.now().getEpochSecond();
         // params to sign: public_id=<publicId>&timestamp=<timestamp>
         String toSign = "public_id=" + publicId + "&timestamp=" + timestamp;
@@ -114,16 +148,72 @@ public class CloudinaryService {
                 .header("Content-Type", "application/x-www-form-urlencoded")
                 .POST(HttpRequest.BodyPublishers.ofString(form))
                 .build();
-        HttpResponse<String> resp = httpClient.send(req, HttpResponse.BodyHandlers.ofString());
+        return httpClient.sendAsync(req).thenApply(resp -> {
+            if (resp.statusCode() >= 200 && resp.statusCode() < 300) {
+                try {
+                    return (Map<String,Object>) objectMapper.readValue(resp.body(), Map.class);
+                } catch (Exception ex) {
+                    return Map.<String,Object>of("status", resp.statusCode(), "body", resp.body());
+                }
+            }
+            throw new RuntimeException("Cloudinary destroy failed: " + resp.statusCode() + " -> " + resp.body());
+        });
+    }
+
+    /**
+     * Destruye varios recursos en paralelo (fan-out de destroyAsync). El resultado por publicId es la
+     * respuesta de Cloudinary o {"error": mensaje} si esa llamada falló; un fallo no cancela las demás.
+     */
+    public CompletableFuture<Map<String,Map<String,Object>>> destroyAll(Collection<String> publicIds) {
+        if (publicIds == null || publicIds.isEmpty()) return CompletableFuture.completedFuture(Map.of());
+        List<String> ids = List.copyOf(publicIds);
+        List<CompletableFuture<Map<String,Object>>> futures = ids.stream()
+                .map(id -> destroyAsync(id).exceptionally(ex -> {
+                    Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                    return Map.<String,Object>of("error", String.valueOf(cause.getMessage()));
+                }))
+                .toList();
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenApply(v -> {
+            Map<String,Map<String,Object>> out = new LinkedHashMap<>();
+            for (int i = 0; i < ids.size(); i++) out.put(ids.get(i), futures.get(i).join());
+            return out;
+        });
+    }
+
+    /**
+     * Elimina en bloque hasta 100 recursos (Admin API: DELETE resources/image/upload).
+     * Retorna el mapa publicId -> resultado ("deleted", "not_found", ...) devuelto por Cloudinary.
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String,String> deleteResources(Collection<String> publicIds) throws Exception {
+        if (publicIds == null || publicIds.isEmpty()) return Map.of();
+        if (publicIds.size() > MAX_BULK_DELETE) throw new IllegalArgumentException("Máximo " + MAX_BULK_DELETE + " publicIds por llamada");
+        StringBuilder qs = new StringBuilder();
+        for (String id : publicIds) {
+            if (qs.length() > 0) qs.append('&');
+            qs.append("public_ids%5B%5D=").append(URLEncoder.encode(id, StandardCharsets.UTF_8));
+        }
+        String url = String.format("https://api.cloudinary.com/v1_1/%s/resources/image/upload?%s", cloudName, qs);
+        String basic = java.util.Base64.getEncoder().encodeToString(
+                ((apiKey == null ? "" : apiKey) + ":" + (apiSecret == null ? "" : apiSecret)).getBytes(StandardCharsets.UTF_8));
+        HttpRequest req = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .header("Authorization", "Basic " + basic)
+                .DELETE()
+                .build();
+        HttpResponse<String> resp = httpClient.send(req);
         if (resp.statusCode() >= 200 && resp.statusCode() < 300) {
-            try {
-                Map<String,Object> map = objectMapper.readValue(resp.body(), Map.class);
-                return map;
-            } catch (Exception ex) {
-                return Map.of("status", resp.statusCode(), "body", resp.body());
+            Map<String,Object> map = objectMapper.readValue(resp.body(), Map.class);
+            Object deleted = map.get("deleted");
+            Map<String,String> out = new HashMap<>();
+            if (deleted instanceof Map) {
+                for (Map.Entry<String,Object> e : ((Map<String,Object>) deleted).entrySet()) {
+                    out.put(e.getKey(), String.valueOf(e.getValue()));
+                }
             }
+            return out;
         }
-        throw new RuntimeException("Cloudinary destroy failed: " + resp.statusCode() + " -> " + resp.body());
+        throw new RuntimeException("Cloudinary bulk delete failed: " + resp.statusCode() + " -> " + resp.body());
     }
 
     /**
@@ -0,0 +1,72 @@
+package com.repobackend.api.common.http;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Date;
+import java.util.HexFormat;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.CacheControl;
+import org.springframework.stereotype.Component;
+
+/**
+ * Validadores HTTP para los endpoints públicos del catálogo.
+ *
+ * El ETag es débil (W/) y se calcula a partir de ids + version/actualizadoEn de los documentos, sin construir
+ * el cuerpo de la respuesta. Cache-Control es público para que un CDN pueda servir las respuestas y
+ * revalidarlas con If-None-Match.
+ */
+@Component
+public class CatalogHttpCache {
+    private final CacheControl cacheControl;
+
+    public CatalogHttpCache(@Value("${app.http-cache.catalog.max-age-seconds:60}") long maxAgeSeconds,
+                            @Value("${app.http-cache.catalog.s-max-age-seconds:300}") long sMaxAgeSeconds,
+                            @Value("${app.http-cache.catalog.stale-while-revalidate-seconds:600}") long staleWhileRevalidateSeconds) {
+        this.cacheControl = CacheControl.maxAge(Duration.ofSeconds(maxAgeSeconds))
+                .cachePublic()
+                .sMaxAge(Duration.ofSeconds(sMaxAgeSeconds))
+                .staleWhileRevalidate(Duration.ofSeconds(staleWhileRevalidateSeconds));
+    }
+
+    public CacheControl cacheControl() {
+        return cacheControl;
+    }
+
+    /** ETag débil a partir de las partes dadas (ids, versiones, fechas, parámetros de la consulta). */
+    public static String weakEtag(Object... parts) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            for (Object part : parts) {
+                md.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+                md.update((byte) 0);
+            }
+            // 16 bytes bastan como validador
+            byte[] digest = md.digest();
+            return "W/\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (Exception ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Rellena version=0 y actualizadoEn=creadoEn (o la hora actual si tampoco existe) en los documentos de la
+     * colección a los que les falta alguno de los dos, sin tocar los valores existentes. Un solo updateMany
+     * con pipeline; idempotente. Retorna cuántos documentos se modificaron.
+     */
+    public static long backfillValidadores(MongoTemplate mongoTemplate, Class<?> entity) {
+        Query pendientes = new Query(new Criteria().orOperator(
+                Criteria.where("version").exists(false), Criteria.where("actualizadoEn").exists(false)));
+        AggregationUpdate relleno = AggregationUpdate.update()
+                .set("version").toValue(ConditionalOperators.ifNull("version").then(0L))
+                .set("actualizadoEn").toValue(ConditionalOperators.ifNull("actualizadoEn")
+                        .thenValueOf(ConditionalOperators.ifNull("creadoEn").then(new Date())));
+        return mongoTemplate.updateMulti(pendientes, relleno, entity).getModifiedCount();
+    }
+}
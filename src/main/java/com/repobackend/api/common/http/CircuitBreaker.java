@@ -0,0 +1,112 @@
+package com.repobackend.api.common.http;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker mínimo por host: CLOSED -> OPEN tras N fallos consecutivos,
+ * OPEN -> HALF_OPEN al pasar openDurationMs, y HALF_OPEN deja pasar una sola llamada de prueba.
+ *
+ * Cada cambio de estado avanza una generación. tryAcquire devuelve la generación vigente como ticket y los
+ * resultados se reportan con él: un resultado que llega tarde, de una generación anterior (p. ej. un éxito
+ * lento después de que el circuito se abrió), se ignora y no cierra ni reabre el circuito.
+ */
+public class CircuitBreaker {
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openDurationMs;
+    private final LongSupplier clock;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures = 0;
+    private long openedAt = 0;
+    private boolean trialInFlight = false;
+    private long generation = 0;
+
+    public CircuitBreaker(int failureThreshold, long openDurationMs) {
+        this(failureThreshold, openDurationMs, System::currentTimeMillis);
+    }
+
+    CircuitBreaker(int failureThreshold, long openDurationMs, LongSupplier clock) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openDurationMs = openDurationMs;
+        this.clock = clock;
+    }
+
+    /**
+     * Indica si la llamada puede salir. En HALF_OPEN solo se permite una llamada de prueba a la vez.
+     * @return ticket (generación actual) para reportar el resultado, o -1 si la llamada no puede salir
+     */
+    public long tryAcquire() {
+        lock.lock();
+        try {
+            if (state == State.OPEN && clock.getAsLong() - openedAt >= openDurationMs) {
+                transition(State.HALF_OPEN);
+                trialInFlight = false;
+            }
+            if (state == State.CLOSED) return generation;
+            if (state == State.HALF_OPEN && !trialInFlight) {
+                trialInFlight = true;
+                return generation;
+            }
+            return -1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void onSuccess(long ticket) {
+        lock.lock();
+        try {
+            if (ticket != generation) return;
+            consecutiveFailures = 0;
+            trialInFlight = false;
+            if (state != State.CLOSED) transition(State.CLOSED);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void onFailure(long ticket) {
+        lock.lock();
+        try {
+            if (ticket != generation) return;
+            trialInFlight = false;
+            consecutiveFailures++;
+            if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+                transition(State.OPEN);
+                openedAt = clock.getAsLong();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Libera la llamada de prueba sin contarla como éxito ni fallo (p.ej. si se rechazó localmente).
+     */
+    public void releaseTrial(long ticket) {
+        lock.lock();
+        try {
+            if (ticket == generation) trialInFlight = false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void transition(State next) {
+        state = next;
+        generation++;
+    }
+
+    public State getState() {
+        lock.lock();
+        try {
+            return state;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.repobackend.api.common.http;
+
+/**
+ * Se lanza cuando el circuit breaker de un host remoto está abierto y la llamada se rechaza sin salir a red.
+ */
+public class CircuitOpenException extends RuntimeException {
+    private final String host;
+
+    public CircuitOpenException(String host) {
+        super("Circuito abierto para " + host + ", se rechaza la llamada");
+        this.host = host;
+    }
+
+    public String getHost() { return host; }
+}
@@ -0,0 +1,259 @@
+package com.repobackend.api.common.http;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Capa común para llamadas HTTP salientes (Cloudinary, Google, ...).
+ *
+ * Sobre un único java.net.http.HttpClient compartido (HTTP/2, pool de conexiones del JDK) añade:
+ * - límite de peticiones concurrentes por host: sin cupo la petición espera en una cola (sin bloquear al
+ *   llamador) y se rechaza si no lo obtiene en acquireTimeout
+ * - timeout de respuesta (headers) y timeout total de lectura del body; al vencer se cancela el intercambio,
+ *   así la conexión y el cupo no quedan retenidos
+ * - circuit breaker por host: 5xx, timeouts y errores de red cuentan como fallo
+ * - métricas por host: http.client.outbound (timer) y gauges de peticiones en vuelo / circuito abierto
+ */
+public class OutboundHttpClient {
+    private final HttpClient client;
+    private final Duration requestTimeout;
+    private final Duration readTimeout;
+    private final int maxConcurrentPerHost;
+    private final Duration acquireTimeout;
+    private final int failureThreshold;
+    private final Duration openDuration;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, HostState> hosts = new ConcurrentHashMap<>();
+
+    public OutboundHttpClient(HttpClient client, Duration requestTimeout, Duration readTimeout,
+                              int maxConcurrentPerHost, Duration acquireTimeout,
+                              int failureThreshold, Duration openDuration, MeterRegistry meterRegistry) {
+        this.client = client;
+        this.requestTimeout = requestTimeout;
+        this.readTimeout = readTimeout;
+        this.maxConcurrentPerHost = Math.max(1, maxConcurrentPerHost);
+        this.acquireTimeout = acquireTimeout;
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Cliente con valores por defecto, para usos fuera de Spring (herramientas en tools/, pruebas).
+     */
+    public static OutboundHttpClient withDefaults() {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofSeconds(3))
+                .build();
+        return new OutboundHttpClient(client, Duration.ofSeconds(5), Duration.ofSeconds(10), 16,
+                Duration.ofSeconds(2), 5, Duration.ofSeconds(30), new SimpleMeterRegistry());
+    }
+
+    public CompletableFuture<HttpResponse<String>> sendAsync(HttpRequest request) {
+        String host = request.uri().getHost();
+        HostState hs = hosts.computeIfAbsent(host == null ? "unknown" : host, this::newHostState);
+
+        long ticket = hs.breaker.tryAcquire();
+        if (ticket < 0) {
+            record(hs, "CIRCUIT_OPEN", "NONE", 0L);
+            return CompletableFuture.failedFuture(new CircuitOpenException(hs.host));
+        }
+        return hs.permits.acquire(acquireTimeout).handle((ok, err) -> err).thenCompose(err -> {
+            if (err != null) {
+                hs.breaker.releaseTrial(ticket);
+                record(hs, "REJECTED", "NONE", 0L);
+                return CompletableFuture.failedFuture(new RejectedExecutionException(
+                        "Límite de " + maxConcurrentPerHost + " peticiones concurrentes alcanzado para " + hs.host));
+            }
+            return exchange(hs, request, ticket);
+        });
+    }
+
+    // Con cupo ya tomado: envía, aplica el timeout de lectura y reporta el resultado al breaker con el ticket
+    private CompletableFuture<HttpResponse<String>> exchange(HostState hs, HttpRequest request, long ticket) {
+        HttpRequest effective = request.timeout().isPresent()
+                ? request
+                : HttpRequest.newBuilder(request, (name, value) -> true).timeout(requestTimeout).build();
+        long start = System.nanoTime();
+        CompletableFuture<HttpResponse<String>> inFlight;
+        try {
+            inFlight = client.sendAsync(effective, HttpResponse.BodyHandlers.ofString());
+        } catch (RuntimeException ex) {
+            hs.permits.release();
+            hs.breaker.onFailure(ticket);
+            record(hs, "IO_ERROR", "NONE", System.nanoTime() - start);
+            return CompletableFuture.failedFuture(ex);
+        }
+        // el timeout va sobre una copia: al vencer se cancela el future del HttpClient, que aborta el intercambio
+        return inFlight.copy()
+                .orTimeout(readTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((resp, err) -> {
+                    hs.permits.release();
+                    long elapsed = System.nanoTime() - start;
+                    if (err != null) {
+                        Throwable cause = unwrap(err);
+                        if (cause instanceof TimeoutException) inFlight.cancel(true);
+                        hs.breaker.onFailure(ticket);
+                        boolean timeout = cause instanceof HttpTimeoutException || cause instanceof TimeoutException;
+                        record(hs, timeout ? "TIMEOUT" : "IO_ERROR", "NONE", elapsed);
+                    } else if (resp.statusCode() >= 500) {
+                        hs.breaker.onFailure(ticket);
+                        record(hs, "SERVER_ERROR", String.valueOf(resp.statusCode()), elapsed);
+                    } else {
+                        hs.breaker.onSuccess(ticket);
+                        record(hs, resp.statusCode() >= 400 ? "CLIENT_ERROR" : "SUCCESS", String.valueOf(resp.statusCode()), elapsed);
+                    }
+                });
+    }
+
+    /**
+     * Versión bloqueante de sendAsync. Propaga IOException (incluye timeouts) y CircuitOpenException.
+     */
+    public HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        try {
+            return sendAsync(request).get();
+        } catch (ExecutionException ex) {
+            Throwable cause = unwrap(ex);
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof TimeoutException) throw new HttpTimeoutException("Timeout de lectura para " + request.uri().getHost());
+            if (cause instanceof InterruptedException) throw (InterruptedException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new IOException(cause);
+        }
+    }
+
+    public CircuitBreaker.State circuitState(String host) {
+        HostState hs = hosts.get(host);
+        return hs == null ? CircuitBreaker.State.CLOSED : hs.breaker.getState();
+    }
+
+    private HostState newHostState(String host) {
+        HostState hs = new HostState(host, new AsyncPermits(maxConcurrentPerHost),
+                new CircuitBreaker(failureThreshold, openDuration.toMillis()));
+        Gauge.builder("http.client.outbound.inflight", hs.permits, AsyncPermits::inUse)
+                .tag("host", host)
+                .register(meterRegistry);
+        Gauge.builder("http.client.outbound.circuit.open", hs.breaker, b -> b.getState() == CircuitBreaker.State.CLOSED ? 0 : 1)
+                .tag("host", host)
+                .register(meterRegistry);
+        return hs;
+    }
+
+    private void record(HostState hs, String outcome, String status, long nanos) {
+        Timer.builder("http.client.outbound")
+                .tag("host", hs.host)
+                .tag("outcome", outcome)
+                .tag("status", status)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static Throwable unwrap(Throwable t) {
+        while ((t instanceof CompletionException || t instanceof ExecutionException) && t.getCause() != null) {
+            t = t.getCause();
+        }
+        return t;
+    }
+
+    private static final class HostState {
+        final String host;
+        final AsyncPermits permits;
+        final CircuitBreaker breaker;
+
+        HostState(String host, AsyncPermits permits, CircuitBreaker breaker) {
+            this.host = host;
+            this.permits = permits;
+            this.breaker = breaker;
+        }
+    }
+
+    /**
+     * Semáforo que no bloquea: acquire devuelve un future que se completa al obtener cupo (de inmediato si hay)
+     * o falla con TimeoutException al pasar el plazo. release entrega el cupo al siguiente en espera.
+     */
+    static final class AsyncPermits {
+        private final int max;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final ArrayDeque<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+        private int inUse;
+
+        AsyncPermits(int max) {
+            this.max = max;
+        }
+
+        CompletableFuture<Void> acquire(Duration timeout) {
+            CompletableFuture<Void> waiter;
+            lock.lock();
+            try {
+                if (inUse < max) {
+                    inUse++;
+                    return CompletableFuture.completedFuture(null);
+                }
+                waiter = new CompletableFuture<>();
+                waiters.add(waiter);
+            } finally {
+                lock.unlock();
+            }
+            waiter.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS).whenComplete((ok, err) -> {
+                if (err != null) remove(waiter);
+            });
+            return waiter;
+        }
+
+        void release() {
+            while (true) {
+                CompletableFuture<Void> next;
+                lock.lock();
+                try {
+                    next = waiters.poll();
+                    if (next == null) {
+                        inUse--;
+                        return;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                // se completa fuera del lock; si ya venció, el cupo pasa al siguiente
+                if (next.complete(null)) return;
+            }
+        }
+
+        int inUse() {
+            lock.lock();
+            try {
+                return inUse;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void remove(CompletableFuture<Void> waiter) {
+            lock.lock();
+            try {
+                waiters.remove(waiter);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
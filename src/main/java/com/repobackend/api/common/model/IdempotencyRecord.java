@@ -0,0 +1,46 @@
+package com.repobackend.api.common.model;
+
+import java.util.Date;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Resultado guardado de una petición con header Idempotency-Key.
+ * _id = operación:usuario:clave; Mongo lo borra al llegar a expiresAt (índice TTL).
+ */
+@Document(collection = "idempotency_keys")
+public class IdempotencyRecord {
+    public static final String ESTADO_EN_PROCESO = "EN_PROCESO";
+    public static final String ESTADO_COMPLETADO = "COMPLETADO";
+
+    @Id
+    private String id;
+    private String fingerprint;  // SHA-256 del cuerpo de la petición
+    private String estado = ESTADO_EN_PROCESO;
+    private int status;
+    private String responseBody; // JSON tal como se respondió la primera vez
+    private Date creadoEn = new Date();
+    private Date expiresAt;
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getFingerprint() { return fingerprint; }
+    public void setFingerprint(String fingerprint) { this.fingerprint = fingerprint; }
+
+    public String getEstado() { return estado; }
+    public void setEstado(String estado) { this.estado = estado; }
+
+    public int getStatus() { return status; }
+    public void setStatus(int status) { this.status = status; }
+
+    public String getResponseBody() { return responseBody; }
+    public void setResponseBody(String responseBody) { this.responseBody = responseBody; }
+
+    public Date getCreadoEn() { return creadoEn; }
+    public void setCreadoEn(Date creadoEn) { this.creadoEn = creadoEn; }
+
+    public Date getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(Date expiresAt) { this.expiresAt = expiresAt; }
+}
@@ -0,0 +1,103 @@
+package com.repobackend.api.common.service;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Barrido periódico de documentos que Mongo no puede expirar con un índice TTL:
+ * - refresh tokens revocados (pasado un margen desde la revocación)
+ * - carritos anónimos (usuarioId null) sin actividad durante app.expiry.anonymous-cart-days
+ *
+ * Borra por lotes de _id (chunk-size) con una pausa entre lotes para no saturar la base de datos.
+ * Métricas: expiry.sweeper.deleted{collection} y expiry.sweeper.run.
+ */
+@Service
+public class ExpirySweeperService {
+    private static final Logger logger = LoggerFactory.getLogger(ExpirySweeperService.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.expiry.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${app.expiry.max-chunks-per-run:50}")
+    private int maxChunksPerRun;
+
+    @Value("${app.expiry.pause-between-chunks-ms:50}")
+    private long pauseBetweenChunksMs;
+
+    @Value("${app.expiry.revoked-token-grace-ms:86400000}")
+    private long revokedTokenGraceMs;
+
+    @Value("${app.expiry.anonymous-cart-days:30}")
+    private int anonymousCartDays;
+
+    public ExpirySweeperService(MongoTemplate mongoTemplate, ObjectProvider<MeterRegistry> meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.meterRegistry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+    }
+
+    @Scheduled(fixedDelayString = "${app.expiry.sweep-interval-ms:600000}", initialDelayString = "${app.expiry.initial-delay-ms:120000}")
+    public void sweep() {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            long now = System.currentTimeMillis();
+            Date tokenCutoff = new Date(now - revokedTokenGraceMs);
+            // revokedAt no existe en tokens revocados antes de este cambio: usar issuedAt como referencia
+            Criteria revokedTokens = Criteria.where("revoked").is(true).orOperator(
+                    Criteria.where("revokedAt").lt(tokenCutoff),
+                    new Criteria().andOperator(Criteria.where("revokedAt").exists(false), Criteria.where("issuedAt").lt(tokenCutoff)));
+            sweepCollection("refresh_tokens", revokedTokens);
+
+            Date cartCutoff = new Date(now - TimeUnit.DAYS.toMillis(anonymousCartDays));
+            Criteria abandonedCarts = Criteria.where("usuarioId").is(null).orOperator(
+                    Criteria.where("actualizadoEn").lt(cartCutoff),
+                    new Criteria().andOperator(Criteria.where("actualizadoEn").exists(false), Criteria.where("creadoEn").lt(cartCutoff)));
+            sweepCollection("carritos", abandonedCarts);
+        } catch (Exception ex) {
+            logger.error("Error en el barrido de documentos expirados: {}", ex.getMessage(), ex);
+        } finally {
+            sample.stop(Timer.builder("expiry.sweeper.run").register(meterRegistry));
+        }
+    }
+
+    /**
+     * Borra en lotes los documentos que cumplen el criterio. Retorna el total borrado.
+     */
+    long sweepCollection(String collection, Criteria criteria) throws InterruptedException {
+        Counter deleted = Counter.builder("expiry.sweeper.deleted").tag("collection", collection).register(meterRegistry);
+        long total = 0;
+        for (int chunk = 0; chunk < maxChunksPerRun; chunk++) {
+            Query q = new Query(criteria).with(Sort.by(Sort.Direction.ASC, "_id")).limit(chunkSize);
+            q.fields().include("_id");
+            List<Object> ids = mongoTemplate.find(q, Document.class, collection).stream().map(d -> d.get("_id")).toList();
+            if (ids.isEmpty()) break;
+            long n = mongoTemplate.remove(new Query(Criteria.where("_id").in(ids)), collection).getDeletedCount();
+            total += n;
+            deleted.increment(n);
+            if (ids.size() < chunkSize) break;
+            if (pauseBetweenChunksMs > 0) Thread.sleep(pauseBetweenChunksMs);
+        }
+        if (total > 0) logger.info("Barrido de expirados: {} documentos eliminados de {}", total, collection);
+        return total;
+    }
+}
@@ -0,0 +1,220 @@
+package com.repobackend.api.common.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.repobackend.api.common.model.IdempotencyRecord;
+
+/**
+ * Idempotencia para operaciones POST costosas (facturas, checkout, ajustes de stock).
+ *
+ * Con header Idempotency-Key, la primera petición se ejecuta y su respuesta (status + JSON) se guarda en
+ * idempotency_keys junto con el hash del cuerpo. Los reintentos con la misma clave reciben la respuesta
+ * guardada sin volver a ejecutar la operación (no se reservan consecutivos ni se descuenta stock otra vez).
+ * - Misma clave con otro cuerpo: 422.
+ * - Misma clave mientras la primera sigue en curso: 409 (el cliente debe reintentar más tarde).
+ * - Respuestas 5xx no se guardan: la clave se libera para que el reintento vuelva a ejecutar.
+ * Las respuestas completadas se mantienen además en una caché en memoria para no consultar Mongo en ráfagas de reintentos.
+ */
+@Service
+public class IdempotencyService {
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+    private final long ttlMs;
+    private final long lockTimeoutMs;
+    private final int cacheMaxEntries;
+    private final Map<String, CachedResponse> cache = new ConcurrentHashMap<>();
+
+    public IdempotencyService(MongoTemplate mongoTemplate, ObjectMapper objectMapper,
+                              @Value("${app.idempotency.ttl-ms:86400000}") long ttlMs,
+                              @Value("${app.idempotency.lock-timeout-ms:60000}") long lockTimeoutMs,
+                              @Value("${app.idempotency.cache-size:5000}") int cacheMaxEntries) {
+        this.mongoTemplate = mongoTemplate;
+        this.objectMapper = objectMapper;
+        this.ttlMs = ttlMs;
+        this.lockTimeoutMs = lockTimeoutMs;
+        this.cacheMaxEntries = cacheMaxEntries;
+    }
+
+    /**
+     * Ejecuta la acción una sola vez por (operacion, usuario, clave). Sin clave, simplemente la ejecuta.
+     */
+    public ResponseEntity<?> execute(String operacion, String userId, String key, Object requestBody, Supplier<ResponseEntity<?>> action) {
+        if (key == null || key.isBlank()) return action.get();
+        if (key.length() > MAX_KEY_LENGTH) {
+            return ResponseEntity.badRequest().body(Map.of("error", HEADER + " demasiado largo (máximo " + MAX_KEY_LENGTH + ")"));
+        }
+        String id = operacion + ":" + (userId == null ? "-" : userId) + ":" + key;
+        String fingerprint = fingerprint(requestBody);
+        long now = System.currentTimeMillis();
+
+        CachedResponse cached = cache.get(id);
+        if (cached != null) {
+            if (cached.expiresAt > now) return replay(cached.fingerprint, cached.status, cached.body, fingerprint);
+            cache.remove(id, cached);
+        }
+
+        IdempotencyRecord existing = claim(id, fingerprint, now);
+        if (existing != null) {
+            if (IdempotencyRecord.ESTADO_COMPLETADO.equals(existing.getEstado())) {
+                remember(id, existing);
+                return replay(existing.getFingerprint(), existing.getStatus(), existing.getResponseBody(), fingerprint);
+            }
+            if (!existing.getFingerprint().equals(fingerprint)) return mismatch();
+            return ResponseEntity.status(409).header("Retry-After", "1")
+                    .body(Map.of("error", "Ya hay una petición en curso con este " + HEADER));
+        }
+
+        ResponseEntity<?> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException ex) {
+            release(id);
+            throw ex;
+        }
+        store(id, response);
+        return response;
+    }
+
+    /**
+     * Inserta el registro EN_PROCESO. Retorna null si esta petición quedó como dueña de la clave,
+     * o el registro existente si otra ya la tomó. Un EN_PROCESO abandonado (más viejo que lock-timeout) se retoma.
+     */
+    private IdempotencyRecord claim(String id, String fingerprint, long now) {
+        IdempotencyRecord r = new IdempotencyRecord();
+        r.setId(id);
+        r.setFingerprint(fingerprint);
+        r.setCreadoEn(new Date(now));
+        r.setExpiresAt(new Date(now + ttlMs));
+        try {
+            mongoTemplate.insert(r);
+            return null;
+        } catch (DuplicateKeyException dup) {
+            Query stale = new Query(Criteria.where("_id").is(id)
+                    .and("estado").is(IdempotencyRecord.ESTADO_EN_PROCESO)
+                    .and("fingerprint").is(fingerprint)
+                    .and("creadoEn").lt(new Date(now - lockTimeoutMs)));
+            Update retake = new Update().set("creadoEn", new Date(now)).set("expiresAt", new Date(now + ttlMs));
+            if (mongoTemplate.findAndModify(stale, retake, IdempotencyRecord.class) != null) {
+                logger.warn("Retomando clave de idempotencia abandonada {}", id);
+                return null;
+            }
+            IdempotencyRecord existing = mongoTemplate.findById(id, IdempotencyRecord.class);
+            // Si expiró entre el insert y la lectura, se reintenta la reserva una vez
+            if (existing == null) return claimOnce(r);
+            return existing;
+        }
+    }
+
+    private IdempotencyRecord claimOnce(IdempotencyRecord r) {
+        try {
+            mongoTemplate.insert(r);
+            return null;
+        } catch (DuplicateKeyException dup) {
+            return mongoTemplate.findById(r.getId(), IdempotencyRecord.class);
+        }
+    }
+
+    private void store(String id, ResponseEntity<?> response) {
+        int status = response.getStatusCode().value();
+        if (status >= 500) {
+            release(id);
+            return;
+        }
+        try {
+            String body = response.getBody() == null ? null : objectMapper.writeValueAsString(response.getBody());
+            Update done = new Update()
+                    .set("estado", IdempotencyRecord.ESTADO_COMPLETADO)
+                    .set("status", status)
+                    .set("responseBody", body);
+            IdempotencyRecord saved = mongoTemplate.findAndModify(new Query(Criteria.where("_id").is(id)), done,
+                    FindAndModifyOptions.options().returnNew(true), IdempotencyRecord.class);
+            if (saved != null) remember(id, saved);
+        } catch (Exception ex) {
+            // la operación ya se ejecutó: no fallar la respuesta por no poder guardarla
+            logger.error("No se pudo guardar la respuesta idempotente {}: {}", id, ex.getMessage());
+            release(id);
+        }
+    }
+
+    private void release(String id) {
+        try {
+            mongoTemplate.remove(new Query(Criteria.where("_id").is(id)
+                    .and("estado").is(IdempotencyRecord.ESTADO_EN_PROCESO)), IdempotencyRecord.class);
+        } catch (Exception ex) {
+            logger.warn("No se pudo liberar la clave de idempotencia {}: {}", id, ex.getMessage());
+        }
+    }
+
+    private ResponseEntity<?> replay(String storedFingerprint, int status, String body, String fingerprint) {
+        if (!storedFingerprint.equals(fingerprint)) return mismatch();
+        var builder = ResponseEntity.status(status).header(REPLAYED_HEADER, "true");
+        if (body == null) return builder.build();
+        return builder.contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    private static ResponseEntity<?> mismatch() {
+        return ResponseEntity.status(422).body(Map.of("error", HEADER + " ya usado con una petición distinta"));
+    }
+
+    private void remember(String id, IdempotencyRecord r) {
+        long expiresAt = r.getExpiresAt() == null ? System.currentTimeMillis() + ttlMs : r.getExpiresAt().getTime();
+        if (cache.size() >= cacheMaxEntries) {
+            long now = System.currentTimeMillis();
+            for (Iterator<CachedResponse> it = cache.values().iterator(); it.hasNext();) {
+                if (it.next().expiresAt <= now) it.remove();
+            }
+            if (cache.size() >= cacheMaxEntries) return;
+        }
+        cache.put(id, new CachedResponse(r.getFingerprint(), r.getStatus(), r.getResponseBody(), expiresAt));
+    }
+
+    private String fingerprint(Object requestBody) {
+        try {
+            byte[] bytes = requestBody == null ? new byte[0] : objectMapper.writeValueAsBytes(requestBody);
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(md.digest(bytes));
+        } catch (Exception ex) {
+            throw new IllegalStateException("No se pudo calcular la huella de la petición", ex);
+        }
+    }
+
+    private static final class CachedResponse {
+        final String fingerprint;
+        final int status;
+        final String body;
+        final long expiresAt;
+
+        CachedResponse(String fingerprint, int status, String body, long expiresAt) {
+            this.fingerprint = fingerprint;
+            this.status = status;
+            this.body = body;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.repobackend.api.common.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Aritmética de dinero en punto fijo: los valores viajan como long en centavos (2 decimales, la precisión de
+ * los valores monetarios de la factura electrónica DIAN) y las tasas de IVA como long en puntos básicos
+ * (19% = 1900). Todo redondeo es half-up (mitad alejándose de cero), así el mismo cálculo da siempre el mismo
+ * centavo en cualquier máquina.
+ *
+ * Los Double del modelo solo se convierten en los bordes (toCentavos / toDouble); BigDecimal.valueOf usa la
+ * representación decimal más corta del double, de modo que 1.005 se lee como 1.005 y no como 1.00499999...
+ */
+public final class Money {
+    public static final long CENTAVOS_POR_UNIDAD = 100;
+    public static final long PUNTOS_BASICOS_100 = 10_000;
+    private static final double LIMITE_CAMINO_RAPIDO = 0x1p40;
+    private static final double TOLERANCIA_CENTAVOS = 1e-3;
+
+    private Money() {}
+
+    /** Valor monetario en centavos, redondeado half-up a 2 decimales. null cuenta como 0. */
+    public static long toCentavos(Double valor) {
+        if (valor == null) return 0;
+        return toFijo(valor);
+    }
+
+    /** Tasa en porcentaje (19.0, 5.0, 8.5) a puntos básicos, redondeada half-up a 2 decimales. */
+    public static long toPuntosBasicos(Double porcentaje) {
+        if (porcentaje == null) return 0;
+        return toFijo(porcentaje);
+    }
+
+    /** Centavos a double con 2 decimales (el double más cercano a ese decimal). */
+    public static double toDouble(long centavos) {
+        return centavos / (double) CENTAVOS_POR_UNIDAD;
+    }
+
+    /** Centavos como decimal con punto y 2 decimales ("1234.50", "-0.05"), el formato de UBL y del CUFE. */
+    public static String toPlainString(long centavos) {
+        long abs = Math.abs(centavos);
+        long cent = abs % CENTAVOS_POR_UNIDAD;
+        return (centavos < 0 ? "-" : "") + (abs / CENTAVOS_POR_UNIDAD) + (cent < 10 ? ".0" : ".") + cent;
+    }
+
+    /** base * tasa / 100%, redondeado half-up al centavo. */
+    public static long aplicarTasa(long baseCentavos, long tasaPuntosBasicos) {
+        return dividirRedondeando(Math.multiplyExact(baseCentavos, tasaPuntosBasicos), PUNTOS_BASICOS_100);
+    }
+
+    /** num / den (den > 0) redondeado half-up, simétrico para negativos. */
+    public static long dividirRedondeando(long num, long den) {
+        // sumar (o restar) media unidad y truncar hacia cero: una sola división
+        long mitad = den / 2;
+        long q = (num >= 0 ? Math.addExact(num, mitad) : Math.subtractExact(num, mitad)) / den;
+        return q;
+    }
+
+    // Camino rápido sin asignaciones ni divisiones: si el double está a menos de una milésima de centavo de un
+    // centavo entero, su decimal más corto (lo que lee BigDecimal.valueOf) redondea a ese mismo centavo, así que
+    // el resultado es idéntico al de BigDecimal. Con |valor| < 2^40 centavos el error de valor * 100 es menor a
+    // 2^-12 centavos, muy por debajo de esa milésima. Fuera de ese rango, o si no está cerca, decide BigDecimal.
+    private static long toFijo(double valor) {
+        if (valor == 0) return 0; // descuentos y tasas exentas: el caso más común después de los precios
+        double escalado = valor * CENTAVOS_POR_UNIDAD;
+        // NaN e infinitos no pasan esta comparación, así que se validan fuera del camino rápido
+        if (Math.abs(escalado) < LIMITE_CAMINO_RAPIDO) {
+            double entero = Math.rint(escalado);
+            if (Math.abs(escalado - entero) < TOLERANCIA_CENTAVOS) return (long) entero;
+        } else if (Double.isNaN(valor) || Double.isInfinite(valor)) {
+            throw new IllegalArgumentException("Valor monetario inválido: " + valor);
+        }
+        return BigDecimal.valueOf(valor).setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+}
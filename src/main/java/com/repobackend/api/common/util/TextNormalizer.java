@@ -0,0 +1,25 @@
+package com.repobackend.api.common.util;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Normalización de texto para comparar e indexar: sin tildes, minúsculas y espacios colapsados.
+ * "  Frenos  Delanteros ÑANDÚ " -> "frenos delanteros nandu".
+ */
+public final class TextNormalizer {
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+
+    private TextNormalizer() {}
+
+    /** Texto normalizado, o null si la entrada es null o queda vacía. */
+    public static String normalize(String text) {
+        if (text == null) return null;
+        String s = Normalizer.normalize(text, Normalizer.Form.NFD);
+        s = MARKS.matcher(s).replaceAll("");
+        s = SPACES.matcher(s.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+        return s.isEmpty() ? null : s;
+    }
+}
@@ -0,0 +1,214 @@
+package com.repobackend.api.config;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Access log estructurado: una línea JSON por petición, escrita cuando la respuesta ya terminó.
+ *
+ * Registra método, plantilla de ruta (p.ej. /api/productos/{id}), status, duración, bytes y userId.
+ * Nunca registra headers (en particular Authorization) ni query strings.
+ * Las peticiones lentas y los errores 5xx se registran siempre; el resto según app.access-log.sample-rate.
+ * La escritura es asíncrona a través del appender ASYNC_ACCESS_LOG (ver logback-spring.xml).
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class AccessLogFilter extends OncePerRequestFilter {
+    /** Atributo de request donde el filtro JWT deja el id del usuario autenticado. */
+    public static final String USER_ID_ATTRIBUTE = AccessLogFilter.class.getName() + ".userId";
+
+    private static final Logger accessLog = LoggerFactory.getLogger("access-log");
+
+    private final boolean enabled;
+    private final double sampleRate;
+    private final long slowThresholdMs;
+
+    public AccessLogFilter(@Value("${app.access-log.enabled:true}") boolean enabled,
+                           @Value("${app.access-log.sample-rate:1.0}") double sampleRate,
+                           @Value("${app.access-log.slow-threshold-ms:1000}") long slowThresholdMs) {
+        this.enabled = enabled;
+        this.sampleRate = Math.max(0d, Math.min(1d, sampleRate));
+        this.slowThresholdMs = slowThresholdMs;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        CountingResponseWrapper wrapped = new CountingResponseWrapper(response);
+        boolean failed = false;
+        try {
+            filterChain.doFilter(request, wrapped);
+        } catch (IOException | ServletException | RuntimeException ex) {
+            failed = true;
+            throw ex;
+        } finally {
+            if (isAsyncStarted(request)) {
+                // Respuestas asíncronas (StreamingResponseBody, Mono, CompletableFuture): registrar al completar
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override public void onComplete(AsyncEvent event) { log(request, wrapped, start, false); }
+                    @Override public void onTimeout(AsyncEvent event) { }
+                    @Override public void onError(AsyncEvent event) { }
+                    @Override public void onStartAsync(AsyncEvent event) { }
+                });
+            } else {
+                log(request, wrapped, start, failed);
+            }
+        }
+    }
+
+    private void log(HttpServletRequest request, CountingResponseWrapper response, long start, boolean failed) {
+        try {
+            long durationMs = (System.nanoTime() - start) / 1_000_000L;
+            int status = response.getStatus();
+            // Si la excepción se propaga, el status todavía es el inicial (200): el contenedor responderá 500
+            if (failed && status < 400) status = HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+            boolean slow = durationMs >= slowThresholdMs;
+            if (!slow && status < 500 && !sampled()) return;
+            if (slow ? !accessLog.isWarnEnabled() : !accessLog.isInfoEnabled()) return;
+
+            Object route = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            Object userId = request.getAttribute(USER_ID_ATTRIBUTE);
+
+            StringBuilder sb = new StringBuilder(160);
+            sb.append("{\"method\":\"").append(request.getMethod()).append('"');
+            sb.append(",\"route\":");
+            appendJsonString(sb, route);
+            sb.append(",\"status\":").append(status);
+            sb.append(",\"durationMs\":").append(durationMs);
+            sb.append(",\"bytes\":").append(response.getBytesWritten());
+            sb.append(",\"userId\":");
+            appendJsonString(sb, userId);
+            if (slow) sb.append(",\"slow\":true");
+            sb.append('}');
+
+            if (slow) accessLog.warn(sb.toString());
+            else accessLog.info(sb.toString());
+        } catch (Exception ex) {
+            logger.debug("No se pudo escribir el access log", ex);
+        }
+    }
+
+    private boolean sampled() {
+        if (sampleRate >= 1d) return true;
+        if (sampleRate <= 0d) return false;
+        return ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    private static void appendJsonString(StringBuilder sb, Object value) {
+        if (value == null) {
+            sb.append("null");
+            return;
+        }
+        String s = value.toString();
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') sb.append('\\').append(c);
+            else if (c < 0x20) sb.append(' ');
+            else sb.append(c);
+        }
+        sb.append('"');
+    }
+
+    /**
+     * Cuenta los bytes escritos por el OutputStream de la respuesta (lo que usan los HttpMessageConverters).
+     * Si la respuesta se escribe por Writer se recurre al Content-Length declarado, o -1 si no existe.
+     */
+    static final class CountingResponseWrapper extends HttpServletResponseWrapper {
+        private CountingOutputStream countingStream;
+        private long declaredLength = -1;
+
+        CountingResponseWrapper(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (countingStream == null) countingStream = new CountingOutputStream(super.getOutputStream());
+            return countingStream;
+        }
+
+        @Override
+        public void setContentLength(int len) {
+            declaredLength = len;
+            super.setContentLength(len);
+        }
+
+        @Override
+        public void setContentLengthLong(long len) {
+            declaredLength = len;
+            super.setContentLengthLong(len);
+        }
+
+        long getBytesWritten() {
+            if (countingStream != null) return countingStream.count;
+            return declaredLength;
+        }
+    }
+
+    private static final class CountingOutputStream extends ServletOutputStream {
+        private final ServletOutputStream delegate;
+        private long count;
+
+        CountingOutputStream(ServletOutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            delegate.setWriteListener(writeListener);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.repobackend.api.config;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.CaffeineSpec;
+
+/**
+ * Caches de la aplicación (@Cacheable / CacheManager) sobre Caffeine.
+ *
+ * Cada cache tiene su propio límite de tamaño y TTL; la spec por defecto se puede sobrescribir con
+ * app.cache.spec.&lt;nombre&gt; (formato CaffeineSpec, p. ej. "maximumSize=500,expireAfterWrite=10m").
+ * Todas registran estadísticas, que actuator publica como cache.gets / cache.puts / cache.evictions.
+ * Una cache que no esté declarada aquí no existe: @Cacheable con un nombre desconocido falla en la primera
+ * llamada en vez de crear un mapa sin límite.
+ */
+@Configuration
+public class CacheConfig {
+    private static final Logger logger = LoggerFactory.getLogger(CacheConfig.class);
+
+    /** Páginas de categorías globales (CategoriaService.listarCategoriasGlobales). */
+    public static final String CATEGORIAS_GLOBALES = "categoriasGlobales";
+    /** Configuración global y tasa de IVA por defecto: un solo documento, leído en cada alta de producto. */
+    public static final String CONFIGURACION_GLOBAL = "configuracionGlobal";
+    /** Roles de plataforma por userId, consultados en cada verificación de permisos. */
+    public static final String ROLES_USUARIO = "rolesUsuario";
+
+    private static final Map<String, String> DEFAULT_SPECS = new LinkedHashMap<>();
+    static {
+        DEFAULT_SPECS.put(CATEGORIAS_GLOBALES, "maximumSize=200,expireAfterWrite=10m");
+        DEFAULT_SPECS.put(CONFIGURACION_GLOBAL, "maximumSize=10,expireAfterWrite=5m");
+        DEFAULT_SPECS.put(ROLES_USUARIO, "maximumSize=10000,expireAfterWrite=60s");
+    }
+
+    @Bean
+    public CacheManager cacheManager(Environment env) {
+        List<CaffeineCache> caches = new ArrayList<>();
+        for (Map.Entry<String, String> e : DEFAULT_SPECS.entrySet()) {
+            String spec = env.getProperty("app.cache.spec." + e.getKey(), e.getValue());
+            caches.add(new CaffeineCache(e.getKey(), Caffeine.from(CaffeineSpec.parse(spec)).recordStats().build()));
+            logger.debug("Cache '{}' configurada: {}", e.getKey(), spec);
+        }
+        SimpleCacheManager manager = new SimpleCacheManager();
+        manager.setCaches(caches);
+        return manager;
+    }
+}
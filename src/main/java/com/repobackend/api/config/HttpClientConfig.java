@@ -2,14 +2,49 @@ package com.repobackend.api.config;
 
 import java.net.http.HttpClient;
 import java.time.Duration;
+import java.util.concurrent.Executors;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import com.repobackend.api.common.http.OutboundHttpClient;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 @Configuration
 public class HttpClientConfig {
     @Bean
-    public HttpClient httpClient() {
-        return HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(3)).build();
+    public HttpClient httpClient(@Value("${app.http.connect-timeout-ms:3000}") long connectTimeoutMs,
+                                 @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .followRedirects(HttpClient.Redirect.NORMAL);
+        // En modo hilos virtuales las respuestas asíncronas se completan en hilos virtuales
+        // en lugar del pool interno del cliente
+        if (virtualThreads) builder.executor(Executors.newVirtualThreadPerTaskExecutor());
+        return builder.build();
+    }
+
+    @Bean
+    public OutboundHttpClient outboundHttpClient(HttpClient httpClient,
+                                                 ObjectProvider<MeterRegistry> meterRegistry,
+                                                 @Value("${app.http.request-timeout-ms:5000}") long requestTimeoutMs,
+                                                 @Value("${app.http.read-timeout-ms:10000}") long readTimeoutMs,
+                                                 @Value("${app.http.max-concurrent-per-host:16}") int maxConcurrentPerHost,
+                                                 @Value("${app.http.acquire-timeout-ms:2000}") long acquireTimeoutMs,
+                                                 @Value("${app.http.circuit.failure-threshold:5}") int failureThreshold,
+                                                 @Value("${app.http.circuit.open-ms:30000}") long openMs) {
+        return new OutboundHttpClient(httpClient,
+                Duration.ofMillis(requestTimeoutMs),
+                Duration.ofMillis(readTimeoutMs),
+                maxConcurrentPerHost,
+                Duration.ofMillis(acquireTimeoutMs),
+                failureThreshold,
+                Duration.ofMillis(openMs),
+                meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
     }
 }
@@ -0,0 +1,81 @@
+package com.repobackend.api.config;
+
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Component;
+
+/**
+ * Crea (si no existen) los índices que la aplicación necesita, incluidos los TTL.
+ * spring.data.mongodb.auto-index-creation está desactivado por defecto, así que los índices
+ * se declaran aquí de forma explícita. Un fallo en un índice se registra y no detiene el arranque.
+ */
+@Component
+public class MongoIndexInitializer {
+    private static final Logger logger = LoggerFactory.getLogger(MongoIndexInitializer.class);
+
+    private final MongoTemplate mongoTemplate;
+
+    public MongoIndexInitializer(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        // refresh_tokens: Mongo borra los tokens al llegar a expiresAt
+        ensure("refresh_tokens", new Index().on("expiresAt", Sort.Direction.ASC).expire(0, TimeUnit.SECONDS).named("ttl_expiresAt"));
+        ensure("refresh_tokens", new Index().on("tokenHash", Sort.Direction.ASC).named("tokenHash"));
+        ensure("refresh_tokens", new Index().on("userId", Sort.Direction.ASC).named("userId"));
+
+        // invitaciones: los códigos vencidos ya no se pueden canjear
+        ensure("invitaciones", new Index().on("expiresAt", Sort.Direction.ASC).expire(0, TimeUnit.SECONDS).named("ttl_expiresAt"));
+
+        // idempotency_keys: respuestas guardadas de peticiones con Idempotency-Key
+        ensure("idempotency_keys", new Index().on("expiresAt", Sort.Direction.ASC).expire(0, TimeUnit.SECONDS).named("ttl_expiresAt"));
+
+        // carritos: búsqueda por usuario y barrido de carritos anónimos inactivos
+        ensure("carritos", new Index().on("usuarioId", Sort.Direction.ASC).named("usuarioId"));
+        ensure("carritos", new Index().on("actualizadoEn", Sort.Direction.ASC).named("actualizadoEn"));
+
+        // productos: búsqueda por facetas sobre atributos [{k, v}] (multikey), sola o dentro de una categoría
+        ensure("productos", new Index().on("atributos.k", Sort.Direction.ASC).on("atributos.v", Sort.Direction.ASC).named("atributos_k_v"));
+        ensure("productos", new Index().on("categoriaId", Sort.Direction.ASC).on("atributos.k", Sort.Direction.ASC).on("atributos.v", Sort.Direction.ASC).named("categoriaId_atributos_k_v"));
+
+        // stock: índice parcial con solo los registros en faltante, para listar los de un almacén sin recorrer todo
+        ensure("stock", new Index().on("almacenId", Sort.Direction.ASC).on("productoId", Sort.Direction.ASC)
+                .partial(PartialIndexFilter.of(Criteria.where("bajoPuntoReorden").is(true))).named("almacenId_productoId_bajoPuntoReorden"));
+        ensure("stock_alertas", new Index().on("almacenId", Sort.Direction.ASC).on("creadoEn", Sort.Direction.DESC).named("almacenId_creadoEn"));
+
+        // ventas_diarias: clave única que usan los upserts incrementales y el $merge de reconstrucción;
+        // (tallerId, dia) para los reportes por rango
+        ensure("ventas_diarias", new Index().on("dia", Sort.Direction.ASC).on("tallerId", Sort.Direction.ASC).on("productoId", Sort.Direction.ASC)
+                .unique().named("dia_tallerId_productoId"));
+        ensure("ventas_diarias", new Index().on("tallerId", Sort.Direction.ASC).on("dia", Sort.Direction.ASC).named("tallerId_dia"));
+
+        // media_gc_queue: el drenado busca tareas pendientes y vencidas ordenadas por nextAttemptAt
+        ensure("media_gc_queue", new Index().on("estado", Sort.Direction.ASC).on("nextAttemptAt", Sort.Direction.ASC).named("estado_nextAttemptAt"));
+
+        // facturas: listado keyset (creadoEn desc, _id desc) global y por cliente / vendedor; prefijo de número
+        ensure("facturas", new Index().on("creadoEn", Sort.Direction.DESC).on("_id", Sort.Direction.DESC).named("creadoEn_id"));
+        ensure("facturas", new Index().on("clienteId", Sort.Direction.ASC).on("creadoEn", Sort.Direction.DESC).on("_id", Sort.Direction.DESC).named("clienteId_creadoEn"));
+        ensure("facturas", new Index().on("realizadoPor", Sort.Direction.ASC).on("creadoEn", Sort.Direction.DESC).on("_id", Sort.Direction.DESC).named("realizadoPor_creadoEn"));
+        ensure("facturas", new Index().on("numeroFactura", Sort.Direction.ASC).named("numeroFactura"));
+    }
+
+    private void ensure(String collection, IndexDefinition index) {
+        try {
+            mongoTemplate.indexOps(collection).ensureIndex(index);
+        } catch (Exception ex) {
+            logger.warn("No se pudo crear el índice {} en {}: {}", index.getIndexKeys(), collection, ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.repobackend.api.config;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+
+/**
+ * Diagnóstico de hilos virtuales "pinned" (bloqueados dentro de synchronized o código nativo, lo que
+ * retiene el carrier thread). Escucha el evento JFR jdk.VirtualThreadPinned en el propio proceso y
+ * registra la pila recortada a nuestros paquetes, más el contador virtual.threads.pinned{frame}.
+ *
+ * El código propio no usa synchronized: el circuit breaker saliente y los índices en memoria (compatibilidad,
+ * autocompletado) usan ReentrantLock y hacen la I/O a Mongo fuera del lock. Un pinning con frame nuestro es
+ * una regresión; sin frame propio, viene de drivers o librerías.
+ *
+ * Sólo se activa junto con spring.threads.virtual.enabled=true (APP_VIRTUAL_THREADS).
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor {
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+    private static final String EVENT = "jdk.VirtualThreadPinned";
+    private static final String APP_PACKAGE = "com.repobackend.";
+    private static final int MAX_FRAMES = 12;
+
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final Duration threshold;
+    private volatile RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(ObjectProvider<MeterRegistry> meterRegistry,
+                                       @Value("${app.virtual-threads.pinning-monitor.enabled:true}") boolean enabled,
+                                       @Value("${app.virtual-threads.pinning-monitor.threshold-ms:20}") long thresholdMs) {
+        this.meterRegistry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+        this.enabled = enabled;
+        this.threshold = Duration.ofMillis(thresholdMs);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) return;
+        try {
+            RecordingStream rs = new RecordingStream();
+            rs.enable(EVENT).withThreshold(threshold).withStackTrace();
+            rs.onEvent(EVENT, this::onPinned);
+            rs.startAsync();
+            stream = rs;
+            logger.info("Monitor de pinning de hilos virtuales activo (umbral {} ms)", threshold.toMillis());
+        } catch (Exception ex) {
+            // JFR no disponible en esta JVM: el modo virtual sigue funcionando sin diagnóstico
+            logger.warn("No se pudo iniciar el monitor de pinning (JFR): {}", ex.getMessage());
+        }
+    }
+
+    private void onPinned(RecordedEvent event) {
+        List<RecordedFrame> frames = event.getStackTrace() == null ? List.of() : event.getStackTrace().getFrames();
+        // primer frame de nuestro código: es el que hay que revisar (synchronized, ThreadLocal, etc.)
+        String ours = frames.stream()
+                .map(RecordedFrame::getMethod)
+                .filter(m -> m != null && m.getType().getName().startsWith(APP_PACKAGE))
+                .map(m -> m.getType().getName() + "." + m.getName())
+                .findFirst()
+                .orElse("externo");
+        Counter.builder("virtual.threads.pinned").tag("frame", ours).register(meterRegistry).increment();
+        String stack = frames.stream().limit(MAX_FRAMES)
+                .map(f -> f.getMethod() == null ? "?" : f.getMethod().getType().getName() + "." + f.getMethod().getName() + ":" + f.getLineNumber())
+                .collect(Collectors.joining("\n    at "));
+        logger.warn("Hilo virtual pinned {} ms (origen {}):\n    at {}", event.getDuration().toMillis(), ours, stack);
+    }
+
+    @PreDestroy
+    public void stop() {
+        RecordingStream rs = stream;
+        if (rs != null) rs.close();
+    }
+}
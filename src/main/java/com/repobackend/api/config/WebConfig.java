@@ -33,9 +33,9 @@ public class WebConfig {
         }
 
         config.setAllowedOrigins(origins);
-        config.setAllowedHeaders(List.of("Origin", "Content-Type", "Accept", "Authorization", "X-Requested-With"));
+        config.setAllowedHeaders(List.of("Origin", "Content-Type", "Accept", "Authorization", "X-Requested-With", "Idempotency-Key"));
         config.setAllowedMethods(List.of("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
-        config.setExposedHeaders(List.of("Authorization", "Location"));
+        config.setExposedHeaders(List.of("Authorization", "Location", "Idempotent-Replayed", "ETag", "Last-Modified"));
         config.setMaxAge(3600L);
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
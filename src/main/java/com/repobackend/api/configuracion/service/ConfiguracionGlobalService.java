@@ -4,7 +4,10 @@ import com.repobackend.api.configuracion.dto.ConfiguracionGlobalRequest;
 import com.repobackend.api.configuracion.dto.ConfiguracionGlobalResponse;
 import com.repobackend.api.configuracion.model.ConfiguracionGlobal;
 import com.repobackend.api.configuracion.repository.ConfiguracionGlobalRepository;
+import com.repobackend.api.config.CacheConfig;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -25,6 +28,7 @@ public class ConfiguracionGlobalService {
      * Obtiene la configuración global.
      * Si no existe, la crea con valores por defecto.
      */
+    @Cacheable(value = CacheConfig.CONFIGURACION_GLOBAL, key = "'global'")
     public ConfiguracionGlobalResponse obtenerConfiguracion() {
         ConfiguracionGlobal config = repository.findByClave(CLAVE_GLOBAL)
                 .orElseGet(this::crearConfiguracionPorDefecto);
@@ -36,6 +40,7 @@ public class ConfiguracionGlobalService {
      * Actualiza la configuración global.
      * Solo actualiza los campos que no sean null en el request.
      */
+    @CacheEvict(value = CacheConfig.CONFIGURACION_GLOBAL, allEntries = true)
     public ConfiguracionGlobalResponse actualizarConfiguracion(ConfiguracionGlobalRequest request) {
         ConfiguracionGlobal config = repository.findByClave(CLAVE_GLOBAL)
                 .orElseGet(this::crearConfiguracionPorDefecto);
@@ -94,6 +99,7 @@ public class ConfiguracionGlobalService {
      * Obtiene la tasa de IVA por defecto configurada.
      * Si no existe configuración, retorna 19.0% (estándar Colombia).
      */
+    @Cacheable(value = CacheConfig.CONFIGURACION_GLOBAL, key = "'tasaIva'")
     public Double obtenerTasaIvaPorDefecto() {
         return repository.findByClave(CLAVE_GLOBAL)
                 .map(ConfiguracionGlobal::getTasaIvaPorDefecto)
@@ -1,14 +1,21 @@
 package com.repobackend.api.factura.controller;
 
-import java.util.List;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.Map;
 
+import javax.xml.stream.XMLStreamException;
+
+import com.repobackend.api.common.service.IdempotencyService;
 import com.repobackend.api.factura.dto.FacturaRequest;
+import com.repobackend.api.factura.dian.FacturaElectronicaService;
+import com.repobackend.api.factura.service.FacturaConsultaService;
 import com.repobackend.api.factura.service.FacturaServiceV2;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.repobackend.api.factura.model.Factura;
 import com.repobackend.api.factura.service.FacturaPdfService;
@@ -34,10 +41,16 @@ public class FacturaController {
     private static final Logger logger = LoggerFactory.getLogger(FacturaController.class);
     private final FacturaServiceV2 facturaService;
     private final FacturaPdfService facturaPdfService;
+    private final IdempotencyService idempotencyService;
+    private final FacturaConsultaService facturaConsultaService;
+    private final FacturaElectronicaService facturaElectronicaService;
 
-    public FacturaController(FacturaServiceV2 facturaService, FacturaPdfService facturaPdfService) {
+    public FacturaController(FacturaServiceV2 facturaService, FacturaPdfService facturaPdfService, IdempotencyService idempotencyService, FacturaConsultaService facturaConsultaService, FacturaElectronicaService facturaElectronicaService) {
         this.facturaService = facturaService;
         this.facturaPdfService = facturaPdfService;
+        this.idempotencyService = idempotencyService;
+        this.facturaConsultaService = facturaConsultaService;
+        this.facturaElectronicaService = facturaElectronicaService;
     }
 
     @Operation(
@@ -54,19 +67,23 @@ public class FacturaController {
     @PostMapping(consumes = "application/json")
     public ResponseEntity<?> crearFactura(
         @Valid @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "Factura a crear (items + cliente o clienteId)") @RequestBody FacturaRequest facturaRequest,
+        @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
         Authentication authentication
     ) {
-        try {
-            String userId = authentication == null ? null : authentication.getName();
-            var resp = facturaService.crearYEmitir(facturaRequest, userId);
-            return ResponseEntity.status(201).body(Map.of("factura", resp));
-        } catch (IllegalArgumentException iae) {
-            return ResponseEntity.badRequest().body(Map.of("error", iae.getMessage()));
-        } catch (IllegalStateException ise) {
-            return ResponseEntity.status(409).body(Map.of("error", ise.getMessage()));
-        } catch (Exception ex) {
-            return ResponseEntity.status(500).body(Map.of("error", ex.getMessage()));
-        }
+        String userId = authentication == null ? null : authentication.getName();
+        // Reintentos con el mismo Idempotency-Key reciben la factura ya emitida
+        return idempotencyService.execute("factura", userId, idempotencyKey, facturaRequest, () -> {
+            try {
+                var resp = facturaService.crearYEmitir(facturaRequest, userId);
+                return ResponseEntity.status(201).body(Map.of("factura", resp));
+            } catch (IllegalArgumentException iae) {
+                return ResponseEntity.badRequest().body(Map.of("error", iae.getMessage()));
+            } catch (IllegalStateException ise) {
+                return ResponseEntity.status(409).body(Map.of("error", ise.getMessage()));
+            } catch (Exception ex) {
+                return ResponseEntity.status(500).body(Map.of("error", ex.getMessage()));
+            }
+        });
     }
 
     @Operation(
@@ -185,20 +202,24 @@ public class FacturaController {
         @ApiResponse(responseCode = "500", description = "Error interno", content = @Content)
     })
     @PostMapping(path = "/checkout", consumes = "application/json")
-    public ResponseEntity<?> checkout(@RequestBody Map<String, Object> body, Authentication authentication) {
+    public ResponseEntity<?> checkout(@RequestBody Map<String, Object> body,
+                                      @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+                                      Authentication authentication) {
         String userId = authentication == null ? null : authentication.getName();
         if (userId == null) return ResponseEntity.status(401).body(Map.of("error", "No autenticado"));
-        try {
-            String carritoId = (String) body.get("carritoId");
-            var resp = facturaService.checkout(carritoId, userId);
-            return ResponseEntity.status(201).body(Map.of("factura", resp));
-        } catch (IllegalArgumentException iae) {
-            return ResponseEntity.status(400).body(Map.of("error", iae.getMessage()));
-        } catch (IllegalStateException ise) {
-            return ResponseEntity.status(409).body(Map.of("error", ise.getMessage()));
-        } catch (Exception ex) {
-            return ResponseEntity.status(500).body(Map.of("error", ex.getMessage()));
-        }
+        return idempotencyService.execute("checkout", userId, idempotencyKey, body, () -> {
+            try {
+                String carritoId = (String) body.get("carritoId");
+                var resp = facturaService.checkout(carritoId, userId);
+                return ResponseEntity.status(201).body(Map.of("factura", resp));
+            } catch (IllegalArgumentException iae) {
+                return ResponseEntity.status(400).body(Map.of("error", iae.getMessage()));
+            } catch (IllegalStateException ise) {
+                return ResponseEntity.status(409).body(Map.of("error", ise.getMessage()));
+            } catch (Exception ex) {
+                return ResponseEntity.status(500).body(Map.of("error", ex.getMessage()));
+            }
+        });
     }
 
     @Operation(summary = "Obtener factura por id")
@@ -234,6 +255,79 @@ public class FacturaController {
         return ResponseEntity.ok().headers(headers).body(pdf);
     }
 
+    @Operation(summary = "Descargar XML UBL 2.1 de factura electrónica",
+        description = "XML de la factura (perfil DIAN, con CUFE) escrito en streaming. Solo facturas emitidas; la firma la agrega el proveedor tecnológico.")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "XML de la factura",
+            content = @Content(mediaType = "application/xml", schema = @Schema(type = "string", format = "binary")) ),
+        @ApiResponse(responseCode = "404", description = "Factura no encontrada", content = @Content),
+        @ApiResponse(responseCode = "409", description = "La factura está en BORRADOR", content = @Content),
+        @ApiResponse(responseCode = "503", description = "Facturación electrónica sin configurar (NIT / clave técnica)", content = @Content)
+    })
+    @GetMapping(value = "/{id}/xml")
+    public ResponseEntity<?> descargarXml(@PathVariable String id) {
+        var maybe = facturaService.getById(id);
+        if (maybe.isEmpty()) return ResponseEntity.status(404).body(Map.of("error", "Factura no encontrada"));
+        Factura f = maybe.get();
+        if ("BORRADOR".equals(f.getEstado())) {
+            return ResponseEntity.status(409).body(Map.of("error", "Solo las facturas emitidas tienen XML"));
+        }
+        if (f.getCufe() == null && !facturaElectronicaService.isConfigurada()) {
+            return ResponseEntity.status(503).body(Map.of("error", "Facturación electrónica sin configurar"));
+        }
+        StreamingResponseBody body = out -> {
+            try {
+                facturaElectronicaService.escribirXml(f, out);
+            } catch (XMLStreamException ex) {
+                throw new java.io.IOException("Error escribiendo XML de la factura " + id, ex);
+            }
+        };
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_XML);
+        headers.setContentDispositionFormData("attachment", FacturaElectronicaService.numero(f) + ".xml");
+        return ResponseEntity.ok().headers(headers).body(body);
+    }
+
+    @Operation(summary = "Lote de XML de facturas (zip)",
+        description = "Zip con el XML UBL de cada factura emitida en el rango [desde, hasta] (yyyy-MM-dd). Se genera en streaming desde un cursor. Solo ADMIN.")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Zip de XML",
+            content = @Content(mediaType = "application/zip", schema = @Schema(type = "string", format = "binary")) ),
+        @ApiResponse(responseCode = "400", description = "Fechas inválidas", content = @Content),
+        @ApiResponse(responseCode = "403", description = "Solo ADMIN", content = @Content),
+        @ApiResponse(responseCode = "503", description = "Facturación electrónica sin configurar (NIT / clave técnica)", content = @Content)
+    })
+    @GetMapping(value = "/xml/lote")
+    public ResponseEntity<?> descargarLoteXml(@RequestParam String desde, @RequestParam String hasta, Authentication authentication) {
+        boolean isAdmin = authentication != null &&
+                         authentication.getAuthorities().stream()
+                             .anyMatch(auth -> auth.getAuthority().equals("ROLE_ADMIN") || auth.getAuthority().equals("ADMIN"));
+        if (!isAdmin) return ResponseEntity.status(403).body(Map.of("error", "Solo ADMIN puede descargar lotes de XML"));
+        if (!facturaElectronicaService.isConfigurada()) {
+            return ResponseEntity.status(503).body(Map.of("error", "Facturación electrónica sin configurar"));
+        }
+        LocalDate d;
+        LocalDate h;
+        try {
+            d = LocalDate.parse(desde);
+            h = LocalDate.parse(hasta);
+        } catch (DateTimeParseException ex) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Fechas inválidas, use el formato yyyy-MM-dd"));
+        }
+        if (h.isBefore(d)) return ResponseEntity.badRequest().body(Map.of("error", "hasta no puede ser anterior a desde"));
+        StreamingResponseBody body = out -> {
+            try {
+                facturaElectronicaService.escribirLote(d, h, out);
+            } catch (XMLStreamException ex) {
+                throw new java.io.IOException("Error escribiendo lote de XML", ex);
+            }
+        };
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("application/zip"));
+        headers.setContentDispositionFormData("attachment", "facturas-" + d + "-" + h + ".zip");
+        return ResponseEntity.ok().headers(headers).body(body);
+    }
+
     @Operation(summary = "Obtener factura por número")
     @ApiResponses({
         @ApiResponse(responseCode = "200", description = "Factura encontrada",
@@ -250,41 +344,43 @@ public class FacturaController {
     }
 
     @Operation(summary = "Listar facturas",
-        description = "Lista facturas. Usuarios ADMIN ven todas las facturas. Usuarios normales ven solo las facturas donde son cliente o las crearon.")
+        description = """
+            Lista paginada (keyset) de facturas más recientes primero, con filas resumidas: cabecera y totales, sin items, QR ni respuesta DIAN.
+            Usuarios ADMIN ven todas las facturas (userId opcional para filtrar por un usuario). Usuarios normales ven solo las facturas donde son cliente o las crearon.
+
+            Para la siguiente página enviar `cursor` con el `nextCursor` recibido; `nextCursor` es null en la última página.
+            Filtros opcionales: estado, clienteId, numero (prefijo de numeroFactura), desde/hasta (yyyy-MM-dd, sobre creadoEn).
+            """)
     @ApiResponses({
-        @ApiResponse(responseCode = "200", description = "Lista de facturas",
-            content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = com.repobackend.api.factura.dto.FacturaResponse.class))) )
+        @ApiResponse(responseCode = "200", description = "Página de facturas",
+            content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = com.repobackend.api.factura.dto.FacturaResumen.class))) ),
+        @ApiResponse(responseCode = "400", description = "Cursor o fechas inválidos", content = @Content)
     })
     @GetMapping
-    public ResponseEntity<?> listarPorUsuario(@RequestParam(required = false) String userId, Authentication authentication) {
+    public ResponseEntity<?> listarPorUsuario(@RequestParam(required = false) String userId,
+                                              @RequestParam(required = false) String estado,
+                                              @RequestParam(required = false) String clienteId,
+                                              @RequestParam(required = false) String numero,
+                                              @RequestParam(required = false) String desde,
+                                              @RequestParam(required = false) String hasta,
+                                              @RequestParam(required = false) String cursor,
+                                              @RequestParam(defaultValue = "20") int size,
+                                              Authentication authentication) {
         // Verificar si es usuario ADMIN
         boolean isAdmin = authentication != null &&
                          authentication.getAuthorities().stream()
                              .anyMatch(auth -> auth.getAuthority().equals("ROLE_ADMIN") || auth.getAuthority().equals("ADMIN"));
+        String authName = authentication == null ? null : authentication.getName();
 
-        logger.debug("Listar facturas - isAdmin={}, userId param='{}', authName='{}'",
-                    isAdmin, userId, authentication == null ? null : authentication.getName());
-
-        // Si es ADMIN, devolver TODAS las facturas
-        if (isAdmin) {
-            List<Factura> all = facturaService.listarTodas();
-            logger.debug("Usuario ADMIN - devolviendo {} facturas totales", all.size());
-            return ResponseEntity.ok(Map.of("facturas", all));
-        }
-
-        // Usuario normal: filtrar por userId (cliente o creador)
-        if (userId == null) {
-            userId = authentication == null ? null : authentication.getName();
-        }
+        logger.debug("Listar facturas - isAdmin={}, userId param='{}', authName='{}'", isAdmin, userId, authName);
 
-        if (userId == null) {
-            logger.debug("No userId disponible en request; devolviendo lista vacía");
-            return ResponseEntity.ok(Map.of("facturas", List.of()));
+        try {
+            // Usuario normal: siempre sus propias facturas (cliente o creador), el parámetro userId solo aplica a ADMIN
+            var r = facturaConsultaService.listar(authName, isAdmin, userId, estado, clienteId, numero, desde, hasta, cursor, size);
+            return ResponseEntity.ok(r);
+        } catch (IllegalArgumentException iae) {
+            return ResponseEntity.badRequest().body(Map.of("error", iae.getMessage()));
         }
-
-        List<Factura> r = facturaService.listarPorUsuario(userId);
-        logger.debug("Facturas encontradas para userId {}: {}", userId, r == null ? 0 : r.size());
-        return ResponseEntity.ok(Map.of("facturas", r));
     }
 
 }
@@ -0,0 +1,65 @@
+package com.repobackend.api.factura.dian;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+import com.repobackend.api.common.util.Money;
+
+/**
+ * CUFE (Código Único de Factura Electrónica) según el anexo técnico DIAN de factura electrónica de venta:
+ * SHA-384 en hexadecimal minúsculas de
+ *
+ *   NumFac + FecFac + HorFac + ValFac + "01" + ValIVA + "04" + ValINC + "03" + ValICA + ValTot
+ *   + NitOFE + NumAdq + ClTec + TipoAmbiente
+ *
+ * con los valores en formato decimal de 2 posiciones. Cada campo se pasa al digest a medida que se agrega,
+ * sin armar la cadena completa.
+ */
+public final class Cufe {
+    private static final String IMP_IVA = "01";
+    private static final String IMP_INC = "04";
+    private static final String IMP_ICA = "03";
+
+    private final MessageDigest digest;
+
+    private Cufe() {
+        try {
+            this.digest = MessageDigest.getInstance("SHA-384");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-384 no disponible", ex);
+        }
+    }
+
+    /**
+     * @param fecFac   fecha de emisión yyyy-MM-dd
+     * @param horFac   hora de emisión HH:mm:ss-05:00
+     * @param valFac   valor antes de tributos en centavos (LineExtensionAmount)
+     * @param numAdq   documento del adquiriente
+     */
+    public static String calcular(String numFac, String fecFac, String horFac, long valFac, long valIva, long valInc,
+                                  long valIca, long valTot, String nitOfe, String numAdq, String claveTecnica, String ambiente) {
+        return new Cufe()
+                .campo(numFac).campo(fecFac).campo(horFac).valor(valFac)
+                .campo(IMP_IVA).valor(valIva)
+                .campo(IMP_INC).valor(valInc)
+                .campo(IMP_ICA).valor(valIca)
+                .valor(valTot)
+                .campo(nitOfe).campo(numAdq).campo(claveTecnica).campo(ambiente)
+                .hex();
+    }
+
+    private Cufe campo(String s) {
+        if (s != null) digest.update(s.getBytes(StandardCharsets.UTF_8));
+        return this;
+    }
+
+    private Cufe valor(long centavos) {
+        return campo(Money.toPlainString(centavos));
+    }
+
+    private String hex() {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
@@ -0,0 +1,8 @@
+package com.repobackend.api.factura.dian;
+
+/**
+ * Datos del facturador electrónico que intervienen en el XML, el CUFE y el QR.
+ *
+ * @param ambiente 1 = producción, 2 = pruebas (habilitación)
+ */
+public record DianEmisor(String nit, String razonSocial, String claveTecnica, String ambiente, String qrBaseUrl) {}
@@ -0,0 +1,179 @@
+package com.repobackend.api.factura.dian;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import com.repobackend.api.common.util.Money;
+import com.repobackend.api.factura.model.Factura;
+import com.repobackend.api.factura.service.FacturaCalculoService;
+
+/**
+ * Factura electrónica: CUFE y payload del QR al emitir, y XML UBL 2.1 en streaming (una factura o un lote zip).
+ *
+ * El adquiriente se reporta como consumidor final (222222222222) porque los clientes no guardan tipo ni
+ * número de documento. La firma y el envío a la DIAN quedan a cargo del proveedor tecnológico.
+ *
+ * Sin NIT o clave técnica configurados (app.dian.nit / app.dian.clave-tecnica) las facturas se emiten sin CUFE
+ * ni QR: un CUFE calculado con datos de relleno quedaría guardado para siempre y no lo valida la DIAN.
+ */
+@Service
+public class FacturaElectronicaService {
+    private static final Logger logger = LoggerFactory.getLogger(FacturaElectronicaService.class);
+    static final String CONSUMIDOR_FINAL = "222222222222";
+    private static final DateTimeFormatter FECHA = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final DateTimeFormatter HORA = DateTimeFormatter.ofPattern("HH:mm:ssXXX");
+    // catálogo de consulta del CUFE por ambiente (1 = producción, 2 = habilitación)
+    private static final String QR_PRODUCCION = "https://catalogo-vpfe.dian.gov.co/document/searchqr?documentkey=";
+    private static final String QR_HABILITACION = "https://catalogo-vpfe-hab.dian.gov.co/document/searchqr?documentkey=";
+    private static final List<String> ESTADOS_EMITIDOS = List.of("EMITIDA", "ACEPTADA", "RECHAZADA", "ANULADA");
+
+    private final MongoTemplate mongoTemplate;
+    private final FacturaCalculoService calculoService;
+    private final DianEmisor emisor;
+    private final String prefijo;
+    private final ZoneId zona;
+    private final boolean configurada;
+
+    public FacturaElectronicaService(MongoTemplate mongoTemplate,
+                                     FacturaCalculoService calculoService,
+                                     @Value("${app.dian.nit:}") String nit,
+                                     @Value("${app.dian.razon-social:Hermotos}") String razonSocial,
+                                     @Value("${app.dian.clave-tecnica:}") String claveTecnica,
+                                     @Value("${app.dian.ambiente:2}") String ambiente,
+                                     @Value("${app.dian.prefijo:}") String prefijo,
+                                     @Value("${app.dian.qr-base-url:}") String qrBaseUrl,
+                                     @Value("${app.facturas.zona:America/Bogota}") String zona) {
+        this.mongoTemplate = mongoTemplate;
+        this.calculoService = calculoService;
+        this.emisor = new DianEmisor(nit, razonSocial, claveTecnica, ambiente, qrBaseUrl(qrBaseUrl, ambiente));
+        this.prefijo = prefijo == null ? "" : prefijo.trim();
+        this.zona = ZoneId.of(zona);
+        this.configurada = nit != null && !nit.isBlank() && claveTecnica != null && !claveTecnica.isBlank();
+        if (!configurada) {
+            logger.warn("Facturación electrónica sin configurar (app.dian.nit / app.dian.clave-tecnica): las facturas se emitirán sin CUFE");
+        }
+    }
+
+    /** true si hay NIT y clave técnica para calcular el CUFE. */
+    public boolean isConfigurada() {
+        return configurada;
+    }
+
+    /**
+     * Asigna prefijo (si hay uno configurado), CUFE y QR a una factura que se está emitiendo. Llamar antes de
+     * guardar. Sin configuración DIAN solo asigna el prefijo.
+     */
+    public void sellar(Factura f) {
+        if (f.getPrefijo() == null && !prefijo.isEmpty()) f.setPrefijo(prefijo);
+        if (!configurada) {
+            logger.warn("Factura {} emitida sin CUFE: falta app.dian.nit o app.dian.clave-tecnica", numero(f));
+            return;
+        }
+        if (f.getEmitidaEn() == null) f.setEmitidaEn(new Date());
+        UblInvoiceWriter.Encabezado enc = encabezado(f);
+        f.setCufe(enc.cufe());
+        f.setQrCode(qr(f, enc));
+    }
+
+    /**
+     * XML UBL de una factura emitida, siempre con los totales guardados (nunca se recalculan en un documento
+     * legal). Las facturas anteriores a resumenIva lo arman desde los valores guardados de sus items, y las
+     * anteriores al CUFE lo reciben calculado al vuelo.
+     */
+    public void escribirXml(Factura f, OutputStream out) throws XMLStreamException {
+        var resumen = f.getResumenIva() != null ? f.getResumenIva() : calculoService.resumirIvaGuardado(f);
+        UblInvoiceWriter.write(f, resumen, encabezado(f), emisor, out);
+    }
+
+    /**
+     * Lote zip con un XML por factura emitida en [desde, hasta] (días en la zona de facturación). Las facturas
+     * se leen con un cursor y se escriben una a una, así que la memoria no depende del tamaño del lote.
+     * @return número de facturas escritas
+     */
+    public int escribirLote(LocalDate desde, LocalDate hasta, OutputStream out) throws IOException, XMLStreamException {
+        Query q = new Query(Criteria.where("estado").in(ESTADOS_EMITIDOS).and("emitidaEn")
+                .gte(Date.from(desde.atStartOfDay(zona).toInstant()))
+                .lt(Date.from(hasta.plusDays(1).atStartOfDay(zona).toInstant())))
+                .with(Sort.by(Sort.Direction.ASC, "emitidaEn"));
+        q.fields().exclude("dianResponse");
+        int n = 0;
+        long inicio = System.currentTimeMillis();
+        ZipOutputStream zip = new ZipOutputStream(out);
+        try (var stream = mongoTemplate.stream(q, Factura.class)) {
+            for (var it = stream.iterator(); it.hasNext(); ) {
+                Factura f = it.next();
+                zip.putNextEntry(new ZipEntry(numero(f) + ".xml"));
+                escribirXml(f, zip);
+                zip.closeEntry();
+                n++;
+            }
+        }
+        zip.finish();
+        logger.info("Lote XML {} a {}: {} facturas en {} ms", desde, hasta, n, System.currentTimeMillis() - inicio);
+        return n;
+    }
+
+    // URL explícita si se configuró; si no, la del catálogo que corresponde al ambiente
+    static String qrBaseUrl(String configurada, String ambiente) {
+        if (configurada != null && !configurada.isBlank()) return configurada.trim();
+        return "1".equals(ambiente == null ? null : ambiente.trim()) ? QR_PRODUCCION : QR_HABILITACION;
+    }
+
+    /** Número DIAN de la factura: prefijo + consecutivo. */
+    public static String numero(Factura f) {
+        String p = f.getPrefijo() == null ? "" : f.getPrefijo();
+        return p + (f.getNumeroFactura() == null ? f.getId() : f.getNumeroFactura());
+    }
+
+    UblInvoiceWriter.Encabezado encabezado(Factura f) {
+        if (f.getCufe() == null && !configurada) {
+            throw new IllegalStateException("Facturación electrónica sin configurar: no se puede calcular el CUFE de la factura " + numero(f));
+        }
+        Date emitida = f.getEmitidaEn() != null ? f.getEmitidaEn() : f.getCreadoEn();
+        ZonedDateTime fecha = (emitida == null ? new Date() : emitida).toInstant().atZone(zona).withNano(0);
+        String numFac = numero(f);
+        String fec = FECHA.format(fecha);
+        String hor = HORA.format(fecha);
+        String cufe = f.getCufe() != null ? f.getCufe() : Cufe.calcular(numFac, fec, hor,
+                Money.toCentavos(f.getBaseImponible()), Money.toCentavos(f.getTotalIva()), 0, 0,
+                Money.toCentavos(f.getTotal()), emisor.nit(), CONSUMIDOR_FINAL, emisor.claveTecnica(), emisor.ambiente());
+        String nombre = f.getCliente() != null && f.getCliente().getNombre() != null ? f.getCliente().getNombre() : "Consumidor final";
+        return new UblInvoiceWriter.Encabezado(numFac, fec, hor, cufe, CONSUMIDOR_FINAL, nombre);
+    }
+
+    // Texto del QR según el anexo técnico: datos principales más la URL de consulta del CUFE
+    private String qr(Factura f, UblInvoiceWriter.Encabezado enc) {
+        long iva = Money.toCentavos(f.getTotalIva());
+        long total = Money.toCentavos(f.getTotal());
+        return "NumFac: " + enc.numero() + "\n"
+                + "FecFac: " + enc.fecha() + "\n"
+                + "HorFac: " + enc.hora() + "\n"
+                + "NitFac: " + emisor.nit() + "\n"
+                + "DocAdq: " + enc.documentoAdquiriente() + "\n"
+                + "ValFac: " + Money.toPlainString(Money.toCentavos(f.getBaseImponible())) + "\n"
+                + "ValIva: " + Money.toPlainString(iva) + "\n"
+                + "ValOtroIm: 0.00\n"
+                + "ValTolFac: " + Money.toPlainString(total) + "\n"
+                + "CUFE: " + enc.cufe() + "\n"
+                + "QRCode: " + emisor.qrBaseUrl() + enc.cufe();
+    }
+}
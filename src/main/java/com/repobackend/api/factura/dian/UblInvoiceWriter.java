@@ -0,0 +1,196 @@
+package com.repobackend.api.factura.dian;
+
+import java.io.OutputStream;
+import java.util.List;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import com.repobackend.api.common.util.Money;
+import com.repobackend.api.factura.model.Factura;
+import com.repobackend.api.factura.model.FacturaItem;
+import com.repobackend.api.factura.model.ResumenIva;
+
+/**
+ * Escribe una factura como XML UBL 2.1 (perfil DIAN) con StAX directamente sobre el OutputStream: no se arma
+ * DOM ni String intermedio, la memoria usada no crece con el número de líneas y las facturas de un lote se
+ * pueden escribir una tras otra sobre el mismo stream.
+ *
+ * Genera el contenido del documento; las extensiones DIAN (ext:UBLExtensions) quedan con un ExtensionContent
+ * vacío donde el proveedor tecnológico agrega la firma XAdES y los datos de la resolución.
+ */
+public final class UblInvoiceWriter {
+    static final String NS_INVOICE = "urn:oasis:names:specification:ubl:schema:xsd:Invoice-2";
+    static final String NS_CAC = "urn:oasis:names:specification:ubl:schema:xsd:CommonAggregateComponents-2";
+    static final String NS_CBC = "urn:oasis:names:specification:ubl:schema:xsd:CommonBasicComponents-2";
+    static final String NS_EXT = "urn:oasis:names:specification:ubl:schema:xsd:CommonExtensionComponents-2";
+    private static final String MONEDA = "COP";
+    private static final String UNIDAD = "94"; // unidad (código UN/ECE rec 20)
+
+    private static final XMLOutputFactory FACTORY = XMLOutputFactory.newInstance();
+
+    private UblInvoiceWriter() {}
+
+    /**
+     * Valores de cabecera ya resueltos (los mismos que entran en el CUFE).
+     *
+     * @param fecha yyyy-MM-dd
+     * @param hora  HH:mm:ss-05:00
+     */
+    public record Encabezado(String numero, String fecha, String hora, String cufe,
+                             String documentoAdquiriente, String nombreAdquiriente) {}
+
+    /**
+     * @param resumenIva totales por tasa para cac:TaxTotal; los montos de cabecera y de línea salen tal cual de
+     *                   los valores guardados en la factura
+     */
+    public static void write(Factura f, List<ResumenIva> resumenIva, Encabezado enc, DianEmisor emisor, OutputStream out)
+            throws XMLStreamException {
+        XMLStreamWriter w = FACTORY.createXMLStreamWriter(out, "UTF-8");
+        List<FacturaItem> items = f.getItems() == null ? List.of() : f.getItems();
+
+        w.writeStartDocument("UTF-8", "1.0");
+        w.setDefaultNamespace(NS_INVOICE);
+        w.setPrefix("cac", NS_CAC);
+        w.setPrefix("cbc", NS_CBC);
+        w.setPrefix("ext", NS_EXT);
+        w.writeStartElement(NS_INVOICE, "Invoice");
+        w.writeDefaultNamespace(NS_INVOICE);
+        w.writeNamespace("cac", NS_CAC);
+        w.writeNamespace("cbc", NS_CBC);
+        w.writeNamespace("ext", NS_EXT);
+
+        w.writeStartElement(NS_EXT, "UBLExtensions");
+        w.writeStartElement(NS_EXT, "UBLExtension");
+        w.writeEmptyElement(NS_EXT, "ExtensionContent");
+        w.writeEndElement();
+        w.writeEndElement();
+
+        cbc(w, "UBLVersionID", "UBL 2.1");
+        cbc(w, "CustomizationID", "10");
+        cbc(w, "ProfileID", "DIAN 2.1: Factura Electrónica de Venta");
+        cbc(w, "ProfileExecutionID", emisor.ambiente());
+        cbc(w, "ID", enc.numero());
+        w.writeStartElement(NS_CBC, "UUID");
+        w.writeAttribute("schemeID", emisor.ambiente());
+        w.writeAttribute("schemeName", "CUFE-SHA384");
+        w.writeCharacters(enc.cufe());
+        w.writeEndElement();
+        cbc(w, "IssueDate", enc.fecha());
+        cbc(w, "IssueTime", enc.hora());
+        cbc(w, "InvoiceTypeCode", "01");
+        cbc(w, "DocumentCurrencyCode", MONEDA);
+        cbc(w, "LineCountNumeric", String.valueOf(items.size()));
+
+        parte(w, "AccountingSupplierParty", "1", emisor.razonSocial(), emisor.nit(), "31");
+        parte(w, "AccountingCustomerParty", "2", enc.nombreAdquiriente(), enc.documentoAdquiriente(), "13");
+
+        // Totales de IVA por tarifa
+        w.writeStartElement(NS_CAC, "TaxTotal");
+        monto(w, "TaxAmount", Money.toCentavos(f.getTotalIva()));
+        if (resumenIva != null) {
+            for (ResumenIva r : resumenIva) {
+                subtotalIva(w, Money.toCentavos(r.getBase()), Money.toCentavos(r.getIva()), r.getTasa());
+            }
+        }
+        w.writeEndElement();
+
+        long base = Money.toCentavos(f.getBaseImponible());
+        long total = Money.toCentavos(f.getTotal());
+        w.writeStartElement(NS_CAC, "LegalMonetaryTotal");
+        monto(w, "LineExtensionAmount", base);
+        monto(w, "TaxExclusiveAmount", base);
+        monto(w, "TaxInclusiveAmount", total);
+        monto(w, "PayableAmount", total);
+        w.writeEndElement();
+
+        int n = 0;
+        for (FacturaItem it : items) {
+            long baseLinea = Money.toCentavos(it.getBaseImponible());
+            long ivaLinea = Money.toCentavos(it.getValorIva());
+            w.writeStartElement(NS_CAC, "InvoiceLine");
+            cbc(w, "ID", String.valueOf(++n));
+            w.writeStartElement(NS_CBC, "InvoicedQuantity");
+            w.writeAttribute("unitCode", UNIDAD);
+            w.writeCharacters(String.valueOf(it.getCantidad() == null ? 0 : it.getCantidad()));
+            w.writeEndElement();
+            monto(w, "LineExtensionAmount", baseLinea);
+            w.writeStartElement(NS_CAC, "TaxTotal");
+            monto(w, "TaxAmount", ivaLinea);
+            subtotalIva(w, baseLinea, ivaLinea, it.getTasaIva());
+            w.writeEndElement();
+            w.writeStartElement(NS_CAC, "Item");
+            cbc(w, "Description", it.getNombreProducto() == null ? it.getProductoId() : it.getNombreProducto());
+            if (it.getCodigoProducto() != null) {
+                w.writeStartElement(NS_CAC, "SellersItemIdentification");
+                cbc(w, "ID", it.getCodigoProducto());
+                w.writeEndElement();
+            }
+            w.writeEndElement();
+            w.writeStartElement(NS_CAC, "Price");
+            monto(w, "PriceAmount", Money.toCentavos(it.getPrecioUnitario()));
+            w.writeStartElement(NS_CBC, "BaseQuantity");
+            w.writeAttribute("unitCode", UNIDAD);
+            w.writeCharacters("1");
+            w.writeEndElement();
+            w.writeEndElement();
+            w.writeEndElement();
+        }
+
+        w.writeEndElement();
+        w.writeEndDocument();
+        // close() no cierra el stream subyacente: el llamador puede seguir escribiendo (p. ej. la siguiente entrada del zip)
+        w.flush();
+        w.close();
+    }
+
+    private static void parte(XMLStreamWriter w, String rol, String tipoPersona, String nombre, String documento,
+                              String tipoDocumento) throws XMLStreamException {
+        w.writeStartElement(NS_CAC, rol);
+        cbc(w, "AdditionalAccountID", tipoPersona);
+        w.writeStartElement(NS_CAC, "Party");
+        w.writeStartElement(NS_CAC, "PartyTaxScheme");
+        cbc(w, "RegistrationName", nombre);
+        w.writeStartElement(NS_CBC, "CompanyID");
+        w.writeAttribute("schemeAgencyID", "195");
+        w.writeAttribute("schemeName", tipoDocumento);
+        w.writeCharacters(documento == null ? "" : documento);
+        w.writeEndElement();
+        esquemaIva(w);
+        w.writeEndElement();
+        w.writeEndElement();
+        w.writeEndElement();
+    }
+
+    private static void subtotalIva(XMLStreamWriter w, long base, long iva, Double tasa) throws XMLStreamException {
+        w.writeStartElement(NS_CAC, "TaxSubtotal");
+        monto(w, "TaxableAmount", base);
+        monto(w, "TaxAmount", iva);
+        w.writeStartElement(NS_CAC, "TaxCategory");
+        cbc(w, "Percent", Money.toPlainString(Money.toPuntosBasicos(tasa)));
+        esquemaIva(w);
+        w.writeEndElement();
+        w.writeEndElement();
+    }
+
+    private static void esquemaIva(XMLStreamWriter w) throws XMLStreamException {
+        w.writeStartElement(NS_CAC, "TaxScheme");
+        cbc(w, "ID", "01");
+        cbc(w, "Name", "IVA");
+        w.writeEndElement();
+    }
+
+    private static void monto(XMLStreamWriter w, String nombre, long centavos) throws XMLStreamException {
+        w.writeStartElement(NS_CBC, nombre);
+        w.writeAttribute("currencyID", MONEDA);
+        w.writeCharacters(Money.toPlainString(centavos));
+        w.writeEndElement();
+    }
+
+    private static void cbc(XMLStreamWriter w, String nombre, String valor) throws XMLStreamException {
+        w.writeStartElement(NS_CBC, nombre);
+        w.writeCharacters(valor == null ? "" : valor);
+        w.writeEndElement();
+    }
+}
@@ -25,6 +25,8 @@ public class FacturaResponse {
     private Double baseImponible;
     private Double totalIva;
     private Double total;
+    @Schema(description = "Base gravable e IVA agrupados por tasa")
+    private List<ResumenIvaResponse> resumenIva;
 
     private String realizadoPor;
     private String estado;
@@ -78,6 +80,9 @@ public class FacturaResponse {
     public Double getTotal() { return total; }
     public void setTotal(Double total) { this.total = total; }
 
+    public List<ResumenIvaResponse> getResumenIva() { return resumenIva; }
+    public void setResumenIva(List<ResumenIvaResponse> resumenIva) { this.resumenIva = resumenIva; }
+
     public String getRealizadoPor() { return realizadoPor; }
     public void setRealizadoPor(String realizadoPor) { this.realizadoPor = realizadoPor; }
 
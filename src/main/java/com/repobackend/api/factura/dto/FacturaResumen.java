@@ -0,0 +1,75 @@
+package com.repobackend.api.factura.dto;
+
+import java.util.Date;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(name = "FacturaResumen", description = "Fila del listado de facturas: cabecera y totales, sin items, QR ni respuesta DIAN")
+public class FacturaResumen {
+    private String id;
+    private String numeroFactura;
+    private String prefijo;
+    private String clienteId;
+    private String clienteNombre;
+    private String realizadoPor;
+    private String estado;
+    private Date creadoEn;
+    private Date emitidaEn;
+
+    private Double subtotal;
+    private Double totalDescuentos;
+    private Double baseImponible;
+    private Double totalIva;
+    private Double total;
+
+    private String cufe;
+    private String pdfUrl;
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getNumeroFactura() { return numeroFactura; }
+    public void setNumeroFactura(String numeroFactura) { this.numeroFactura = numeroFactura; }
+
+    public String getPrefijo() { return prefijo; }
+    public void setPrefijo(String prefijo) { this.prefijo = prefijo; }
+
+    public String getClienteId() { return clienteId; }
+    public void setClienteId(String clienteId) { this.clienteId = clienteId; }
+
+    public String getClienteNombre() { return clienteNombre; }
+    public void setClienteNombre(String clienteNombre) { this.clienteNombre = clienteNombre; }
+
+    public String getRealizadoPor() { return realizadoPor; }
+    public void setRealizadoPor(String realizadoPor) { this.realizadoPor = realizadoPor; }
+
+    public String getEstado() { return estado; }
+    public void setEstado(String estado) { this.estado = estado; }
+
+    public Date getCreadoEn() { return creadoEn; }
+    public void setCreadoEn(Date creadoEn) { this.creadoEn = creadoEn; }
+
+    public Date getEmitidaEn() { return emitidaEn; }
+    public void setEmitidaEn(Date emitidaEn) { this.emitidaEn = emitidaEn; }
+
+    public Double getSubtotal() { return subtotal; }
+    public void setSubtotal(Double subtotal) { this.subtotal = subtotal; }
+
+    public Double getTotalDescuentos() { return totalDescuentos; }
+    public void setTotalDescuentos(Double totalDescuentos) { this.totalDescuentos = totalDescuentos; }
+
+    public Double getBaseImponible() { return baseImponible; }
+    public void setBaseImponible(Double baseImponible) { this.baseImponible = baseImponible; }
+
+    public Double getTotalIva() { return totalIva; }
+    public void setTotalIva(Double totalIva) { this.totalIva = totalIva; }
+
+    public Double getTotal() { return total; }
+    public void setTotal(Double total) { this.total = total; }
+
+    public String getCufe() { return cufe; }
+    public void setCufe(String cufe) { this.cufe = cufe; }
+
+    public String getPdfUrl() { return pdfUrl; }
+    public void setPdfUrl(String pdfUrl) { this.pdfUrl = pdfUrl; }
+}
@@ -0,0 +1,20 @@
+package com.repobackend.api.factura.dto;
+
+public class ResumenIvaResponse {
+    private Double tasa;
+    private Double base;
+    private Double iva;
+    private Integer lineas;
+
+    public Double getTasa() { return tasa; }
+    public void setTasa(Double tasa) { this.tasa = tasa; }
+
+    public Double getBase() { return base; }
+    public void setBase(Double base) { this.base = base; }
+
+    public Double getIva() { return iva; }
+    public void setIva(Double iva) { this.iva = iva; }
+
+    public Integer getLineas() { return lineas; }
+    public void setLineas(Integer lineas) { this.lineas = lineas; }
+}
@@ -0,0 +1,20 @@
+package com.repobackend.api.factura.event;
+
+import org.springframework.context.ApplicationEvent;
+
+import com.repobackend.api.factura.model.Factura;
+
+/**
+ * Una factura quedó emitida (crearYEmitir, emitirBorrador, checkout) o fue anulada.
+ * Lleva la factura ya guardada para que los consumidores no la vuelvan a leer.
+ */
+public class FacturaEstadoEvent extends ApplicationEvent {
+    public final Factura factura;
+    public final boolean anulada;
+
+    public FacturaEstadoEvent(Object source, Factura factura, boolean anulada) {
+        super(source);
+        this.factura = factura;
+        this.anulada = anulada;
+    }
+}
@@ -29,6 +29,7 @@ public class Factura {
     private Double baseImponible; // subtotal - descuentos
     private Double totalIva; // suma de IVA de todos los items
     private Double total; // baseImponible + totalIva
+    private List<ResumenIva> resumenIva; // base e IVA agrupados por tasa, ordenado por tasa
 
     private ObjectId realizadoPor; // user id stored as ObjectId or null
     private String estado; // BORRADOR, EMITIDA, ACEPTADA, RECHAZADA, ANULADA
@@ -84,6 +85,9 @@ public class Factura {
     public Double getTotal() { return total; }
     public void setTotal(Double total) { this.total = total; }
 
+    public List<ResumenIva> getResumenIva() { return resumenIva; }
+    public void setResumenIva(List<ResumenIva> resumenIva) { this.resumenIva = resumenIva; }
+
     public ObjectId getRealizadoPor() { return realizadoPor; }
     public void setRealizadoPor(ObjectId realizadoPor) { this.realizadoPor = realizadoPor; }
 
@@ -12,6 +12,8 @@ public class FacturaItem {
     private Double valorIva; // valor calculado del IVA
     private Double subtotal; // cantidad * precioUnitario - descuento
     private Double totalItem; // subtotal + valorIva
+    private String tallerId; // snapshot del taller del producto (analítica)
+    private String categoriaId; // snapshot de la categoría del producto (analítica)
 
     public String getProductoId() { return productoId; }
     public void setProductoId(String productoId) { this.productoId = productoId; }
@@ -45,4 +47,10 @@ public class FacturaItem {
 
     public Double getTotalItem() { return totalItem; }
     public void setTotalItem(Double totalItem) { this.totalItem = totalItem; }
+
+    public String getTallerId() { return tallerId; }
+    public void setTallerId(String tallerId) { this.tallerId = tallerId; }
+
+    public String getCategoriaId() { return categoriaId; }
+    public void setCategoriaId(String categoriaId) { this.categoriaId = categoriaId; }
 }
@@ -0,0 +1,30 @@
+package com.repobackend.api.factura.model;
+
+/** Base gravable, IVA y número de líneas de una factura para una tasa (0, 5, 19...). */
+public class ResumenIva {
+    private Double tasa; // porcentaje
+    private Double base;
+    private Double iva;
+    private Integer lineas;
+
+    public ResumenIva() {}
+
+    public ResumenIva(Double tasa, Double base, Double iva, Integer lineas) {
+        this.tasa = tasa;
+        this.base = base;
+        this.iva = iva;
+        this.lineas = lineas;
+    }
+
+    public Double getTasa() { return tasa; }
+    public void setTasa(Double tasa) { this.tasa = tasa; }
+
+    public Double getBase() { return base; }
+    public void setBase(Double base) { this.base = base; }
+
+    public Double getIva() { return iva; }
+    public void setIva(Double iva) { this.iva = iva; }
+
+    public Integer getLineas() { return lineas; }
+    public void setLineas(Integer lineas) { this.lineas = lineas; }
+}
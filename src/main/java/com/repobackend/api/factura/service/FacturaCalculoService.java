@@ -1,82 +1,109 @@
 package com.repobackend.api.factura.service;
 
+import com.repobackend.api.common.util.Money;
 import com.repobackend.api.factura.model.Factura;
 import com.repobackend.api.factura.model.FacturaItem;
+import com.repobackend.api.factura.model.ResumenIva;
 import com.repobackend.api.producto.model.Producto;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * Servicio para cálculos tributarios de facturas.
  * Centraliza toda la lógica de IVA, descuentos y totales para DIAN.
+ *
+ * Los cálculos se hacen en centavos (long) con Money: cada línea se redondea half-up al centavo una sola vez
+ * (el IVA de la línea) y los totales son la suma exacta de las líneas, así que la factura siempre cuadra con
+ * sus items sin tolerancias. Los Double del modelo solo se leen y escriben en los bordes.
  */
 @Service
 public class FacturaCalculoService {
 
     /**
-     * Calcula y establece todos los totales tributarios de una factura.
-     * Recalcula desde los items para asegurar consistencia.
+     * Calcula y establece los totales tributarios de una factura en una sola pasada por los items, solo con
+     * acumuladores long. No arma el resumen por tasa (resumenIva): para facturas que se guardan usar
+     * calcularTotalesConResumen.
      */
     public void calcularTotales(Factura factura) {
-        if (factura.getItems() == null || factura.getItems().isEmpty()) {
-            factura.setSubtotal(0.0);
-            factura.setTotalDescuentos(0.0);
-            factura.setBaseImponible(0.0);
-            factura.setTotalIva(0.0);
-            factura.setTotal(0.0);
-            return;
+        long bruto = 0;
+        long descuentos = 0;
+        long iva = 0;
+        if (factura.getItems() != null) {
+            // las líneas repiten pocas tasas (0, 5, 19): se convierte a puntos básicos solo cuando cambia
+            double tasaAnterior = 0;
+            long tasa = 0;
+            for (FacturaItem item : factura.getItems()) {
+                long cantidad = nvl(item.getCantidad(), 0);
+                long precio = Money.toCentavos(item.getPrecioUnitario());
+                long descuento = Money.toCentavos(item.getDescuento());
+                long brutoItem = Math.multiplyExact(cantidad, precio);
+                double tasaItem = nvl(item.getTasaIva());
+                if (tasaItem != tasaAnterior) {
+                    tasa = Money.toPuntosBasicos(tasaItem);
+                    tasaAnterior = tasaItem;
+                }
+                long ivaItem = escribirItem(item, brutoItem, descuento, tasa);
+                bruto += brutoItem;
+                descuentos += descuento;
+                iva += ivaItem;
+            }
         }
 
-        double subtotal = 0.0;
-        double totalDescuentos = 0.0;
-        double totalIva = 0.0;
-
-        for (FacturaItem item : factura.getItems()) {
-            calcularItem(item);
-            subtotal += nvl(item.getSubtotal());
-            totalDescuentos += nvl(item.getDescuento());
-            totalIva += nvl(item.getValorIva());
-        }
-
-        double baseImponible = subtotal - totalDescuentos;
-        double total = baseImponible + totalIva;
+        long baseImponible = bruto - descuentos;
+        // subtotal = valor bruto de las líneas; baseImponible = subtotal - descuentos = suma de las bases por item
+        factura.setSubtotal(Money.toDouble(bruto));
+        factura.setTotalDescuentos(Money.toDouble(descuentos));
+        factura.setBaseImponible(Money.toDouble(baseImponible));
+        factura.setTotalIva(Money.toDouble(iva));
+        factura.setTotal(Money.toDouble(baseImponible + iva));
+    }
 
-        factura.setSubtotal(subtotal);
-        factura.setTotalDescuentos(totalDescuentos);
-        factura.setBaseImponible(baseImponible);
-        factura.setTotalIva(totalIva);
-        factura.setTotal(total);
+    /**
+     * calcularTotales más el resumen por tasa, armado en una segunda pasada desde los valores recién escritos
+     * en los items (base e IVA por línea se guardan exactos en centavos, así que coincide con los totales).
+     */
+    public void calcularTotalesConResumen(Factura factura) {
+        calcularTotales(factura);
+        factura.setResumenIva(resumirIvaGuardado(factura));
     }
 
     /**
      * Calcula los valores de un item individual (subtotal, IVA, total).
      */
     public void calcularItem(FacturaItem item) {
-        int cantidad = nvl(item.getCantidad(), 0);
-        double precioUnitario = nvl(item.getPrecioUnitario());
-        double descuento = nvl(item.getDescuento());
-        double tasaIva = nvl(item.getTasaIva());
-
-        // Subtotal antes de descuento
-        double subtotalBruto = cantidad * precioUnitario;
-
-        // Aplicar descuento
-        double subtotal = subtotalBruto - descuento;
-
-        // Base imponible (igual al subtotal en este modelo simple)
-        double baseImponible = subtotal;
-
-        // Calcular IVA
-        double valorIva = baseImponible * (tasaIva / 100.0);
+        long brutoItem = Math.multiplyExact((long) nvl(item.getCantidad(), 0), Money.toCentavos(item.getPrecioUnitario()));
+        escribirItem(item, brutoItem, Money.toCentavos(item.getDescuento()), Money.toPuntosBasicos(item.getTasaIva()));
+    }
 
-        // Total del item
-        double totalItem = baseImponible + valorIva;
+    // subtotal = base imponible = bruto - descuento; IVA redondeado half-up al centavo. Devuelve el IVA en centavos.
+    private long escribirItem(FacturaItem item, long brutoCentavos, long descuentoCentavos, long tasaPuntosBasicos) {
+        long base = brutoCentavos - descuentoCentavos;
+        long valorIva = Money.aplicarTasa(base, tasaPuntosBasicos);
+        // subtotal y baseImponible comparten el mismo Double: una caja menos por línea
+        Double baseDouble = Money.toDouble(base);
+        item.setSubtotal(baseDouble);
+        item.setBaseImponible(baseDouble);
+        item.setValorIva(Money.toDouble(valorIva));
+        item.setTotalItem(Money.toDouble(base + valorIva));
+        return valorIva;
+    }
 
-        item.setSubtotal(subtotal);
-        item.setBaseImponible(baseImponible);
-        item.setValorIva(valorIva);
-        item.setTotalItem(totalItem);
+    /**
+     * Resumen por tasa a partir de la base e IVA ya guardados en cada item, sin recalcular nada. Para facturas
+     * emitidas antes de existir resumenIva: sus valores son los del documento impreso y no deben cambiar.
+     */
+    public List<ResumenIva> resumirIvaGuardado(Factura factura) {
+        AcumuladorIva porTasa = new AcumuladorIva();
+        if (factura.getItems() != null) {
+            for (FacturaItem item : factura.getItems()) {
+                porTasa.agregar(Money.toPuntosBasicos(item.getTasaIva()), Money.toCentavos(item.getBaseImponible()),
+                        Money.toCentavos(item.getValorIva()));
+            }
+        }
+        return porTasa.toList();
     }
 
     /**
@@ -91,6 +118,8 @@ public class FacturaCalculoService {
         item.setProductoId(producto.getId());
         item.setNombreProducto(producto.getNombre());
         item.setCodigoProducto(producto.getIdString()); // usar idString como código
+        item.setTallerId(producto.getTallerId());
+        item.setCategoriaId(producto.getCategoriaId());
         item.setCantidad(cantidad);
         item.setPrecioUnitario(nvl(producto.getPrecio()));
         item.setDescuento(nvl(descuentoOpcional));
@@ -101,20 +130,70 @@ public class FacturaCalculoService {
     }
 
     /**
-     * Valida que el total proporcionado coincida con el calculado (tolerancia de 0.01).
+     * Valida que el total proporcionado coincida al centavo con el calculado.
      */
     public void validarTotal(Factura factura, Double totalProporcionado) {
         if (totalProporcionado == null) return;
         calcularTotales(factura);
-        double calculado = nvl(factura.getTotal());
-        if (Math.abs(totalProporcionado - calculado) > 0.01) {
+        long calculado = Money.toCentavos(factura.getTotal());
+        if (Money.toCentavos(totalProporcionado) != calculado) {
             throw new IllegalArgumentException(
                 String.format("Total proporcionado (%.2f) no coincide con total calculado (%.2f)",
-                    totalProporcionado, calculado)
+                    totalProporcionado, Money.toDouble(calculado))
             );
         }
     }
 
+    /**
+     * Base, IVA y líneas por tasa en arreglos paralelos ordenados por tasa. Una factura trae pocas tasas
+     * distintas (0, 5, 19), así que la búsqueda lineal en un arreglo de primitivos gana a un mapa y no
+     * asigna nada por línea.
+     */
+    static final class AcumuladorIva {
+        private long[] tasas = new long[4];
+        private long[] bases = new long[4];
+        private long[] ivas = new long[4];
+        private int[] lineas = new int[4];
+        private int n;
+
+        void agregar(long tasa, long base, long iva) {
+            int i = 0;
+            while (i < n && tasas[i] < tasa) i++;
+            if (i == n || tasas[i] != tasa) {
+                if (n == tasas.length) crecer();
+                // insertar en orden
+                System.arraycopy(tasas, i, tasas, i + 1, n - i);
+                System.arraycopy(bases, i, bases, i + 1, n - i);
+                System.arraycopy(ivas, i, ivas, i + 1, n - i);
+                System.arraycopy(lineas, i, lineas, i + 1, n - i);
+                tasas[i] = tasa;
+                bases[i] = 0;
+                ivas[i] = 0;
+                lineas[i] = 0;
+                n++;
+            }
+            bases[i] += base;
+            ivas[i] += iva;
+            lineas[i]++;
+        }
+
+        private void crecer() {
+            int cap = tasas.length * 2;
+            tasas = Arrays.copyOf(tasas, cap);
+            bases = Arrays.copyOf(bases, cap);
+            ivas = Arrays.copyOf(ivas, cap);
+            lineas = Arrays.copyOf(lineas, cap);
+        }
+
+        List<ResumenIva> toList() {
+            List<ResumenIva> out = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                out.add(new ResumenIva(tasas[i] / 100.0, Money.toDouble(bases[i]), Money.toDouble(ivas[i]), lineas[i]));
+            }
+            return out;
+        }
+    }
+
     private double nvl(Double val) {
         return val == null ? 0.0 : val;
     }
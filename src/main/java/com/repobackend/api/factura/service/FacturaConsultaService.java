@@ -0,0 +1,174 @@
+package com.repobackend.api.factura.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import com.repobackend.api.factura.dto.FacturaResumen;
+import com.repobackend.api.factura.model.Factura;
+
+/**
+ * Listado de facturas paginado por keyset sobre (creadoEn desc, _id desc).
+ *
+ * Cada página lee size+1 documentos con proyección de cabecera y totales (sin items, qrCode ni dianResponse),
+ * así que el costo depende del tamaño de página y no del histórico. Los usuarios que no son ADMIN ven las
+ * facturas donde son cliente o que realizaron: el $or se resuelve con los índices (clienteId, creadoEn) y
+ * (realizadoPor, creadoEn) sin ordenar en memoria.
+ */
+@Service
+public class FacturaConsultaService {
+    private static final int MAX_SIZE = 100;
+
+    private final MongoTemplate mongoTemplate;
+    private final ZoneId zona;
+
+    public FacturaConsultaService(MongoTemplate mongoTemplate, @Value("${app.facturas.zona:America/Bogota}") String zona) {
+        this.mongoTemplate = mongoTemplate;
+        this.zona = ZoneId.of(zona);
+    }
+
+    /**
+     * @param usuarioId        solo ADMIN: facturas de ese usuario (como cliente o vendedor); el resto ve siempre las propias
+     * @param numeroPrefijo    prefijo de numeroFactura
+     * @param desde            día inicial (yyyy-MM-dd) sobre creadoEn
+     * @param hasta            día final inclusive (yyyy-MM-dd)
+     * @param cursor           nextCursor de la página anterior, o null para la primera
+     * @throws IllegalArgumentException si el cursor o las fechas no son válidos
+     */
+    public Map<String, Object> listar(String userId, boolean admin, String usuarioId, String estado, String clienteId,
+                                      String numeroPrefijo, String desde, String hasta, String cursor, int size) {
+        if (size <= 0) size = 20;
+        if (size > MAX_SIZE) size = MAX_SIZE;
+
+        List<Criteria> filtros = new ArrayList<>();
+        String propietario = admin ? usuarioId : userId;
+        if (!admin && propietario == null) return pagina(List.of(), size, null);
+        if (propietario != null && !propietario.isBlank()) filtros.add(visibles(propietario));
+        if (estado != null && !estado.isBlank()) filtros.add(Criteria.where("estado").is(estado.trim().toUpperCase()));
+        if (clienteId != null && !clienteId.isBlank()) filtros.add(Criteria.where("clienteId").is(clienteId));
+        if (numeroPrefijo != null && !numeroPrefijo.isBlank()) {
+            // prefijo anclado y literal: el índice sobre numeroFactura acota el rango
+            filtros.add(Criteria.where("numeroFactura").regex("^" + escaparRegex(numeroPrefijo.trim())));
+        }
+        Date d = inicioDelDia(desde, 0);
+        Date h = inicioDelDia(hasta, 1);
+        if (d != null || h != null) {
+            Criteria rango = Criteria.where("creadoEn");
+            if (d != null) rango = rango.gte(d);
+            if (h != null) rango = rango.lt(h);
+            filtros.add(rango);
+        }
+        if (cursor != null && !cursor.isBlank()) {
+            Cursor c = Cursor.decode(cursor);
+            Date fecha = new Date(c.creadoEn());
+            filtros.add(new Criteria().orOperator(
+                    Criteria.where("creadoEn").lt(fecha),
+                    Criteria.where("creadoEn").is(fecha).and("_id").lt(new ObjectId(c.id()))));
+        }
+
+        Query q = filtros.isEmpty() ? new Query() : new Query(new Criteria().andOperator(filtros.toArray(new Criteria[0])));
+        q.with(Sort.by(Sort.Direction.DESC, "creadoEn", "_id")).limit(size + 1);
+        q.fields().include("_id").include("numeroFactura").include("prefijo").include("clienteId").include("cliente.nombre")
+                .include("realizadoPor").include("estado").include("creadoEn").include("emitidaEn")
+                .include("subtotal").include("totalDescuentos").include("baseImponible").include("totalIva").include("total")
+                .include("cufe").include("pdfUrl");
+        List<Factura> rows = mongoTemplate.find(q, Factura.class);
+
+        String next = null;
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            Factura ultima = rows.get(size - 1);
+            next = new Cursor(ultima.getCreadoEn() == null ? 0 : ultima.getCreadoEn().getTime(), ultima.getId()).encode();
+        }
+        return pagina(rows.stream().map(FacturaConsultaService::toResumen).toList(), size, next);
+    }
+
+    private static Criteria visibles(String usuarioId) {
+        if (!ObjectId.isValid(usuarioId)) return Criteria.where("clienteId").is(usuarioId);
+        return new Criteria().orOperator(
+                Criteria.where("clienteId").is(usuarioId),
+                Criteria.where("realizadoPor").is(new ObjectId(usuarioId)));
+    }
+
+    private Date inicioDelDia(String dia, int masDias) {
+        if (dia == null || dia.isBlank()) return null;
+        try {
+            return Date.from(LocalDate.parse(dia.trim()).plusDays(masDias).atStartOfDay(zona).toInstant());
+        } catch (DateTimeParseException ex) {
+            throw new IllegalArgumentException("Fecha inválida '" + dia + "', use el formato yyyy-MM-dd");
+        }
+    }
+
+    private static Map<String, Object> pagina(List<FacturaResumen> facturas, int size, String next) {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("facturas", facturas);
+        out.put("size", size);
+        out.put("nextCursor", next);
+        return out;
+    }
+
+    static String escaparRegex(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 8);
+        for (char ch : s.toCharArray()) {
+            if ("\\^$.|?*+()[]{}".indexOf(ch) >= 0) sb.append('\\');
+            sb.append(ch);
+        }
+        return sb.toString();
+    }
+
+    private static FacturaResumen toResumen(Factura f) {
+        FacturaResumen r = new FacturaResumen();
+        r.setId(f.getId());
+        r.setNumeroFactura(f.getNumeroFactura());
+        r.setPrefijo(f.getPrefijo());
+        r.setClienteId(f.getClienteId());
+        r.setClienteNombre(f.getCliente() == null ? null : f.getCliente().getNombre());
+        r.setRealizadoPor(f.getRealizadoPor() == null ? null : f.getRealizadoPor().toHexString());
+        r.setEstado(f.getEstado());
+        r.setCreadoEn(f.getCreadoEn());
+        r.setEmitidaEn(f.getEmitidaEn());
+        r.setSubtotal(f.getSubtotal());
+        r.setTotalDescuentos(f.getTotalDescuentos());
+        r.setBaseImponible(f.getBaseImponible());
+        r.setTotalIva(f.getTotalIva());
+        r.setTotal(f.getTotal());
+        r.setCufe(f.getCufe());
+        r.setPdfUrl(f.getPdfUrl());
+        return r;
+    }
+
+    /** Posición en el orden (creadoEn desc, _id desc); se serializa como base64url opaco. */
+    record Cursor(long creadoEn, String id) {
+        String encode() {
+            String raw = creadoEn + ":" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String s) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(s.trim()), StandardCharsets.UTF_8);
+                int sep = raw.indexOf(':');
+                String id = raw.substring(sep + 1);
+                if (sep <= 0 || !ObjectId.isValid(id)) throw new IllegalArgumentException();
+                return new Cursor(Long.parseLong(raw.substring(0, sep)), id);
+            } catch (IllegalArgumentException ex) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+        }
+    }
+}
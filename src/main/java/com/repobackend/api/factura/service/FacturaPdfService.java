@@ -2,6 +2,7 @@ package com.repobackend.api.factura.service;
 
 import com.repobackend.api.factura.model.Factura;
 import com.repobackend.api.factura.model.FacturaItem;
+import com.repobackend.api.factura.model.ResumenIva;
 import org.springframework.stereotype.Service;
 import org.thymeleaf.context.Context;
 import org.thymeleaf.spring6.SpringTemplateEngine;
@@ -38,7 +39,8 @@ public class FacturaPdfService {
                 Map.entry("base", fmt(f.getBaseImponible())),
                 Map.entry("iva", fmt(f.getTotalIva())),
                 Map.entry("total", fmt(f.getTotal())),
-                Map.entry("items", mapItems(f))
+                Map.entry("items", mapItems(f)),
+                Map.entry("resumenIva", mapResumenIva(f))
             ));
 
             String html = templateEngine.process("factura", ctx);
@@ -88,6 +90,22 @@ public class FacturaPdfService {
         return list;
     }
 
+    // usa el resumen persistido; facturas anteriores a resumenIva no muestran la tabla
+    private List<Map<String, Object>> mapResumenIva(Factura f) {
+        java.util.ArrayList<Map<String, Object>> list = new java.util.ArrayList<>();
+        if (f.getResumenIva() != null) {
+            for (ResumenIva r : f.getResumenIva()) {
+                list.add(Map.of(
+                    "tasa", fmt(r.getTasa()),
+                    "base", fmt(r.getBase()),
+                    "iva", fmt(r.getIva()),
+                    "lineas", r.getLineas() == null ? 0 : r.getLineas()
+                ));
+            }
+        }
+        return list;
+    }
+
     private Map<String, Object> mapCliente(Factura f) {
         if (f.getCliente() == null) {
             // Cliente vacío con valores por defecto
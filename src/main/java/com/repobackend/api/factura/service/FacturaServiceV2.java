@@ -6,7 +6,9 @@ import com.repobackend.api.carrito.model.Carrito;
 import com.repobackend.api.carrito.service.CarritoService;
 import com.repobackend.api.common.service.SequenceGeneratorService;
 import com.repobackend.api.factura.dto.FacturaRequest;
+import com.repobackend.api.factura.dian.FacturaElectronicaService;
 import com.repobackend.api.factura.dto.FacturaResponse;
+import com.repobackend.api.factura.event.FacturaEstadoEvent;
 import com.repobackend.api.factura.model.Factura;
 import com.repobackend.api.factura.model.FacturaItem;
 import com.repobackend.api.factura.repository.FacturaRepository;
@@ -19,6 +21,7 @@ import com.repobackend.api.auth.repository.UserRepository;
 import org.bson.types.ObjectId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -42,6 +45,8 @@ public class FacturaServiceV2 {
     private final ProductoService productoService;
     private final StockService stockService;
     private final FacturaCalculoService calculoService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final FacturaElectronicaService facturaElectronicaService;
 
     public FacturaServiceV2(
         FacturaRepository facturaRepository,
@@ -50,7 +55,9 @@ public class FacturaServiceV2 {
         CarritoService carritoService,
         ProductoService productoService,
         StockService stockService,
-        FacturaCalculoService calculoService
+        FacturaCalculoService calculoService,
+        ApplicationEventPublisher eventPublisher,
+        FacturaElectronicaService facturaElectronicaService
     ) {
         this.facturaRepository = facturaRepository;
         this.userRepository = userRepository;
@@ -59,6 +66,8 @@ public class FacturaServiceV2 {
         this.productoService = productoService;
         this.stockService = stockService;
         this.calculoService = calculoService;
+        this.eventPublisher = eventPublisher;
+        this.facturaElectronicaService = facturaElectronicaService;
     }
 
     /**
@@ -89,9 +98,12 @@ public class FacturaServiceV2 {
         // Marcar como emitida
         factura.setEstado("EMITIDA");
         factura.setEmitidaEn(new Date());
+        // CUFE y QR con los totales y la fecha de emisión definitivos
+        facturaElectronicaService.sellar(factura);
 
         Factura saved = facturaRepository.save(factura);
         logger.info("Factura EMITIDA creada y stock descontado: {}", saved.getId());
+        publicarEstado(saved, false);
         return toResponse(saved);
     }
 
@@ -113,9 +125,12 @@ public class FacturaServiceV2 {
 
         factura.setEstado("EMITIDA");
         factura.setEmitidaEn(new Date());
+        // CUFE y QR con los totales y la fecha de emisión definitivos
+        facturaElectronicaService.sellar(factura);
 
         Factura saved = facturaRepository.save(factura);
         logger.info("Factura borrador {} emitida y stock descontado", facturaId);
+        publicarEstado(saved, false);
         return toResponse(saved);
     }
 
@@ -154,26 +169,26 @@ public class FacturaServiceV2 {
             if (qty > 0) cantidadesPorProducto.merge(pid, qty, Integer::sum);
         }
 
+        Map<String, Producto> productos = cargarProductos(cantidadesPorProducto.keySet());
         List<FacturaItem> items = new ArrayList<>();
         for (Map.Entry<String, Integer> entry : cantidadesPorProducto.entrySet()) {
-            String productoId = entry.getKey();
+            Producto producto = productos.get(entry.getKey());
             int cantidad = entry.getValue();
 
-            Producto producto = productoService.getById(productoId)
-                .orElseThrow(() -> new IllegalArgumentException("Producto no encontrado: " + productoId));
-
             FacturaItem item = calculoService.construirItemDesdeProducto(producto, cantidad, null);
             items.add(item);
         }
 
         factura.setItems(items);
-        calculoService.calcularTotales(factura);
+        calculoService.calcularTotalesConResumen(factura);
 
         // DESCONTAR STOCK
         descontarStockFactura(factura, usuarioIdHex);
 
         factura.setEstado("EMITIDA");
         factura.setEmitidaEn(new Date());
+        // CUFE y QR con los totales y la fecha de emisión definitivos
+        facturaElectronicaService.sellar(factura);
         factura.setCreadoEn(new Date());
         if (usuarioIdHex != null) {
             try {
@@ -187,6 +202,7 @@ public class FacturaServiceV2 {
         carritoService.clear(carritoId);
 
         logger.info("Checkout completado - Factura {} emitida desde carrito {}", saved.getId(), carritoId);
+        publicarEstado(saved, false);
         return toResponse(saved);
     }
 
@@ -208,6 +224,7 @@ public class FacturaServiceV2 {
 
         Factura saved = facturaRepository.save(factura);
         logger.warn("Factura {} ANULADA - Motivo: {}", facturaId, motivo);
+        publicarEstado(saved, true);
         return toResponse(saved);
     }
 
@@ -237,25 +254,17 @@ public class FacturaServiceV2 {
         return facturaRepository.findByNumeroFactura(numero);
     }
 
-    public List<Factura> listarPorUsuario(String userId) {
+    // ========== MÉTODOS PRIVADOS AUXILIARES ==========
+
+    private void publicarEstado(Factura factura, boolean anulada) {
         try {
-            ObjectId oid = new ObjectId(userId);
-            // Buscar facturas donde el usuario es el cliente O quien la realizó
-            // Esto permite que:
-            // - Next.js muestre facturas creadas por vendedores Android para ese cliente
-            // - Android muestre facturas que el vendedor creó
-            return facturaRepository.findByClienteIdOrRealizadoPor(userId, oid);
-        } catch (IllegalArgumentException iae) {
-            return List.of();
+            eventPublisher.publishEvent(new FacturaEstadoEvent(this, factura, anulada));
+        } catch (Exception ex) {
+            // la analítica no debe impedir la emisión/anulación
+            logger.warn("No se pudo publicar el cambio de estado de la factura {}: {}", factura.getId(), ex.getMessage());
         }
     }
 
-    public List<Factura> listarTodas() {
-        return facturaRepository.findAll();
-    }
-
-    // ========== MÉTODOS PRIVADOS AUXILIARES ==========
-
     private Factura construirFacturaDesdeRequest(FacturaRequest req, String realizadoPorHex) {
         if (req.getItems() == null || req.getItems().isEmpty()) {
             throw new IllegalArgumentException("La factura debe tener al menos un item");
@@ -290,25 +299,27 @@ public class FacturaServiceV2 {
         }
 
         // Construir items desde productos (IGNORANDO precios del cliente)
-        List<FacturaItem> items = new ArrayList<>();
+        Set<String> productoIds = new LinkedHashSet<>();
         for (var reqItem : req.getItems()) {
-            String productoId = reqItem.getProductoId();
             int cantidad = reqItem.getCantidad() == null ? 0 : reqItem.getCantidad();
-
             if (cantidad <= 0) {
-                throw new IllegalArgumentException("Cantidad inválida para producto " + productoId);
+                throw new IllegalArgumentException("Cantidad inválida para producto " + reqItem.getProductoId());
             }
+            productoIds.add(reqItem.getProductoId());
+        }
+        Map<String, Producto> productos = cargarProductos(productoIds);
 
-            Producto producto = productoService.getById(productoId)
-                .orElseThrow(() -> new IllegalArgumentException("Producto no encontrado: " + productoId));
+        List<FacturaItem> items = new ArrayList<>();
+        for (var reqItem : req.getItems()) {
+            Producto producto = productos.get(reqItem.getProductoId());
 
             // Usar precio del PRODUCTO (no del request)
-            FacturaItem item = calculoService.construirItemDesdeProducto(producto, cantidad, null);
+            FacturaItem item = calculoService.construirItemDesdeProducto(producto, reqItem.getCantidad(), null);
             items.add(item);
         }
 
         factura.setItems(items);
-        calculoService.calcularTotales(factura);
+        calculoService.calcularTotalesConResumen(factura);
 
         // Validar total si el cliente lo envió
         if (req.getTotal() != null) {
@@ -326,6 +337,20 @@ public class FacturaServiceV2 {
         return factura;
     }
 
+    /**
+     * Carga todos los productos referenciados con un solo findAllById.
+     * Lanza IllegalArgumentException con el primer id que no exista.
+     */
+    private Map<String, Producto> cargarProductos(Collection<String> productoIds) {
+        Map<String, Producto> productos = productoService.getByIds(productoIds);
+        for (String productoId : productoIds) {
+            if (!productos.containsKey(productoId)) {
+                throw new IllegalArgumentException("Producto no encontrado: " + productoId);
+            }
+        }
+        return productos;
+    }
+
     /**
      * DESCUENTA STOCK de forma atómica con fallback inteligente:
      * 1. Si hay stock por almacén → descuenta de almacenes
@@ -339,13 +364,16 @@ public class FacturaServiceV2 {
             cantidadesPorProducto.merge(item.getProductoId(), item.getCantidad(), Integer::sum);
         }
 
+        // Filas de stock de todos los productos en una sola consulta
+        var stockPorProducto = stockService.getStockByProductos(cantidadesPorProducto.keySet());
+
         // Descontar de almacenes o fallback a producto.stock
         for (Map.Entry<String, Integer> entry : cantidadesPorProducto.entrySet()) {
             String productoId = entry.getKey();
             int cantidadTotal = entry.getValue();
 
             // Obtener stock por almacén
-            var stockRows = stockService.getStockByProducto(productoId);
+            var stockRows = stockPorProducto.getOrDefault(productoId, List.of());
 
             if (stockRows.isEmpty()) {
                 // FALLBACK: No hay almacenes configurados → usar producto.stock directamente
@@ -463,6 +491,18 @@ public class FacturaServiceV2 {
         r.setBaseImponible(f.getBaseImponible());
         r.setTotalIva(f.getTotalIva());
         r.setTotal(f.getTotal());
+        if (f.getResumenIva() != null) {
+            List<com.repobackend.api.factura.dto.ResumenIvaResponse> resumen = new ArrayList<>();
+            for (var ri : f.getResumenIva()) {
+                com.repobackend.api.factura.dto.ResumenIvaResponse rr = new com.repobackend.api.factura.dto.ResumenIvaResponse();
+                rr.setTasa(ri.getTasa());
+                rr.setBase(ri.getBase());
+                rr.setIva(ri.getIva());
+                rr.setLineas(ri.getLineas());
+                resumen.add(rr);
+            }
+            r.setResumenIva(resumen);
+        }
         r.setRealizadoPor(f.getRealizadoPor() == null ? null : f.getRealizadoPor().toHexString());
         r.setEstado(f.getEstado());
         r.setCreadoEn(f.getCreadoEn());
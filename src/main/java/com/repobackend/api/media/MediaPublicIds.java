@@ -0,0 +1,41 @@
+package com.repobackend.api.media;
+
+import java.util.Map;
+
+/**
+ * Utilidad para obtener el publicId de Cloudinary de un medio guardado en listaMedios.
+ * Usa el campo publicId si existe; si no, lo extrae de secure_url o url (quitando el prefijo de versión v123/).
+ */
+public final class MediaPublicIds {
+    private MediaPublicIds() {}
+
+    public static String extract(Map<String, Object> media) {
+        if (media == null) return null;
+        Object pub = media.get("publicId");
+        if (pub instanceof String && !((String) pub).isBlank()) return ((String) pub).trim();
+
+        Object su = media.get("secure_url");
+        Object uo = media.get("url");
+        String u = su != null ? su.toString() : (uo != null ? uo.toString() : null);
+        if (u == null || u.isBlank()) return null;
+        String marker = "/image/upload/";
+        int pos = u.indexOf(marker);
+        if (pos < 0) {
+            marker = "/upload/";
+            pos = u.indexOf(marker);
+        }
+        if (pos < 0) return null;
+        String after = u.substring(pos + marker.length()).replaceFirst("^v\\d+/", "");
+        return after.isBlank() ? null : after;
+    }
+
+    /**
+     * Cloudinary identifica los recursos por el publicId sin extensión (formato preferido).
+     */
+    public static String withoutExtension(String publicId) {
+        if (publicId == null) return null;
+        int dot = publicId.lastIndexOf('.');
+        int slash = publicId.lastIndexOf('/');
+        return dot > slash ? publicId.substring(0, dot) : publicId;
+    }
+}
@@ -0,0 +1,55 @@
+package com.repobackend.api.media.model;
+
+import java.util.Date;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Tarea pendiente de borrado de un recurso en Cloudinary.
+ * Se encola al eliminar productos/categorías y la procesa MediaGarbageCollector en segundo plano.
+ */
+@Document(collection = "media_gc_queue")
+public class MediaDeletionTask {
+    public static final String ESTADO_PENDIENTE = "PENDIENTE";
+    public static final String ESTADO_FALLIDA = "FALLIDA";
+
+    @Id
+    private String id;
+    private String publicId;            // sin extensión (formato preferido por Cloudinary)
+    private String publicIdConExtension; // alternativa si el recurso se subió con extensión en el publicId
+    private String origen;              // "producto" | "categoria"
+    private String origenId;
+    private String estado = ESTADO_PENDIENTE;
+    private int intentos = 0;
+    private Date nextAttemptAt = new Date();
+    private Date lockedUntil;
+    private String claimToken;
+    private String ultimoError;
+    private Date creadoEn = new Date();
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    public String getPublicId() { return publicId; }
+    public void setPublicId(String publicId) { this.publicId = publicId; }
+    public String getPublicIdConExtension() { return publicIdConExtension; }
+    public void setPublicIdConExtension(String publicIdConExtension) { this.publicIdConExtension = publicIdConExtension; }
+    public String getOrigen() { return origen; }
+    public void setOrigen(String origen) { this.origen = origen; }
+    public String getOrigenId() { return origenId; }
+    public void setOrigenId(String origenId) { this.origenId = origenId; }
+    public String getEstado() { return estado; }
+    public void setEstado(String estado) { this.estado = estado; }
+    public int getIntentos() { return intentos; }
+    public void setIntentos(int intentos) { this.intentos = intentos; }
+    public Date getNextAttemptAt() { return nextAttemptAt; }
+    public void setNextAttemptAt(Date nextAttemptAt) { this.nextAttemptAt = nextAttemptAt; }
+    public Date getLockedUntil() { return lockedUntil; }
+    public void setLockedUntil(Date lockedUntil) { this.lockedUntil = lockedUntil; }
+    public String getClaimToken() { return claimToken; }
+    public void setClaimToken(String claimToken) { this.claimToken = claimToken; }
+    public String getUltimoError() { return ultimoError; }
+    public void setUltimoError(String ultimoError) { this.ultimoError = ultimoError; }
+    public Date getCreadoEn() { return creadoEn; }
+    public void setCreadoEn(Date creadoEn) { this.creadoEn = creadoEn; }
+}
@@ -0,0 +1,11 @@
+package com.repobackend.api.media.repository;
+
+import java.util.List;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import com.repobackend.api.media.model.MediaDeletionTask;
+
+public interface MediaDeletionTaskRepository extends MongoRepository<MediaDeletionTask, String> {
+    List<MediaDeletionTask> findByClaimToken(String claimToken);
+}
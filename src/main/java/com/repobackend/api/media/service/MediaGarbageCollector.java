@@ -0,0 +1,214 @@
+package com.repobackend.api.media.service;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.repobackend.api.cloud.service.CloudinaryService;
+import com.repobackend.api.media.MediaPublicIds;
+import com.repobackend.api.media.model.MediaDeletionTask;
+import com.repobackend.api.media.repository.MediaDeletionTaskRepository;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Cola persistente de borrado de medios en Cloudinary.
+ *
+ * Eliminar un producto o categoría solo encola sus publicIds; este servicio los drena en segundo plano
+ * usando el borrado en bloque de Cloudinary (hasta 100 ids por llamada), con concurrencia limitada y
+ * reintentos con backoff exponencial. Las tareas se reclaman con un lease, por lo que sobreviven a
+ * reinicios y no se procesan dos veces si hay varias instancias.
+ */
+@Service
+public class MediaGarbageCollector {
+    private static final Logger logger = LoggerFactory.getLogger(MediaGarbageCollector.class);
+
+    private final MediaDeletionTaskRepository taskRepository;
+    private final MongoTemplate mongoTemplate;
+    private final CloudinaryService cloudinaryService;
+    private final ExecutorService executor;
+    private final Semaphore permits;
+
+    @Value("${app.media-gc.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.media-gc.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${app.media-gc.base-backoff-ms:30000}")
+    private long baseBackoffMs;
+
+    @Value("${app.media-gc.max-backoff-ms:3600000}")
+    private long maxBackoffMs;
+
+    @Value("${app.media-gc.lease-ms:300000}")
+    private long leaseMs;
+
+    public MediaGarbageCollector(MediaDeletionTaskRepository taskRepository, MongoTemplate mongoTemplate,
+                                 CloudinaryService cloudinaryService,
+                                 @Value("${app.media-gc.max-concurrency:4}") int maxConcurrency) {
+        this.taskRepository = taskRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.cloudinaryService = cloudinaryService;
+        // Las llamadas a Cloudinary son I/O puro: un hilo virtual por lote, el semáforo limita cuántas van en paralelo
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("media-gc-", 0).factory());
+        this.permits = new Semaphore(Math.max(1, maxConcurrency));
+    }
+
+    /**
+     * Encola el borrado de todos los medios de una entidad. No llama a Cloudinary.
+     * Retorna cuántas tareas se encolaron.
+     */
+    public int enqueue(List<Map<String, Object>> listaMedios, String origen, String origenId) {
+        if (listaMedios == null || listaMedios.isEmpty()) return 0;
+        List<MediaDeletionTask> tasks = new ArrayList<>();
+        for (Map<String, Object> m : listaMedios) {
+            String publicId = MediaPublicIds.extract(m);
+            if (publicId == null) {
+                logger.warn("No se pudo extraer publicId del medio: {}", m);
+                continue;
+            }
+            MediaDeletionTask t = new MediaDeletionTask();
+            t.setPublicId(MediaPublicIds.withoutExtension(publicId));
+            if (!publicId.equals(t.getPublicId())) t.setPublicIdConExtension(publicId);
+            t.setOrigen(origen);
+            t.setOrigenId(origenId);
+            tasks.add(t);
+        }
+        if (!tasks.isEmpty()) {
+            taskRepository.saveAll(tasks);
+            logger.info("Encolados {} medios para borrado en Cloudinary ({} {})", tasks.size(), origen, origenId);
+        }
+        return tasks.size();
+    }
+
+    @Scheduled(fixedDelayString = "${app.media-gc.interval-ms:15000}", initialDelayString = "${app.media-gc.initial-delay-ms:30000}")
+    public void drain() {
+        try {
+            List<MediaDeletionTask> claimed = claimBatch();
+            if (claimed.isEmpty()) return;
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < claimed.size(); i += CloudinaryService.MAX_BULK_DELETE) {
+                List<MediaDeletionTask> chunk = claimed.subList(i, Math.min(claimed.size(), i + CloudinaryService.MAX_BULK_DELETE));
+                futures.add(executor.submit(() -> processChunk(chunk)));
+            }
+            for (Future<?> f : futures) {
+                try {
+                    f.get();
+                } catch (Exception ex) {
+                    logger.error("Error procesando lote de borrado de medios: {}", ex.getMessage(), ex);
+                }
+            }
+        } catch (Exception ex) {
+            logger.error("Error drenando la cola de borrado de medios: {}", ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Reclama hasta batchSize tareas vencidas marcándolas con un token y un lease.
+     */
+    private List<MediaDeletionTask> claimBatch() {
+        Date now = new Date();
+        Criteria due = Criteria.where("estado").is(MediaDeletionTask.ESTADO_PENDIENTE)
+                .and("nextAttemptAt").lte(now)
+                .orOperator(Criteria.where("lockedUntil").is(null), Criteria.where("lockedUntil").lt(now));
+        Query candidates = new Query(due).with(Sort.by(Sort.Direction.ASC, "nextAttemptAt")).limit(batchSize);
+        candidates.fields().include("_id");
+        List<String> ids = mongoTemplate.find(candidates, MediaDeletionTask.class).stream().map(MediaDeletionTask::getId).toList();
+        if (ids.isEmpty()) return List.of();
+
+        String token = UUID.randomUUID().toString();
+        Query claim = new Query(new Criteria().andOperator(Criteria.where("_id").in(ids), due));
+        Update update = new Update().set("claimToken", token).set("lockedUntil", new Date(now.getTime() + leaseMs));
+        mongoTemplate.updateMulti(claim, update, MediaDeletionTask.class);
+        return taskRepository.findByClaimToken(token);
+    }
+
+    private void processChunk(List<MediaDeletionTask> chunk) {
+        boolean acquired = false;
+        try {
+            permits.acquire();
+            acquired = true;
+            Map<String, String> result = cloudinaryService.deleteResources(chunk.stream().map(MediaDeletionTask::getPublicId).toList());
+
+            // Recursos no encontrados sin extensión: reintentar con la extensión original en un solo lote
+            List<MediaDeletionTask> retryWithExt = new ArrayList<>();
+            List<String> done = new ArrayList<>();
+            for (MediaDeletionTask t : chunk) {
+                String r = result.get(t.getPublicId());
+                if ("not_found".equals(r) && t.getPublicIdConExtension() != null) retryWithExt.add(t);
+                else done.add(t.getId());
+            }
+            if (!retryWithExt.isEmpty()) {
+                Map<String, String> extResult = cloudinaryService.deleteResources(
+                        retryWithExt.stream().map(MediaDeletionTask::getPublicIdConExtension).toList());
+                for (MediaDeletionTask t : retryWithExt) {
+                    if ("not_found".equals(extResult.get(t.getPublicIdConExtension()))) {
+                        logger.info("Recurso Cloudinary '{}' no existe, se descarta la tarea", t.getPublicId());
+                    }
+                    done.add(t.getId());
+                }
+            }
+            taskRepository.deleteAllById(done);
+            logger.info("Eliminados {} recursos de Cloudinary desde la cola", done.size());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            reschedule(chunk, ex);
+        } catch (Exception ex) {
+            logger.warn("Fallo borrando {} recursos en Cloudinary, se reintentará: {}", chunk.size(), ex.getMessage());
+            reschedule(chunk, ex);
+        } finally {
+            if (acquired) permits.release();
+        }
+    }
+
+    private void reschedule(List<MediaDeletionTask> chunk, Exception cause) {
+        long now = System.currentTimeMillis();
+        for (MediaDeletionTask t : chunk) {
+            int intentos = t.getIntentos() + 1;
+            Update update = new Update()
+                    .set("intentos", intentos)
+                    .set("ultimoError", cause.getMessage())
+                    .unset("lockedUntil")
+                    .unset("claimToken");
+            if (intentos >= maxAttempts) {
+                update.set("estado", MediaDeletionTask.ESTADO_FALLIDA);
+                logger.error("Recurso Cloudinary '{}' ({} {}) marcado como FALLIDA tras {} intentos",
+                        t.getPublicId(), t.getOrigen(), t.getOrigenId(), intentos);
+            } else {
+                update.set("nextAttemptAt", new Date(now + backoffMs(intentos)));
+            }
+            mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(t.getId())), update, MediaDeletionTask.class);
+        }
+    }
+
+    /** Backoff exponencial con jitter: base * 2^(intentos-1), acotado a maxBackoffMs. */
+    private long backoffMs(int intentos) {
+        long exp = baseBackoffMs << Math.min(intentos - 1, 20);
+        long capped = Math.min(maxBackoffMs, exp);
+        return capped / 2 + ThreadLocalRandom.current().nextLong(capped / 2 + 1);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
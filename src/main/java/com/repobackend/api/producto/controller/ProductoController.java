@@ -260,13 +260,14 @@ public class ProductoController {
                 )
             ),
             @ApiResponse(responseCode = "404", description = "Producto no encontrado", content = @Content),
-            @ApiResponse(responseCode = "403", description = "Sin permisos para eliminar este producto", content = @Content)
+            @ApiResponse(responseCode = "403", description = "Sin permisos para eliminar este producto", content = @Content),
+            @ApiResponse(responseCode = "503", description = "No se pudo encolar el borrado de los medios; el producto no se eliminó", content = @Content)
         }
     )
     @DeleteMapping("/{id}")
     public ResponseEntity<?> eliminar(@PathVariable String id) {
         var r = productoService.eliminarProducto(id);
-        if (r.containsKey("error")) return ResponseEntity.status(404).body(r);
+        if (r.containsKey("error")) return ResponseEntity.status(r.get("status") == null ? 404 : (int) r.get("status")).body(r);
         return ResponseEntity.ok(r);
     }
 }
@@ -0,0 +1,70 @@
+package com.repobackend.api.producto.controller;
+
+import java.util.Map;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.repobackend.api.producto.service.CatalogoReactivoService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import reactor.core.publisher.Mono;
+
+/**
+ * Catálogo público no bloqueante. Mismas respuestas que /api/public/productos y /api/public/categorias,
+ * pero los controladores devuelven Mono: Spring MVC procesa la petición en modo asíncrono y el hilo de
+ * Tomcat se libera mientras Mongo (driver reactivo) responde, así la navegación del catálogo no compite
+ * con checkout y facturación por el pool de hilos.
+ */
+@RestController
+@RequestMapping("/api/public/v2")
+@Tag(name = "PublicCatalogoV2Controller", description = "Catálogo público no bloqueante (sin autenticación)")
+public class PublicCatalogoV2Controller {
+    private final CatalogoReactivoService catalogoService;
+
+    public PublicCatalogoV2Controller(CatalogoReactivoService catalogoService) {
+        this.catalogoService = catalogoService;
+    }
+
+    @Operation(summary = "Listar productos (público, no bloqueante)",
+        description = "Igual que GET /api/public/productos: búsqueda con `q`, filtro por `categoriaId` y paginación con `page`/`size` (máx. 100).",
+        security = {},
+        responses = {@ApiResponse(responseCode = "200", description = "Lista de productos", content = @Content)})
+    @GetMapping("/productos")
+    public Mono<ResponseEntity<?>> listarProductos(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) String categoriaId,
+            @RequestParam(required = false, defaultValue = "0") int page,
+            @RequestParam(required = false, defaultValue = "20") int size) {
+        return catalogoService.listarProductos(q, categoriaId, page, size).map(ResponseEntity::ok);
+    }
+
+    @Operation(summary = "Obtener producto por ID (público, no bloqueante)", security = {},
+        responses = {@ApiResponse(responseCode = "200", description = "Producto encontrado", content = @Content),
+                     @ApiResponse(responseCode = "404", description = "Producto no encontrado", content = @Content)})
+    @GetMapping("/productos/{id}")
+    public Mono<ResponseEntity<?>> getProducto(@PathVariable String id) {
+        return catalogoService.getProducto(id)
+                .<ResponseEntity<?>>map(p -> ResponseEntity.ok(Map.of("producto", p)))
+                .defaultIfEmpty(ResponseEntity.status(404).body(Map.of("error", "Producto no encontrado")));
+    }
+
+    @Operation(summary = "Listar categorías (público, no bloqueante)",
+        description = "Igual que GET /api/public/categorias: búsqueda con `q` y paginación con `page`/`size` (máx. 100).",
+        security = {},
+        responses = {@ApiResponse(responseCode = "200", description = "Lista de categorías", content = @Content)})
+    @GetMapping("/categorias")
+    public Mono<ResponseEntity<?>> listarCategorias(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false, defaultValue = "0") int page,
+            @RequestParam(required = false, defaultValue = "20") int size) {
+        return catalogoService.listarCategorias(q, page, size).map(ResponseEntity::ok);
+    }
+}
@@ -1,12 +1,23 @@
 package com.repobackend.api.producto.controller;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import com.repobackend.api.common.http.CatalogHttpCache;
+import com.repobackend.api.common.util.TextNormalizer;
+import com.repobackend.api.producto.service.CompatibilidadIndex;
+import com.repobackend.api.producto.service.ProductoBusquedaService;
+import com.repobackend.api.producto.service.ProductoDetalleCache;
 import com.repobackend.api.producto.service.ProductoService;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -25,9 +36,17 @@ public class PublicProductosController {
     private static final Logger logger = LoggerFactory.getLogger(PublicProductosController.class);
 
     private final ProductoService productoService;
+    private final CatalogHttpCache httpCache;
+    private final ProductoDetalleCache productoDetalleCache;
+    private final ProductoBusquedaService productoBusquedaService;
+    private final CompatibilidadIndex compatibilidadIndex;
 
-    public PublicProductosController(ProductoService productoService) {
+    public PublicProductosController(ProductoService productoService, CatalogHttpCache httpCache, ProductoDetalleCache productoDetalleCache, ProductoBusquedaService productoBusquedaService, CompatibilidadIndex compatibilidadIndex) {
         this.productoService = productoService;
+        this.httpCache = httpCache;
+        this.productoDetalleCache = productoDetalleCache;
+        this.productoBusquedaService = productoBusquedaService;
+        this.compatibilidadIndex = compatibilidadIndex;
     }
 
     @Operation(
@@ -59,15 +78,22 @@ public class PublicProductosController {
             @RequestParam(required = false) String q,
             @RequestParam(required = false) String categoriaId,
             @RequestParam(required = false, defaultValue = "0") int page,
-            @RequestParam(required = false, defaultValue = "20") int size) {
+            @RequestParam(required = false, defaultValue = "20") int size,
+            WebRequest request) {
         logger.info("GET /api/public/productos q='{}' categoriaId='{}' page={} size={}", q, categoriaId, page, size);
+        // ETag desde ids/versiones de la página: si el cliente ya la tiene, 304 sin consultar stock
+        String etag = productoService.etagListadoPublico(q, categoriaId, page, size);
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(304).cacheControl(httpCache.cacheControl()).build();
+        }
+        var ok = ResponseEntity.ok().cacheControl(httpCache.cacheControl()).eTag(etag);
         if (q != null && !q.isBlank()) {
-            return ResponseEntity.ok(productoService.productosPorNombrePaginado(q, page, size));
+            return ok.body(productoService.productosPorNombrePaginado(q, page, size));
         }
         if (categoriaId != null && !categoriaId.isBlank()) {
-            return ResponseEntity.ok(productoService.listarPorCategoriaPaginado(categoriaId, page, size));
+            return ok.body(productoService.listarPorCategoriaPaginado(categoriaId, page, size));
         }
-        return ResponseEntity.ok(productoService.listar(page, size));
+        return ok.body(productoService.listar(page, size));
     }
 
     @Operation(
@@ -91,11 +117,98 @@ public class PublicProductosController {
         }
     )
     @GetMapping("/{id}")
-    public ResponseEntity<?> getProducto(@PathVariable String id) {
-        var maybe = productoService.getById(id);
-        if (maybe.isEmpty()) return ResponseEntity.status(404).body(java.util.Map.of("error", "Producto no encontrado"));
-        var resp = productoService.toResponse(maybe.get());
-        return ResponseEntity.ok(java.util.Map.of("producto", resp));
+    public ResponseEntity<?> getProducto(@PathVariable String id, WebRequest request) {
+        // detalle ya enriquecido desde el read model en memoria; se invalida con cada edición o ajuste de stock
+        var detalle = productoDetalleCache.get(id);
+        if (detalle == null) return ResponseEntity.status(404).body(java.util.Map.of("error", "Producto no encontrado"));
+        if (request.checkNotModified(detalle.etag, detalle.lastModified)) {
+            return ResponseEntity.status(304).cacheControl(httpCache.cacheControl()).build();
+        }
+        return ResponseEntity.ok().cacheControl(httpCache.cacheControl()).eTag(detalle.etag)
+                .body(java.util.Map.of("producto", detalle.producto));
+    }
+
+    @Operation(
+        summary = "Buscar productos por facetas (público)",
+        description = """
+            Filtra en el servidor por `categoriaId`, `tallerId`, rango de precio (`precioMin`, `precioMax`)
+            y especificaciones técnicas con `spec=clave:valor` (repetible). Valores de la misma clave se combinan
+            con OR y claves distintas con AND; la comparación ignora mayúsculas y tildes.
+            
+            Además de la página de productos devuelve `facetas` (clave -> valores con su conteo) y el rango
+            de `precio` del conjunto filtrado, calculados en la misma consulta.
+            """,
+        security = {},
+        responses = {
+            @ApiResponse(responseCode = "200", description = "Resultados y facetas",
+                content = @Content(mediaType = "application/json",
+                    examples = @ExampleObject(value = "{\"productos\":[],\"total\":0,\"page\":0,\"size\":20,\"facetas\":{\"marca\":[{\"valor\":\"bosch\",\"count\":12}]},\"precio\":{\"min\":15000,\"max\":98000}}")
+                )
+            ),
+            @ApiResponse(responseCode = "400", description = "Filtro spec inválido", content = @Content)
+        }
+    )
+    @GetMapping("/buscar")
+    public ResponseEntity<?> buscar(
+            @RequestParam(required = false) String categoriaId,
+            @RequestParam(required = false) String tallerId,
+            @RequestParam(required = false) Double precioMin,
+            @RequestParam(required = false) Double precioMax,
+            @RequestParam(required = false) List<String> spec,
+            @RequestParam(required = false, defaultValue = "0") int page,
+            @RequestParam(required = false, defaultValue = "20") int size) {
+        Map<String, List<String>> specs = new LinkedHashMap<>();
+        if (spec != null) {
+            for (String s : spec) {
+                int sep = s == null ? -1 : s.indexOf(':');
+                String k = sep > 0 ? TextNormalizer.normalize(s.substring(0, sep)) : null;
+                String v = sep > 0 ? TextNormalizer.normalize(s.substring(sep + 1)) : null;
+                if (k == null || v == null) {
+                    return ResponseEntity.badRequest().body(Map.of("error", "spec debe tener el formato clave:valor"));
+                }
+                specs.computeIfAbsent(k, x -> new ArrayList<>()).add(v);
+            }
+        }
+        return ResponseEntity.ok(productoBusquedaService.buscar(categoriaId, tallerId, precioMin, precioMax, specs, page, size));
     }
-}
 
+    @Operation(
+        summary = "Repuestos compatibles con un vehículo (público)",
+        description = """
+            Devuelve los productos cuyo rango de compatibilidad incluye el vehículo indicado (`marca`, `modelo`, `anio`
+            y opcionalmente `motor`), filtrando por `categoriaId` si se envía. Marca, modelo y motor se comparan
+            sin mayúsculas ni tildes. La búsqueda se resuelve en un índice en memoria, sin consultas por regex.
+            """,
+        security = {},
+        responses = {
+            @ApiResponse(responseCode = "200", description = "Productos compatibles",
+                content = @Content(mediaType = "application/json",
+                    examples = @ExampleObject(value = "{\"productos\":[{\"id\":\"507f191e810c19729de860ea\",\"nombre\":\"Pastillas de freno\",\"totalStock\":8}],\"total\":1,\"page\":0,\"size\":20}")
+                )
+            )
+        }
+    )
+    @GetMapping("/compatibles")
+    public ResponseEntity<?> compatibles(
+            @RequestParam String marca,
+            @RequestParam String modelo,
+            @RequestParam int anio,
+            @RequestParam(required = false) String motor,
+            @RequestParam(required = false) String categoriaId,
+            @RequestParam(required = false, defaultValue = "0") int page,
+            @RequestParam(required = false, defaultValue = "20") int size) {
+        if (page < 0) page = 0;
+        if (size <= 0 || size > 100) size = 20;
+        List<String> ids = compatibilidadIndex.buscar(marca, modelo, anio, motor, categoriaId);
+        // offset en long: page es libre en este endpoint público y page * size desbordaría int
+        int from = (int) Math.min(ids.size(), Math.multiplyExact((long) page, size));
+        List<String> pagina = ids.subList(from, Math.min(ids.size(), from + size));
+        var productos = productoService.findResponsesByIds(pagina);
+        List<Object> items = new ArrayList<>();
+        for (String id : pagina) {
+            var r = productos.get(id);
+            if (r != null) items.add(r);
+        }
+        return ResponseEntity.ok(Map.of("productos", items, "total", ids.size(), "page", page, "size", size));
+    }
+}
@@ -0,0 +1,55 @@
+package com.repobackend.api.producto.controller;
+
+import java.util.Map;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.repobackend.api.producto.service.TypeaheadIndex;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@RestController
+@RequestMapping("/api/public/suggest")
+@Tag(name = "PublicSuggestController", description = "Autocompletado del buscador (sin autenticación)")
+public class PublicSuggestController {
+    private final TypeaheadIndex typeaheadIndex;
+
+    public PublicSuggestController(TypeaheadIndex typeaheadIndex) {
+        this.typeaheadIndex = typeaheadIndex;
+    }
+
+    @Operation(
+        summary = "Sugerencias de búsqueda (público)",
+        description = """
+            Devuelve hasta `limit` (máx. 20) productos y categorías cuyo nombre o código empieza por `q`,
+            o que tienen una palabra que empieza por `q`. Ignora mayúsculas y tildes. Con `tallerId` se limita
+            a ese taller. Se resuelve en memoria: pensado para llamarse en cada pulsación de tecla.
+            """,
+        security = {},
+        responses = {
+            @ApiResponse(responseCode = "200", description = "Sugerencias",
+                content = @Content(mediaType = "application/json",
+                    examples = @ExampleObject(value = "{\"sugerencias\":[{\"tipo\":\"producto\",\"id\":\"507f191e810c19729de860ea\",\"texto\":\"Filtro de aceite\",\"codigo\":\"FA-150\",\"tallerId\":\"t1\"}]}")
+                )
+            )
+        }
+    )
+    @GetMapping
+    public ResponseEntity<?> suggest(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) String tallerId,
+            @RequestParam(required = false, defaultValue = "10") int limit) {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .body(Map.of("sugerencias", typeaheadIndex.sugerir(q, tallerId, limit)));
+    }
+}
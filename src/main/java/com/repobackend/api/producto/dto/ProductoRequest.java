@@ -43,6 +43,8 @@ public class ProductoRequest {
 
     // Especificaciones técnicas (clave -> valor) por ejemplo: {"Marca":"Yamaha", "Cilindraje":"150cc"}
     private java.util.Map<String, String> specs;
+    // Vehículos compatibles: [{"marca":"Yamaha","modelo":"FZ","anioDesde":2015,"anioHasta":2020,"motor":"150"}]
+    private List<com.repobackend.api.producto.model.Compatibilidad> compatibilidades;
     @JsonAlias({"tallerId"," tallerId "})
     private String tallerId;
 
@@ -119,6 +121,9 @@ public class ProductoRequest {
         this.specs = specs;
     }
 
+    public List<com.repobackend.api.producto.model.Compatibilidad> getCompatibilidades() { return compatibilidades; }
+    public void setCompatibilidades(List<com.repobackend.api.producto.model.Compatibilidad> compatibilidades) { this.compatibilidades = compatibilidades; }
+
     public String getTallerId() { return tallerId; }
     public void setTallerId(String tallerId) { this.tallerId = tallerId == null ? null : tallerId.trim(); }
 }
@@ -15,6 +15,8 @@ public class ProductoResponse {
     private List<java.util.Map<String, Object>> listaMedios;
     // Especificaciones técnicas estructuradas
     private java.util.Map<String, String> specs;
+    // Vehículos compatibles
+    private List<com.repobackend.api.producto.model.Compatibilidad> compatibilidades;
     // thumbnailUrl: URL directa o publicId de la primera imagen para mostrar en listados
     private String thumbnailUrl;
     // Stock total (suma de almacenes)
@@ -104,6 +106,14 @@ public class ProductoResponse {
         this.specs = specs;
     }
 
+    public List<com.repobackend.api.producto.model.Compatibilidad> getCompatibilidades() {
+        return compatibilidades;
+    }
+
+    public void setCompatibilidades(List<com.repobackend.api.producto.model.Compatibilidad> compatibilidades) {
+        this.compatibilidades = compatibilidades;
+    }
+
     public String getThumbnailUrl() {
         return thumbnailUrl;
     }
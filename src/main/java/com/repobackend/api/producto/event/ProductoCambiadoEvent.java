@@ -0,0 +1,26 @@
+package com.repobackend.api.producto.event;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Un producto fue modificado o eliminado. Lo publica ProductoService tras escribir en Mongo;
+ * los read models en memoria (p. ej. ProductoDetalleCache) lo usan para invalidar.
+ * soloStock marca los ajustes de stock: los índices que no dependen del stock (compatibilidad,
+ * autocompletado) lo ignoran y no releen el producto.
+ */
+public class ProductoCambiadoEvent extends ApplicationEvent {
+    public final String productoId;
+    public final boolean eliminado;
+    public final boolean soloStock;
+
+    public ProductoCambiadoEvent(Object source, String productoId, boolean eliminado) {
+        this(source, productoId, eliminado, false);
+    }
+
+    public ProductoCambiadoEvent(Object source, String productoId, boolean eliminado, boolean soloStock) {
+        super(source);
+        this.productoId = productoId;
+        this.eliminado = eliminado;
+        this.soloStock = soloStock;
+    }
+}
@@ -0,0 +1,41 @@
+package com.repobackend.api.producto.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.repobackend.api.common.util.TextNormalizer;
+
+/**
+ * Par clave/valor normalizado derivado de Producto.specs. Se guarda como arreglo [{k, v}] para poder
+ * indexarlo (índice multikey atributos.k + atributos.v) y filtrar/contar facetas en el servidor.
+ */
+public class Atributo {
+    private String k;
+    private String v;
+
+    public Atributo() {}
+
+    public Atributo(String k, String v) {
+        this.k = k;
+        this.v = v;
+    }
+
+    public String getK() { return k; }
+    public void setK(String k) { this.k = k; }
+
+    public String getV() { return v; }
+    public void setV(String v) { this.v = v; }
+
+    /** Convierte specs en atributos normalizados; las entradas con clave o valor vacíos se omiten. */
+    public static List<Atributo> desdeSpecs(Map<String, String> specs) {
+        if (specs == null || specs.isEmpty()) return null;
+        List<Atributo> list = new ArrayList<>(specs.size());
+        for (Map.Entry<String, String> e : specs.entrySet()) {
+            String k = TextNormalizer.normalize(e.getKey());
+            String v = TextNormalizer.normalize(e.getValue());
+            if (k != null && v != null) list.add(new Atributo(k, v));
+        }
+        return list.isEmpty() ? null : list;
+    }
+}
@@ -0,0 +1,36 @@
+package com.repobackend.api.producto.model;
+
+/**
+ * Rango de vehículos en los que encaja el repuesto: marca + modelo, años [anioDesde, anioHasta] y,
+ * opcionalmente, motor. Sin anioHasta el rango queda abierto; sin motor aplica a todos los motores del modelo.
+ */
+public class Compatibilidad {
+    private String marca;
+    private String modelo;
+    private Integer anioDesde;
+    private Integer anioHasta;
+    private String motor;
+
+    public String getMarca() { return marca; }
+    public void setMarca(String marca) { this.marca = marca; }
+
+    public String getModelo() { return modelo; }
+    public void setModelo(String modelo) { this.modelo = modelo; }
+
+    public Integer getAnioDesde() { return anioDesde; }
+    public void setAnioDesde(Integer anioDesde) { this.anioDesde = anioDesde; }
+
+    public Integer getAnioHasta() { return anioHasta; }
+    public void setAnioHasta(Integer anioHasta) { this.anioHasta = anioHasta; }
+
+    public String getMotor() { return motor; }
+    public void setMotor(String motor) { this.motor = motor; }
+
+    /** Mensaje de error si el rango no es válido, null si lo es. */
+    public String validar() {
+        if (marca == null || marca.isBlank() || modelo == null || modelo.isBlank()) return "marca y modelo son obligatorios en compatibilidades";
+        if (anioDesde == null) return "anioDesde es obligatorio en compatibilidades";
+        if (anioHasta != null && anioHasta < anioDesde) return "anioHasta no puede ser menor que anioDesde";
+        return null;
+    }
+}
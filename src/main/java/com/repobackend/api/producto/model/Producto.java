@@ -33,8 +33,16 @@ public class Producto {
     // Especificaciones técnicas estructuradas para mostrar la tabla (marca, cilindrada, peso, compatibilidad, etc)
     // Se almacena como mapa clave->valor o lista de pares según preferencia del cliente; aquí usamos Map para flexibilidad.
     private Map<String, String> specs;
+    // specs normalizadas como [{k, v}] para el índice multikey y la búsqueda por facetas; se derivan en setSpecs
+    private List<Atributo> atributos;
+    // vehículos compatibles (marca/modelo/rango de años/motor), indexados en memoria por CompatibilidadIndex
+    private List<Compatibilidad> compatibilidades;
 
     private Date creadoEn = new Date();
+    // version/actualizadoEn cambian con cada modificación del producto o de su stock (ETag / Last-Modified)
+    // Sin inicializadores: al leer un documento sin estos campos quedarían con la hora de la lectura
+    private Long version;
+    private Date actualizadoEn;
 
     public String getId() { return id; }
     public void setId(String id) { this.id = id; }
@@ -71,11 +79,38 @@ public class Producto {
     public void setListaMedios(List<Map<String, Object>> listaMedios) { this.listaMedios = listaMedios; }
 
     public Map<String, String> getSpecs() { return specs; }
-    public void setSpecs(Map<String, String> specs) { this.specs = specs; }
+    public void setSpecs(Map<String, String> specs) {
+        this.specs = specs;
+        this.atributos = Atributo.desdeSpecs(specs);
+    }
+
+    public List<Atributo> getAtributos() { return atributos; }
+    public void setAtributos(List<Atributo> atributos) { this.atributos = atributos; }
+
+    public List<Compatibilidad> getCompatibilidades() { return compatibilidades; }
+    public void setCompatibilidades(List<Compatibilidad> compatibilidades) { this.compatibilidades = compatibilidades; }
 
     public Date getCreadoEn() { return creadoEn; }
     public void setCreadoEn(Date creadoEn) { this.creadoEn = creadoEn; }
 
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
+    public Date getActualizadoEn() { return actualizadoEn; }
+    public void setActualizadoEn(Date actualizadoEn) { this.actualizadoEn = actualizadoEn; }
+
+    // Valores iniciales de version y actualizadoEn: llamar al crear, después de fijar creadoEn
+    public void marcarCreado() {
+        this.version = 0L;
+        this.actualizadoEn = creadoEn != null ? creadoEn : new Date();
+    }
+
+    // Incrementa version y actualizadoEn: llamar antes de guardar cualquier cambio (validadores ETag/Last-Modified)
+    public void marcarModificado() {
+        this.version = (version == null ? 0L : version) + 1;
+        this.actualizadoEn = new Date();
+    }
+
     // Helper transient: devuelve la URL de la miniatura (primera imagen) si existe en listaMedios.
     public String getThumbnailUrl() {
         if (listaMedios == null || listaMedios.isEmpty()) return null;
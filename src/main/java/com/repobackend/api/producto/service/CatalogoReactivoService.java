@@ -0,0 +1,96 @@
+package com.repobackend.api.producto.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import com.repobackend.api.categoria.model.Categoria;
+import com.repobackend.api.categoria.service.CategoriaService;
+import com.repobackend.api.producto.dto.ProductoResponse;
+import com.repobackend.api.producto.model.Producto;
+import com.repobackend.api.stock.model.Stock;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Lectura del catálogo público con el driver reactivo de Mongo.
+ *
+ * Ningún hilo de Tomcat queda esperando a la base de datos: la página de productos, el conteo y el stock
+ * de todos los productos de la página (una sola consulta $in) se resuelven de forma no bloqueante.
+ * Las respuestas tienen la misma forma que /api/public/productos y /api/public/categorias.
+ */
+@Service
+public class CatalogoReactivoService {
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final ProductoService productoService;
+    private final CategoriaService categoriaService;
+
+    public CatalogoReactivoService(ReactiveMongoTemplate reactiveMongoTemplate, ProductoService productoService, CategoriaService categoriaService) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.productoService = productoService;
+        this.categoriaService = categoriaService;
+    }
+
+    public Mono<Map<String, Object>> listarProductos(String q, String categoriaId, int page, int size) {
+        int p = Math.max(page, 0);
+        int s = size <= 0 ? 20 : Math.min(size, MAX_PAGE_SIZE);
+        Criteria criteria = new Criteria();
+        if (q != null && !q.isBlank()) {
+            criteria = Criteria.where("nombre").regex(Pattern.quote(q), "i");
+        } else if (categoriaId != null && !categoriaId.isBlank()) {
+            criteria = Criteria.where("categoriaId").is(categoriaId);
+        }
+        Query pageQuery = new Query(criteria).with(Sort.by(Sort.Direction.ASC, "_id")).skip((long) p * s).limit(s);
+
+        Mono<Long> total = reactiveMongoTemplate.count(new Query(criteria), Producto.class);
+        Mono<List<ProductoResponse>> items = reactiveMongoTemplate.find(pageQuery, Producto.class)
+                .collectList()
+                .flatMap(this::enriquecerConStock);
+        return Mono.zip(items, total)
+                .map(t -> Map.<String, Object>of("productos", t.getT1(), "total", t.getT2(), "page", p, "size", s));
+    }
+
+    public Mono<ProductoResponse> getProducto(String id) {
+        return reactiveMongoTemplate.findById(id, Producto.class)
+                .flatMap(prod -> enriquecerConStock(List.of(prod)).map(list -> list.get(0)));
+    }
+
+    public Mono<Map<String, Object>> listarCategorias(String q, int page, int size) {
+        int p = Math.max(page, 0);
+        int s = size <= 0 ? 20 : Math.min(size, MAX_PAGE_SIZE);
+        Criteria criteria = q == null || q.isBlank() ? new Criteria() : Criteria.where("nombre").regex(Pattern.quote(q), "i");
+        Query pageQuery = new Query(criteria).with(Sort.by(Sort.Direction.ASC, "_id")).skip((long) p * s).limit(s);
+        Mono<Long> total = reactiveMongoTemplate.count(new Query(criteria), Categoria.class);
+        Mono<List<Object>> items = reactiveMongoTemplate.find(pageQuery, Categoria.class)
+                .map(c -> (Object) categoriaService.toResponse(c))
+                .collectList();
+        return Mono.zip(items, total)
+                .map(t -> Map.<String, Object>of("categorias", t.getT1(), "total", t.getT2(), "page", p, "size", s));
+    }
+
+    // Stock de todos los productos de la página en una sola consulta; el mapeo reutiliza ProductoService
+    private Mono<List<ProductoResponse>> enriquecerConStock(List<Producto> productos) {
+        if (productos.isEmpty()) return Mono.just(List.of());
+        List<String> ids = productos.stream().map(Producto::getId).toList();
+        return reactiveMongoTemplate.find(new Query(Criteria.where("productoId").in(ids)), Stock.class)
+                .collectMultimap(Stock::getProductoId)
+                .map(stock -> {
+                    List<ProductoResponse> out = new ArrayList<>(productos.size());
+                    for (Producto prod : productos) {
+                        Collection<Stock> rows = stock.get(prod.getId());
+                        out.add(productoService.toResponse(prod, rows == null ? List.of() : new ArrayList<>(rows)));
+                    }
+                    return out;
+                });
+    }
+}
@@ -0,0 +1,246 @@
+package com.repobackend.api.producto.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.repobackend.api.common.util.TextNormalizer;
+import com.repobackend.api.producto.event.ProductoCambiadoEvent;
+import com.repobackend.api.producto.model.Compatibilidad;
+import com.repobackend.api.producto.model.Producto;
+
+/**
+ * Índice en memoria de compatibilidad vehicular: (marca, modelo) normalizados -> rangos de años.
+ *
+ * Cada bucket es inmutable y guarda los rangos en arreglos paralelos ordenados por anioDesde, así que una
+ * consulta es un lookup en el mapa, una búsqueda binaria y un recorrido de los rangos que empiezan antes del año.
+ * Los cambios de un producto reemplazan sus buckets (copy-on-write) al recibir ProductoCambiadoEvent;
+ * además se reconstruye completo al arrancar y periódicamente para recoger cambios de otras instancias.
+ * La consulta y el armado de buckets de la reconstrucción van fuera del lock; solo el intercambio (y la
+ * repetición de los cambios recibidos mientras tanto) se hace bajo él, así los listeners del camino de
+ * escritura no esperan a Mongo.
+ */
+@Component
+public class CompatibilidadIndex {
+    private static final Logger logger = LoggerFactory.getLogger(CompatibilidadIndex.class);
+    private static final int ANIO_ABIERTO = Integer.MAX_VALUE;
+
+    private final MongoTemplate mongoTemplate;
+    private volatile Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    // productoId -> claves de bucket donde aparece, para poder quitarlo al actualizar
+    private volatile Map<String, Set<String>> clavesPorProducto = new ConcurrentHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicBoolean reconstruyendo = new AtomicBoolean();
+    // cambios recibidos durante una reconstrucción; null si no hay ninguna en curso
+    private List<Cambio> pendientes;
+
+    public CompatibilidadIndex(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Ids de productos compatibles con el vehículo. motor y categoriaId son opcionales; los rangos sin motor
+     * valen para cualquier motor del modelo. El orden es estable (por anioDesde del rango).
+     */
+    public List<String> buscar(String marca, String modelo, int anio, String motor, String categoriaId) {
+        Bucket b = buckets.get(clave(marca, modelo));
+        if (b == null) return List.of();
+        String motorN = TextNormalizer.normalize(motor);
+        // rangos con anioDesde <= anio: [0, fin)
+        int fin = upperBound(b.desde, anio);
+        Set<String> ids = new LinkedHashSet<>();
+        for (int i = 0; i < fin; i++) {
+            if (b.hasta[i] < anio) continue;
+            if (motorN != null && b.motor[i] != null && !b.motor[i].equals(motorN)) continue;
+            if (categoriaId != null && !categoriaId.isBlank() && !categoriaId.equals(b.categoriaId[i])) continue;
+            ids.add(b.productoId[i]);
+        }
+        return new ArrayList<>(ids);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        reconstruir();
+    }
+
+    @Scheduled(fixedDelayString = "${app.compatibilidad.rebuild-interval-ms:600000}", initialDelayString = "${app.compatibilidad.rebuild-interval-ms:600000}")
+    public void reconstruirPeriodico() {
+        reconstruir();
+    }
+
+    /** Reconstruye el índice completo leyendo solo los campos necesarios de los productos con compatibilidades. */
+    public void reconstruir() {
+        if (!reconstruyendo.compareAndSet(false, true)) return;
+        lock.lock();
+        try {
+            pendientes = new ArrayList<>();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            Query q = new Query(Criteria.where("compatibilidades.0").exists(true));
+            q.fields().include("_id").include("categoriaId").include("compatibilidades");
+            Map<String, List<Entrada>> porClave = new HashMap<>();
+            Map<String, Set<String>> claves = new ConcurrentHashMap<>();
+            for (Producto p : mongoTemplate.find(q, Producto.class)) {
+                for (var e : entradas(p).entrySet()) {
+                    porClave.computeIfAbsent(e.getKey(), k -> new ArrayList<>()).addAll(e.getValue());
+                    claves.computeIfAbsent(p.getId(), k -> new LinkedHashSet<>()).add(e.getKey());
+                }
+            }
+            Map<String, Bucket> nuevo = new ConcurrentHashMap<>();
+            porClave.forEach((k, list) -> nuevo.put(k, Bucket.of(list)));
+            lock.lock();
+            try {
+                for (Cambio c : pendientes) aplicar(nuevo, claves, c.productoId(), c.producto());
+                buckets = nuevo;
+                clavesPorProducto = claves;
+            } finally {
+                lock.unlock();
+            }
+            logger.info("Índice de compatibilidad reconstruido: {} modelos, {} productos", nuevo.size(), claves.size());
+        } catch (Exception ex) {
+            logger.warn("No se pudo reconstruir el índice de compatibilidad: {}", ex.getMessage());
+        } finally {
+            lock.lock();
+            try {
+                pendientes = null;
+            } finally {
+                lock.unlock();
+            }
+            reconstruyendo.set(false);
+        }
+    }
+
+    @EventListener
+    public void onProductoCambiado(ProductoCambiadoEvent event) {
+        if (event.soloStock) return;
+        try {
+            Producto p = null;
+            if (!event.eliminado) {
+                Query q = new Query(Criteria.where("_id").is(event.productoId));
+                q.fields().include("_id").include("categoriaId").include("compatibilidades");
+                p = mongoTemplate.findOne(q, Producto.class);
+            }
+            actualizar(event.productoId, p);
+        } catch (Exception ex) {
+            logger.warn("No se pudo actualizar la compatibilidad del producto {}: {}", event.productoId, ex.getMessage());
+        }
+    }
+
+    /** Reemplaza los rangos de un producto (p == null: se elimina del índice). */
+    void actualizar(String productoId, Producto p) {
+        lock.lock();
+        try {
+            aplicar(buckets, clavesPorProducto, productoId, p);
+            if (pendientes != null) pendientes.add(new Cambio(productoId, p));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void aplicar(Map<String, Bucket> buckets, Map<String, Set<String>> clavesPorProducto, String productoId, Producto p) {
+        Map<String, List<Entrada>> nuevas = p == null ? Map.of() : entradas(p);
+        Set<String> afectadas = new LinkedHashSet<>(clavesPorProducto.getOrDefault(productoId, Set.of()));
+        afectadas.addAll(nuevas.keySet());
+        for (String k : afectadas) {
+            List<Entrada> list = new ArrayList<>();
+            Bucket actual = buckets.get(k);
+            if (actual != null) {
+                for (int i = 0; i < actual.size(); i++) {
+                    if (!productoId.equals(actual.productoId[i])) list.add(actual.entrada(i));
+                }
+            }
+            list.addAll(nuevas.getOrDefault(k, List.of()));
+            if (list.isEmpty()) buckets.remove(k);
+            else buckets.put(k, Bucket.of(list));
+        }
+        if (nuevas.isEmpty()) clavesPorProducto.remove(productoId);
+        else clavesPorProducto.put(productoId, new LinkedHashSet<>(nuevas.keySet()));
+    }
+
+    private static Map<String, List<Entrada>> entradas(Producto p) {
+        Map<String, List<Entrada>> out = new HashMap<>();
+        if (p.getCompatibilidades() == null) return out;
+        for (Compatibilidad c : p.getCompatibilidades()) {
+            if (c == null || c.validar() != null) continue;
+            int hasta = c.getAnioHasta() == null ? ANIO_ABIERTO : c.getAnioHasta();
+            out.computeIfAbsent(clave(c.getMarca(), c.getModelo()), k -> new ArrayList<>())
+                    .add(new Entrada(c.getAnioDesde(), hasta, TextNormalizer.normalize(c.getMotor()), p.getId(), p.getCategoriaId()));
+        }
+        return out;
+    }
+
+    static String clave(String marca, String modelo) {
+        return TextNormalizer.normalize(marca) + "|" + TextNormalizer.normalize(modelo);
+    }
+
+    // primer índice con a[i] > key
+    private static int upperBound(int[] a, int key) {
+        int lo = 0, hi = a.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (a[mid] <= key) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private record Cambio(String productoId, Producto producto) {}
+
+    private record Entrada(int desde, int hasta, String motor, String productoId, String categoriaId) {}
+
+    /** Rangos de un (marca, modelo) en arreglos paralelos ordenados por anioDesde. Inmutable. */
+    private static final class Bucket {
+        final int[] desde;
+        final int[] hasta;
+        final String[] motor;
+        final String[] productoId;
+        final String[] categoriaId;
+
+        private Bucket(int n) {
+            desde = new int[n];
+            hasta = new int[n];
+            motor = new String[n];
+            productoId = new String[n];
+            categoriaId = new String[n];
+        }
+
+        static Bucket of(List<Entrada> list) {
+            Entrada[] sorted = list.toArray(new Entrada[0]);
+            Arrays.sort(sorted, (a, b) -> Integer.compare(a.desde(), b.desde()));
+            Bucket b = new Bucket(sorted.length);
+            for (int i = 0; i < sorted.length; i++) {
+                b.desde[i] = sorted[i].desde();
+                b.hasta[i] = sorted[i].hasta();
+                b.motor[i] = sorted[i].motor();
+                b.productoId[i] = sorted[i].productoId();
+                b.categoriaId[i] = sorted[i].categoriaId();
+            }
+            return b;
+        }
+
+        int size() { return desde.length; }
+
+        Entrada entrada(int i) {
+            return new Entrada(desde[i], hasta[i], motor[i], productoId[i], categoriaId[i]);
+        }
+    }
+}
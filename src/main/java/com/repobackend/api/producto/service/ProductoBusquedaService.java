@@ -0,0 +1,167 @@
+package com.repobackend.api.producto.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import com.repobackend.api.producto.dto.ProductoResponse;
+import com.repobackend.api.producto.model.Atributo;
+import com.repobackend.api.producto.model.Producto;
+import com.repobackend.api.stock.model.Stock;
+import com.repobackend.api.stock.service.StockService;
+
+/**
+ * Búsqueda por facetas sobre productos: categoría, taller, rango de precio y filtros de specs
+ * (atributos normalizados [{k, v}], índice multikey). Una sola agregación con $facet devuelve la página,
+ * el total, los conteos por atributo y el rango de precios del conjunto filtrado.
+ */
+@Service
+public class ProductoBusquedaService {
+    private static final Logger logger = LoggerFactory.getLogger(ProductoBusquedaService.class);
+    private static final int MAX_SIZE = 100;
+    private static final int BACKFILL_BATCH = 500;
+
+    private final MongoTemplate mongoTemplate;
+    private final ProductoService productoService;
+    private final StockService stockService;
+
+    @Value("${app.productos.facetas.max-valores:20}")
+    private int maxValoresPorFaceta;
+
+    @Value("${app.productos.atributos.backfill-on-startup:true}")
+    private boolean backfillOnStartup;
+
+    public ProductoBusquedaService(MongoTemplate mongoTemplate, ProductoService productoService, StockService stockService) {
+        this.mongoTemplate = mongoTemplate;
+        this.productoService = productoService;
+        this.stockService = stockService;
+    }
+
+    /**
+     * @param specs clave normalizada -> valores aceptados. Valores de una misma clave se combinan con OR,
+     *              claves distintas con AND.
+     */
+    public Map<String, Object> buscar(String categoriaId, String tallerId, Double precioMin, Double precioMax,
+                                      Map<String, List<String>> specs, int page, int size) {
+        if (page < 0) page = 0;
+        if (size <= 0) size = 20;
+        if (size > MAX_SIZE) size = MAX_SIZE;
+
+        List<Criteria> filtros = new ArrayList<>();
+        if (categoriaId != null && !categoriaId.isBlank()) filtros.add(Criteria.where("categoriaId").is(categoriaId));
+        if (tallerId != null && !tallerId.isBlank()) filtros.add(Criteria.where("tallerId").is(tallerId));
+        if (precioMin != null || precioMax != null) {
+            Criteria precio = Criteria.where("precio");
+            if (precioMin != null) precio = precio.gte(precioMin);
+            if (precioMax != null) precio = precio.lte(precioMax);
+            filtros.add(precio);
+        }
+        if (specs != null) {
+            for (Map.Entry<String, List<String>> e : specs.entrySet()) {
+                filtros.add(Criteria.where("atributos").elemMatch(Criteria.where("k").is(e.getKey()).and("v").in(e.getValue())));
+            }
+        }
+        Criteria criteria = filtros.isEmpty() ? new Criteria() : new Criteria().andOperator(filtros.toArray(new Criteria[0]));
+
+        Aggregation agg = Aggregation.newAggregation(
+                Aggregation.match(criteria),
+                Aggregation.facet(
+                        Aggregation.sort(Sort.by(Sort.Direction.ASC, "nombre", "_id")),
+                        Aggregation.skip((long) page * size),
+                        Aggregation.limit(size)).as("items")
+                        .and(Aggregation.count().as("total")).as("total")
+                        .and(Aggregation.unwind("atributos"),
+                                Aggregation.group("atributos.k", "atributos.v").count().as("count"),
+                                Aggregation.sort(Sort.by(Sort.Direction.DESC, "count"))).as("atributos")
+                        .and(Aggregation.group().min("precio").as("min").max("precio").as("max")).as("precio"));
+        Document res = mongoTemplate.aggregate(agg, "productos", Document.class).getUniqueMappedResult();
+        if (res == null) res = new Document();
+
+        List<Producto> productos = new ArrayList<>();
+        for (Document d : res.getList("items", Document.class, List.of())) {
+            productos.add(mongoTemplate.getConverter().read(Producto.class, d));
+        }
+        Map<String, List<Stock>> stock = stockService.getStockByProductos(productos.stream().map(Producto::getId).toList());
+        List<ProductoResponse> items = productos.stream()
+                .map(p -> productoService.toResponse(p, stock.getOrDefault(p.getId(), List.of())))
+                .toList();
+
+        List<Document> totalDocs = res.getList("total", Document.class, List.of());
+        long total = totalDocs.isEmpty() ? 0 : ((Number) totalDocs.get(0).get("total")).longValue();
+
+        // clave -> [{valor, count}] ordenado por frecuencia, como mucho maxValoresPorFaceta valores por clave
+        Map<String, List<Map<String, Object>>> facetas = new LinkedHashMap<>();
+        for (Document d : res.getList("atributos", Document.class, List.of())) {
+            Document id = d.get("_id", Document.class);
+            if (id == null || id.getString("k") == null) continue;
+            List<Map<String, Object>> valores = facetas.computeIfAbsent(id.getString("k"), k -> new ArrayList<>());
+            if (valores.size() < maxValoresPorFaceta) {
+                valores.add(Map.of("valor", String.valueOf(id.get("v")), "count", ((Number) d.get("count")).longValue()));
+            }
+        }
+
+        Map<String, Object> rangoPrecio = new HashMap<>();
+        List<Document> precioDocs = res.getList("precio", Document.class, List.of());
+        if (!precioDocs.isEmpty()) {
+            rangoPrecio.put("min", precioDocs.get(0).get("min"));
+            rangoPrecio.put("max", precioDocs.get(0).get("max"));
+        }
+
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("productos", items);
+        out.put("total", total);
+        out.put("page", page);
+        out.put("size", size);
+        out.put("facetas", facetas);
+        out.put("precio", rangoPrecio);
+        return out;
+    }
+
+    /**
+     * Rellena atributos en productos anteriores a este campo (tienen specs pero no atributos).
+     * Idempotente: en cada lote solo se leen _id y specs, y se escribe con un bulk de updateOne.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillAtributos() {
+        if (!backfillOnStartup) return;
+        try {
+            Criteria pendientes = Criteria.where("specs").ne(null).and("atributos").exists(false);
+            long actualizados = 0;
+            while (true) {
+                Query q = new Query(pendientes).limit(BACKFILL_BATCH);
+                q.fields().include("_id").include("specs");
+                List<Producto> lote = mongoTemplate.find(q, Producto.class);
+                if (lote.isEmpty()) break;
+                BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Producto.class);
+                for (Producto p : lote) {
+                    List<Atributo> atributos = Atributo.desdeSpecs(p.getSpecs());
+                    // lista vacía en vez de null para que el producto no vuelva a aparecer como pendiente
+                    bulk.updateOne(Query.query(Criteria.where("_id").is(p.getId())),
+                            new Update().set("atributos", atributos == null ? List.of() : atributos));
+                }
+                actualizados += bulk.execute().getModifiedCount();
+                if (lote.size() < BACKFILL_BATCH) break;
+            }
+            if (actualizados > 0) logger.info("Backfill de atributos de producto: {} documentos actualizados", actualizados);
+        } catch (Exception ex) {
+            logger.warn("No se pudo completar el backfill de atributos de producto: {}", ex.getMessage());
+        }
+    }
+}
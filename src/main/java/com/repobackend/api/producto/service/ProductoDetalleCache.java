@@ -0,0 +1,94 @@
+package com.repobackend.api.producto.service;
+
+import java.time.Duration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.repobackend.api.common.http.CatalogHttpCache;
+import com.repobackend.api.producto.dto.ProductoResponse;
+import com.repobackend.api.producto.event.ProductoCambiadoEvent;
+import com.repobackend.api.producto.model.Producto;
+import com.repobackend.api.stock.event.StockChangedEvent;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Read model en memoria del detalle público de producto: ProductoResponse ya enriquecido con stock por almacén,
+ * más su ETag, para servir GET /api/public/productos/{id} sin findById ni consultas de stock.
+ *
+ * - Carga single-flight: ráfagas de misses para el mismo id esperan una sola carga desde Mongo.
+ * - Invalidación write-through con ProductoCambiadoEvent (ProductoService) y StockChangedEvent (StockService).
+ *   Con varias instancias la invalidación es local; expire-after-write acota lo que puede quedar desfasado.
+ * - Modo stale-while-revalidate opcional (refresh-after-write-ms > 0): pasado ese tiempo se sigue sirviendo
+ *   la entrada y se recarga en segundo plano.
+ */
+@Component
+public class ProductoDetalleCache {
+    private static final Logger logger = LoggerFactory.getLogger(ProductoDetalleCache.class);
+
+    private final ProductoService productoService;
+    private final LoadingCache<String, Detalle> cache;
+
+    public ProductoDetalleCache(ProductoService productoService,
+                                ObjectProvider<MeterRegistry> meterRegistry,
+                                @Value("${app.cache.producto-detalle.maximum-size:2000}") long maximumSize,
+                                @Value("${app.cache.producto-detalle.expire-after-write-ms:300000}") long expireAfterWriteMs,
+                                @Value("${app.cache.producto-detalle.refresh-after-write-ms:0}") long refreshAfterWriteMs) {
+        this.productoService = productoService;
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofMillis(expireAfterWriteMs))
+                .recordStats();
+        if (refreshAfterWriteMs > 0 && refreshAfterWriteMs < expireAfterWriteMs) {
+            builder.refreshAfterWrite(Duration.ofMillis(refreshAfterWriteMs));
+        }
+        this.cache = builder.build(this::load);
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) CaffeineCacheMetrics.monitor(registry, cache, "productoDetalle");
+    }
+
+    /** Detalle del producto o null si no existe (los ids inexistentes no se cachean). */
+    public Detalle get(String id) {
+        if (id == null || id.isBlank()) return null;
+        return cache.get(id);
+    }
+
+    @EventListener
+    public void onProductoCambiado(ProductoCambiadoEvent event) {
+        cache.invalidate(event.productoId);
+    }
+
+    @EventListener
+    public void onStockChanged(StockChangedEvent event) {
+        cache.invalidate(event.productoId);
+    }
+
+    private Detalle load(String id) {
+        Producto p = productoService.getById(id).orElse(null);
+        if (p == null) return null;
+        logger.debug("Cargando detalle de producto {} en cache", id);
+        return new Detalle(p, productoService.toResponse(p));
+    }
+
+    /** Respuesta enriquecida y validadores HTTP calculados una sola vez por versión del producto. */
+    public static final class Detalle {
+        public final ProductoResponse producto;
+        public final String etag;
+        public final long lastModified;
+
+        Detalle(Producto p, ProductoResponse producto) {
+            this.producto = producto;
+            this.lastModified = p.getActualizadoEn() != null ? p.getActualizadoEn().getTime()
+                    : (p.getCreadoEn() != null ? p.getCreadoEn().getTime() : -1);
+            this.etag = CatalogHttpCache.weakEtag("producto", p.getId(), p.getVersion(), lastModified);
+        }
+    }
+}
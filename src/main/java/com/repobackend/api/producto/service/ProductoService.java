@@ -6,6 +6,9 @@ import java.util.Map;
 import java.util.Optional;
 
 import org.bson.types.ObjectId;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
@@ -16,13 +19,15 @@ import org.springframework.stereotype.Service;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.Authentication;
 
+import com.repobackend.api.common.http.CatalogHttpCache;
 import com.repobackend.api.producto.dto.ProductoRequest;
 import com.repobackend.api.producto.dto.ProductoResponse;
+import com.repobackend.api.producto.event.ProductoCambiadoEvent;
 import com.repobackend.api.producto.model.Producto;
 import com.repobackend.api.producto.repository.ProductoRepository;
 import com.repobackend.api.stock.service.StockService;
 import com.repobackend.api.auth.service.AuthorizationService;
-import com.repobackend.api.cloud.service.CloudinaryService;
+import com.repobackend.api.media.service.MediaGarbageCollector;
 import com.repobackend.api.media.MediaSanitizer;
 import com.repobackend.api.configuracion.service.ConfiguracionGlobalService;
 
@@ -36,16 +41,18 @@ public class ProductoService {
     private final MongoTemplate mongoTemplate;
     private final StockService stockService;
     private final AuthorizationService authorizationService;
-    private final CloudinaryService cloudinaryService;
+    private final MediaGarbageCollector mediaGarbageCollector;
     private final ConfiguracionGlobalService configuracionGlobalService;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public ProductoService(ProductoRepository productoRepository, MongoTemplate mongoTemplate, StockService stockService, AuthorizationService authorizationService, CloudinaryService cloudinaryService, ConfiguracionGlobalService configuracionGlobalService) {
+    public ProductoService(ProductoRepository productoRepository, MongoTemplate mongoTemplate, StockService stockService, AuthorizationService authorizationService, MediaGarbageCollector mediaGarbageCollector, ConfiguracionGlobalService configuracionGlobalService, ApplicationEventPublisher eventPublisher) {
         this.productoRepository = productoRepository;
         this.mongoTemplate = mongoTemplate;
         this.stockService = stockService;
         this.authorizationService = authorizationService;
-        this.cloudinaryService = cloudinaryService;
+        this.mediaGarbageCollector = mediaGarbageCollector;
         this.configuracionGlobalService = configuracionGlobalService;
+        this.eventPublisher = eventPublisher;
     }
 
     @PreAuthorize("hasRole('ADMIN') or hasRole('VENDEDOR')")
@@ -69,6 +76,7 @@ public class ProductoService {
             p.setListaMedios(MediaSanitizer.sanitize((List<java.util.Map<String, Object>>) lm));
         }
         p.setCreadoEn(new Date());
+        p.marcarCreado();
         // set owner from authentication if available
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         if (auth != null && auth.isAuthenticated()) {
@@ -83,17 +91,21 @@ public class ProductoService {
             }
         }
         Producto saved = productoRepository.save(p);
+        publicarCambio(saved.getId(), false);
         return Map.of("producto", saved);
     }
 
     // DTO-based creation
     @PreAuthorize("hasRole('ADMIN') or hasRole('VENDEDOR')")
     public Map<String, Object> crearProducto(ProductoRequest req) {
+        String errorCompat = validarCompatibilidades(req.getCompatibilidades());
+        if (errorCompat != null) return Map.of("error", errorCompat);
         Producto p = toEntity(req);
         if (p.getIdString() == null || p.getIdString().isBlank()) {
             p.setIdString(new ObjectId().toHexString());
         }
         p.setCreadoEn(new Date());
+        p.marcarCreado();
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         if (auth != null && auth.isAuthenticated()) {
             p.setOwnerId(auth.getName());
@@ -107,6 +119,7 @@ public class ProductoService {
             }
         }
         Producto saved = productoRepository.save(p);
+        publicarCambio(saved.getId(), false);
         return Map.of("producto", toResponse(saved));
     }
 
@@ -123,10 +136,31 @@ public class ProductoService {
         p.setCategoriaId(req.getCategoriaId());
         p.setListaMedios(req.getListaMedios() == null ? null : MediaSanitizer.sanitize(req.getListaMedios()));
         p.setSpecs(req.getSpecs());
+        p.setCompatibilidades(req.getCompatibilidades());
         return p;
     }
 
     public ProductoResponse toResponse(Producto p) {
+        java.util.List<com.repobackend.api.stock.model.Stock> rows;
+        try {
+            rows = stockService.getStockByProducto(p.getId());
+        } catch (Exception ex) {
+            // En caso de fallo al obtener stock de almacenes, usar stock del producto si existe
+            ProductoResponse r = toResponse(p, java.util.List.of());
+            if (p.getStock() != null && p.getStock() > 0) {
+                logger.warn("Error al obtener stock de almacenes para producto {}, usando stock legacy: {}", p.getId(), p.getStock(), ex);
+            } else {
+                logger.error("Error al obtener stock para producto {} y no hay stock legacy: {}", p.getId(), ex.getMessage());
+            }
+            return r;
+        }
+        return toResponse(p, rows);
+    }
+
+    /**
+     * Igual que toResponse(Producto) pero con las filas de stock ya cargadas (p. ej. en lote para un listado).
+     */
+    public ProductoResponse toResponse(Producto p, java.util.List<com.repobackend.api.stock.model.Stock> stockRows) {
         ProductoResponse r = new ProductoResponse();
         r.setId(p.getId());
         r.setIdString(p.getIdString());
@@ -139,36 +173,24 @@ public class ProductoService {
         r.setListaMedios(p.getListaMedios());
         // copiar specs estructuradas
         r.setSpecs(p.getSpecs());
+        r.setCompatibilidades(p.getCompatibilidades());
         // thumbnailUrl proviene de la primera imagen (puede ser url completa o publicId)
         r.setThumbnailUrl(p.getThumbnailUrl());
-        // Rellenar stock total y desglose por almacén desde StockService
-        try {
-            int total = stockService.getTotalStock(p.getId());
-            var rows = stockService.getStockByProducto(p.getId());
-            java.util.List<java.util.Map<String, Object>> breakdown = new java.util.ArrayList<>();
-            for (var s : rows) {
-                breakdown.add(java.util.Map.of("almacenId", s.getAlmacenId(), "cantidad", s.getCantidad()));
-            }
-            r.setStockByAlmacen(breakdown);
+        // Rellenar stock total y desglose por almacén
+        int total = 0;
+        java.util.List<java.util.Map<String, Object>> breakdown = new java.util.ArrayList<>();
+        for (var s : stockRows == null ? java.util.List.<com.repobackend.api.stock.model.Stock>of() : stockRows) {
+            total += s.getCantidad() == null ? 0 : s.getCantidad();
+            breakdown.add(java.util.Map.of("almacenId", s.getAlmacenId(), "cantidad", s.getCantidad()));
+        }
+        r.setStockByAlmacen(breakdown);
 
-            // Si no hay stock en almacenes pero el producto tiene stock legacy, usar ese como fallback
-            if (total == 0 && (p.getStock() != null && p.getStock() > 0)) {
-                r.setTotalStock(p.getStock());
-                logger.debug("Producto {} sin stock en almacenes, usando stock legacy: {}", p.getId(), p.getStock());
-            } else {
-                r.setTotalStock(total);
-            }
-        } catch (Exception ex) {
-            // En caso de fallo al obtener stock de almacenes, usar stock del producto si existe
-            if (p.getStock() != null && p.getStock() > 0) {
-                r.setTotalStock(p.getStock());
-                r.setStockByAlmacen(java.util.List.of());
-                logger.warn("Error al obtener stock de almacenes para producto {}, usando stock legacy: {}", p.getId(), p.getStock(), ex);
-            } else {
-                r.setTotalStock(0);
-                r.setStockByAlmacen(java.util.List.of());
-                logger.error("Error al obtener stock para producto {} y no hay stock legacy: {}", p.getId(), ex.getMessage());
-            }
+        // Si no hay stock en almacenes pero el producto tiene stock legacy, usar ese como fallback
+        if (total == 0 && (p.getStock() != null && p.getStock() > 0)) {
+            r.setTotalStock(p.getStock());
+            logger.debug("Producto {} sin stock en almacenes, usando stock legacy: {}", p.getId(), p.getStock());
+        } else {
+            r.setTotalStock(total);
         }
         r.setCreadoEn(p.getCreadoEn());
         return r;
@@ -199,6 +221,14 @@ public class ProductoService {
         return productoRepository.findById(id);
     }
 
+    // Varios productos con un solo findAllById: id -> Producto (los ids inexistentes no aparecen)
+    public Map<String, Producto> getByIds(java.util.Collection<String> ids) {
+        if (ids == null || ids.isEmpty()) return Map.of();
+        Map<String, Producto> map = new java.util.HashMap<>();
+        for (Producto p : productoRepository.findAllById(ids)) map.put(p.getId(), p);
+        return map;
+    }
+
     public Producto findByIdString(String idString) {
         return productoRepository.findByIdString(idString);
     }
@@ -236,7 +266,9 @@ public class ProductoService {
             Object lm = body.get("listaMedios");
             if (lm instanceof List) p.setListaMedios(MediaSanitizer.sanitize((List<java.util.Map<String, Object>>) lm));
         }
+        p.marcarModificado();
         Producto saved = productoRepository.save(p);
+        publicarCambio(id, false);
         return Map.of("producto", saved);
     }
 
@@ -254,7 +286,14 @@ public class ProductoService {
         if (req.getCategoriaId() != null) p.setCategoriaId(req.getCategoriaId());
         if (req.getListaMedios() != null) p.setListaMedios(MediaSanitizer.sanitize(req.getListaMedios()));
         if (req.getSpecs() != null) p.setSpecs(req.getSpecs());
+        if (req.getCompatibilidades() != null) {
+            String errorCompat = validarCompatibilidades(req.getCompatibilidades());
+            if (errorCompat != null) return Map.of("error", errorCompat);
+            p.setCompatibilidades(req.getCompatibilidades());
+        }
+        p.marcarModificado();
         Producto saved = productoRepository.save(p);
+        publicarCambio(id, false);
         return Map.of("producto", toResponse(saved));
     }
 
@@ -270,18 +309,20 @@ public class ProductoService {
 
         if (delta > 0) {
             Query q = Query.query(Criteria.where("_id").is(id));
-            Update u = new Update().inc("stock", delta);
+            Update u = new Update().inc("stock", delta).inc("version", 1).set("actualizadoEn", new java.util.Date());
             Producto updated = mongoTemplate.findAndModify(q, u, FindAndModifyOptions.options().returnNew(true), Producto.class);
             if (updated == null) return Map.of("error", "Producto no encontrado");
+            publicarCambioStock(id);
             return Map.of("producto", updated);
         }
 
         // delta < 0: decrementar sólo si hay stock suficiente
         int need = -delta;
         Query q = Query.query(Criteria.where("_id").is(id).and("stock").gte(need));
-        Update u = new Update().inc("stock", delta);
+        Update u = new Update().inc("stock", delta).inc("version", 1).set("actualizadoEn", new java.util.Date());
         Producto updated = mongoTemplate.findAndModify(q, u, FindAndModifyOptions.options().returnNew(true), Producto.class);
         if (updated == null) return Map.of("error", "Producto no encontrado o stock insuficiente");
+        publicarCambioStock(id);
         return Map.of("producto", updated);
     }
 
@@ -292,85 +333,48 @@ public class ProductoService {
     public Producto decreaseStockIfAvailable(String productoId, int qty) {
         if (qty <= 0) throw new IllegalArgumentException("qty debe ser > 0");
         Query q = Query.query(Criteria.where("_id").is(productoId).and("stock").gte(qty));
-        Update u = new Update().inc("stock", -qty);
+        Update u = new Update().inc("stock", -qty).inc("version", 1).set("actualizadoEn", new java.util.Date());
         Producto updated = mongoTemplate.findAndModify(q, u, FindAndModifyOptions.options().returnNew(true), Producto.class);
+        if (updated != null) publicarCambioStock(productoId);
         return updated;
     }
 
+    private static String validarCompatibilidades(List<com.repobackend.api.producto.model.Compatibilidad> compatibilidades) {
+        if (compatibilidades == null) return null;
+        for (var c : compatibilidades) {
+            String err = c == null ? "compatibilidad vacía" : c.validar();
+            if (err != null) return err;
+        }
+        return null;
+    }
+
+    // Notifica a los read models en memoria (detalle cacheado, índices) que el producto cambió
+    private void publicarCambio(String productoId, boolean eliminado) {
+        try { eventPublisher.publishEvent(new ProductoCambiadoEvent(this, productoId, eliminado)); } catch (Exception ex) { /* no bloquear la escritura */ }
+    }
+
+    // Solo cambió el stock: invalida el detalle cacheado pero no los índices de compatibilidad/autocompletado
+    private void publicarCambioStock(String productoId) {
+        try { eventPublisher.publishEvent(new ProductoCambiadoEvent(this, productoId, false, true)); } catch (Exception ex) { /* no bloquear la escritura */ }
+    }
+
     @PreAuthorize("hasRole('ADMIN') or @authorizationService.canManageProduct(authentication.name, #id)")
     public Map<String, Object> eliminarProducto(String id) {
         Optional<Producto> maybe = productoRepository.findById(id);
         if (maybe.isEmpty()) return Map.of("error", "Producto no encontrado");
         Producto p = maybe.get();
 
-        // Intentar eliminar recursos asociados en Cloudinary (si hay listaMedios)
+        // Encolar el borrado de los medios en Cloudinary; la cola los elimina en segundo plano.
+        // Si no se pudo encolar, no borrar el producto: sus medios quedarían huérfanos en Cloudinary
         try {
-            if (p.getListaMedios() != null && !p.getListaMedios().isEmpty()) {
-                logger.info("Intentando eliminar {} medios de Cloudinary para producto {}", p.getListaMedios().size(), id);
-                for (Map<String, Object> m : p.getListaMedios()) {
-                    if (m == null) continue;
-                    String publicId = null;
-                    Object pub = m.get("publicId");
-                    if (pub instanceof String && !((String)pub).isBlank()) {
-                        publicId = ((String)pub).trim();
-                        logger.info("PublicId encontrado directamente: {}", publicId);
-                    } else {
-                        // intentar extraer publicId desde secure_url o url
-                        Object su = m.get("secure_url");
-                        Object uo = m.get("url");
-                        String u = su != null ? su.toString() : (uo != null ? uo.toString() : null);
-                        logger.info("Extrayendo publicId de URL: {}", u);
-                        if (u != null && !u.isBlank()) {
-                            int pos = u.indexOf("/image/upload/");
-                            if (pos >= 0) {
-                                String after = u.substring(pos + "/image/upload/".length());
-                                // quitar prefijo de versión si existe: v12345/
-                                after = after.replaceFirst("^v\\d+/", "");
-                                publicId = after;
-                            } else {
-                                pos = u.indexOf("/upload/");
-                                if (pos >= 0) {
-                                    String after = u.substring(pos + "/upload/".length());
-                                    after = after.replaceFirst("^v\\d+/", "");
-                                    publicId = after;
-                                }
-                            }
-                        }
-                    }
-                    if (publicId != null && !publicId.isBlank()) {
-                        logger.info("Intentando destruir recurso Cloudinary con publicId: {}", publicId);
-                        try {
-                            // Cloudinary a veces necesita el publicId sin extensión
-                            String publicIdSinExt = publicId;
-                            if (publicId.contains(".")) {
-                                publicIdSinExt = publicId.substring(0, publicId.lastIndexOf('.'));
-                            }
-                            // Intentar primero sin extensión (formato preferido por Cloudinary)
-                            try {
-                                Map<String,Object> result = cloudinaryService.destroy(publicIdSinExt);
-                                logger.info("Recurso Cloudinary '{}' eliminado exitosamente: {}", publicIdSinExt, result);
-                            } catch (Exception ex1) {
-                                // Si falla, intentar con extensión
-                                logger.warn("Fallo al eliminar sin extensión '{}', intentando con extensión: {}", publicIdSinExt, ex1.getMessage());
-                                Map<String,Object> result = cloudinaryService.destroy(publicId);
-                                logger.info("Recurso Cloudinary '{}' eliminado exitosamente con extensión: {}", publicId, result);
-                            }
-                        } catch (Exception ex) {
-                            logger.error("No se pudo destruir recurso Cloudinary '{}' al eliminar producto {}: {}", publicId, id, ex.getMessage(), ex);
-                        }
-                    } else {
-                        logger.warn("No se pudo extraer publicId del medio: {}", m);
-                    }
-                }
-            } else {
-                logger.info("No hay medios para eliminar en producto {}", id);
-            }
+            mediaGarbageCollector.enqueue(p.getListaMedios(), "producto", id);
         } catch (Exception ex) {
-            // registrar y continuar con eliminación en base de datos
-            logger.error("Error al intentar eliminar recursos en Cloudinary para el producto {}: {}", id, ex.getMessage(), ex);
+            logger.error("No se pudieron encolar los medios del producto {} para borrado: {}", id, ex.getMessage(), ex);
+            return Map.of("error", "No se pudo eliminar el producto, intente de nuevo", "status", 503);
         }
 
         productoRepository.deleteById(id);
+        publicarCambio(id, true);
         return Map.of("deleted", true);
     }
 
@@ -384,13 +388,52 @@ public class ProductoService {
         return Map.of("productos", items, "total", ppage.getTotalElements(), "page", page, "size", size);
     }
 
+    /**
+     * Rellena version=0 y actualizadoEn=creadoEn en productos anteriores a estos campos, para que su ETag y
+     * Last-Modified sean estables.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillVersion() {
+        try {
+            long n = CatalogHttpCache.backfillValidadores(mongoTemplate, Producto.class);
+            if (n > 0) logger.info("Backfill de version/actualizadoEn de producto: {} documentos actualizados", n);
+        } catch (Exception ex) {
+            logger.warn("No se pudo completar el backfill de version/actualizadoEn de producto: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * ETag del listado público (mismos filtros y paginación que listar / listarPorCategoriaPaginado /
+     * productosPorNombrePaginado) calculado con una proyección de _id, version y actualizadoEn más el conteo,
+     * sin consultar stock ni construir las respuestas.
+     */
+    public String etagListadoPublico(String q, String categoriaId, int page, int size) {
+        if (page < 0) page = 0;
+        if (size <= 0) size = 20;
+        Criteria criteria = new Criteria();
+        if (q != null && !q.isBlank()) criteria = Criteria.where("nombre").regex(java.util.regex.Pattern.quote(q), "i");
+        else if (categoriaId != null && !categoriaId.isBlank()) criteria = Criteria.where("categoriaId").is(categoriaId);
+        Query pageQuery = new Query(criteria).skip((long) page * size).limit(size);
+        pageQuery.fields().include("_id", "version", "actualizadoEn");
+        long total = mongoTemplate.count(new Query(criteria), Producto.class);
+        List<Object> parts = new java.util.ArrayList<>(List.of("productos", String.valueOf(q), String.valueOf(categoriaId), page, size, total));
+        for (Producto p : mongoTemplate.find(pageQuery, Producto.class)) {
+            parts.add(p.getId());
+            parts.add(p.getVersion());
+            parts.add(p.getActualizadoEn() == null ? 0 : p.getActualizadoEn().getTime());
+        }
+        return CatalogHttpCache.weakEtag(parts.toArray());
+    }
+
     // Obtener varios productos por lista de ids y devolver un mapa id->ProductoResponse
     public java.util.Map<String, ProductoResponse> findResponsesByIds(java.util.List<String> ids) {
         if (ids == null || ids.isEmpty()) return java.util.Map.of();
         java.util.List<Producto> list = productoRepository.findAllById(ids);
+        // stock de todos los productos en una sola consulta
+        var stock = stockService.getStockByProductos(list.stream().map(Producto::getId).toList());
         java.util.Map<String, ProductoResponse> map = new java.util.HashMap<>();
         for (Producto p : list) {
-            ProductoResponse pr = toResponse(p);
+            ProductoResponse pr = toResponse(p, stock.getOrDefault(p.getId(), java.util.List.of()));
             map.put(p.getId(), pr);
         }
         return map;
@@ -0,0 +1,227 @@
+package com.repobackend.api.producto.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.repobackend.api.categoria.event.CategoriaCambiadoEvent;
+import com.repobackend.api.categoria.model.Categoria;
+import com.repobackend.api.common.util.TextNormalizer;
+import com.repobackend.api.producto.event.ProductoCambiadoEvent;
+import com.repobackend.api.producto.model.Producto;
+
+/**
+ * Índice de prefijos en memoria para el autocompletado de nombres de producto, códigos (idString) y categorías.
+ *
+ * Las claves son "alcance \u0001 término \u0001 tipo:id" en un ConcurrentSkipListMap: una sugerencia es un
+ * subMap por prefijo recorrido hasta juntar k resultados distintos, sin tocar Mongo. El término está normalizado
+ * (sin tildes, minúsculas) y se indexa desde el inicio de cada palabra, así "aceite" encuentra "Filtro de aceite".
+ * Cada documento se indexa en el alcance global y en el de su taller.
+ *
+ * Se actualiza con ProductoCambiadoEvent / CategoriaCambiadoEvent y se reconstruye completo al arrancar y
+ * periódicamente (cambios hechos por otras instancias). La reconstrucción lee Mongo sin tomar el lock: los
+ * cambios incrementales que llegan mientras tanto se aplican al índice vigente y se anotan para repetirlos
+ * sobre el nuevo justo antes de publicarlo, así una escritura nunca espera a la reconstrucción.
+ */
+@Component
+public class TypeaheadIndex {
+    private static final Logger logger = LoggerFactory.getLogger(TypeaheadIndex.class);
+    private static final char SEP = '\u0001';
+    private static final String GLOBAL = "*";
+    private static final int MAX_PALABRAS = 6;
+    public static final int MAX_LIMIT = 20;
+
+    private final MongoTemplate mongoTemplate;
+    private volatile ConcurrentSkipListMap<String, Sugerencia> index = new ConcurrentSkipListMap<>();
+    // "producto:id" / "categoria:id" -> claves escritas, para reemplazarlas al actualizar
+    private volatile Map<String, List<String>> clavesPorDoc = new ConcurrentHashMap<>();
+    // protege los reemplazos incrementales y la publicación del índice nuevo (secciones cortas, sin I/O)
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicBoolean reconstruyendo = new AtomicBoolean();
+    // cambios recibidos durante una reconstrucción; null si no hay ninguna en curso
+    private List<Cambio> pendientes;
+
+    public TypeaheadIndex(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /** Sugerencias cuyo término empieza por q. tallerId null o vacío: catálogo completo. */
+    public List<Sugerencia> sugerir(String q, String tallerId, int limit) {
+        String prefijo = TextNormalizer.normalize(q);
+        if (prefijo == null) return List.of();
+        if (limit <= 0 || limit > MAX_LIMIT) limit = 10;
+        String alcance = tallerId == null || tallerId.isBlank() ? GLOBAL : tallerId;
+        String desde = alcance + SEP + prefijo;
+        Map<String, Sugerencia> out = new LinkedHashMap<>();
+        for (Sugerencia s : index.subMap(desde, true, desde + Character.MAX_VALUE, false).values()) {
+            out.putIfAbsent(s.tipo() + ":" + s.id(), s);
+            if (out.size() >= limit) break;
+        }
+        return new ArrayList<>(out.values());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        reconstruir();
+    }
+
+    @Scheduled(fixedDelayString = "${app.typeahead.rebuild-interval-ms:900000}", initialDelayString = "${app.typeahead.rebuild-interval-ms:900000}")
+    public void reconstruirPeriodico() {
+        reconstruir();
+    }
+
+    /** Reconstruye el índice en un mapa nuevo (proyección nombre/idString/tallerId) y lo publica de una vez. */
+    public void reconstruir() {
+        if (!reconstruyendo.compareAndSet(false, true)) return;
+        lock.lock();
+        try {
+            pendientes = new ArrayList<>();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            ConcurrentSkipListMap<String, Sugerencia> nuevo = new ConcurrentSkipListMap<>();
+            Map<String, List<String>> claves = new ConcurrentHashMap<>();
+            Query qp = new Query();
+            qp.fields().include("_id").include("nombre").include("idString").include("tallerId");
+            try (var stream = mongoTemplate.stream(qp, Producto.class)) {
+                stream.forEach(p -> indexar(nuevo, claves, sugerencia(p)));
+            }
+            Query qc = new Query();
+            qc.fields().include("_id").include("nombre").include("tallerId");
+            for (Categoria c : mongoTemplate.find(qc, Categoria.class)) indexar(nuevo, claves, sugerencia(c));
+            lock.lock();
+            try {
+                for (Cambio c : pendientes) aplicar(nuevo, claves, c.docKey(), c.sugerencia());
+                index = nuevo;
+                clavesPorDoc = claves;
+            } finally {
+                lock.unlock();
+            }
+            logger.info("Índice de autocompletado reconstruido: {} documentos, {} claves", claves.size(), nuevo.size());
+        } catch (Exception ex) {
+            logger.warn("No se pudo reconstruir el índice de autocompletado: {}", ex.getMessage());
+        } finally {
+            lock.lock();
+            try {
+                pendientes = null;
+            } finally {
+                lock.unlock();
+            }
+            reconstruyendo.set(false);
+        }
+    }
+
+    @EventListener
+    public void onProductoCambiado(ProductoCambiadoEvent event) {
+        if (event.soloStock) return;
+        try {
+            Producto p = null;
+            if (!event.eliminado) {
+                Query q = new Query(Criteria.where("_id").is(event.productoId));
+                q.fields().include("_id").include("nombre").include("idString").include("tallerId");
+                p = mongoTemplate.findOne(q, Producto.class);
+            }
+            reemplazar("producto:" + event.productoId, p == null ? null : sugerencia(p));
+        } catch (Exception ex) {
+            logger.warn("No se pudo actualizar el autocompletado del producto {}: {}", event.productoId, ex.getMessage());
+        }
+    }
+
+    @EventListener
+    public void onCategoriaCambiado(CategoriaCambiadoEvent event) {
+        try {
+            Categoria c = null;
+            if (!event.eliminado) {
+                Query q = new Query(Criteria.where("_id").is(event.categoriaId));
+                q.fields().include("_id").include("nombre").include("tallerId");
+                c = mongoTemplate.findOne(q, Categoria.class);
+            }
+            reemplazar("categoria:" + event.categoriaId, c == null ? null : sugerencia(c));
+        } catch (Exception ex) {
+            logger.warn("No se pudo actualizar el autocompletado de la categoría {}: {}", event.categoriaId, ex.getMessage());
+        }
+    }
+
+    void reemplazar(String docKey, Sugerencia s) {
+        lock.lock();
+        try {
+            aplicar(index, clavesPorDoc, docKey, s);
+            if (pendientes != null) pendientes.add(new Cambio(docKey, s));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void aplicar(ConcurrentSkipListMap<String, Sugerencia> target, Map<String, List<String>> claves, String docKey, Sugerencia s) {
+        List<String> anteriores = claves.remove(docKey);
+        if (anteriores != null) anteriores.forEach(target::remove);
+        if (s != null) indexar(target, claves, s);
+    }
+
+    private static void indexar(ConcurrentSkipListMap<String, Sugerencia> target, Map<String, List<String>> claves, Sugerencia s) {
+        if (s == null) return;
+        String docKey = s.tipo() + ":" + s.id();
+        Set<String> terminos = new LinkedHashSet<>(terminos(s.texto()));
+        if (s.codigo() != null) {
+            String codigo = TextNormalizer.normalize(s.codigo());
+            if (codigo != null) terminos.add(codigo);
+        }
+        if (terminos.isEmpty()) return;
+        List<String> escritas = new ArrayList<>();
+        for (String alcance : s.tallerId() == null ? List.of(GLOBAL) : List.of(GLOBAL, s.tallerId())) {
+            for (String t : terminos) {
+                String key = alcance + SEP + t + SEP + docKey;
+                target.put(key, s);
+                escritas.add(key);
+            }
+        }
+        claves.put(docKey, escritas);
+    }
+
+    // "Filtro de aceite" -> ["filtro de aceite", "de aceite", "aceite"]
+    static List<String> terminos(String texto) {
+        String n = TextNormalizer.normalize(texto);
+        if (n == null) return List.of();
+        List<String> out = new ArrayList<>();
+        out.add(n);
+        int pos = n.indexOf(' ');
+        while (pos >= 0 && out.size() < MAX_PALABRAS) {
+            out.add(n.substring(pos + 1));
+            pos = n.indexOf(' ', pos + 1);
+        }
+        return out;
+    }
+
+    private static Sugerencia sugerencia(Producto p) {
+        if (p.getNombre() == null && p.getIdString() == null) return null;
+        return new Sugerencia("producto", p.getId(), p.getNombre(), p.getIdString(), p.getTallerId());
+    }
+
+    private static Sugerencia sugerencia(Categoria c) {
+        if (c.getNombre() == null) return null;
+        return new Sugerencia("categoria", c.getId(), c.getNombre(), null, c.getTallerId());
+    }
+
+    private record Cambio(String docKey, Sugerencia sugerencia) {}
+
+    /** Resultado del autocompletado: tipo ("producto" o "categoria"), id y texto a mostrar. */
+    public record Sugerencia(String tipo, String id, String texto, String codigo, String tallerId) {}
+}
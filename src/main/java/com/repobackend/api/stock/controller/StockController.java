@@ -10,10 +10,12 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.repobackend.api.common.service.IdempotencyService;
 import com.repobackend.api.stock.service.StockService;
 
 // OpenAPI
@@ -29,9 +31,11 @@ import io.swagger.v3.oas.annotations.Parameter;
 @Tag(name = "Stock", description = "Operaciones para gestionar inventario por almacén")
 public class StockController {
     private final StockService stockService;
+    private final IdempotencyService idempotencyService;
 
-    public StockController(StockService stockService) {
+    public StockController(StockService stockService, IdempotencyService idempotencyService) {
         this.stockService = stockService;
+        this.idempotencyService = idempotencyService;
     }
 
     @Operation(
@@ -117,15 +121,20 @@ public class StockController {
         }
     )
     @PostMapping("/adjust")
-    public ResponseEntity<?> adjust(@RequestBody Map<String, Object> body, Authentication authentication) {
+    public ResponseEntity<?> adjust(@RequestBody Map<String, Object> body,
+                                    @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+                                    Authentication authentication) {
         String productoId = (String) body.get("productoId");
         String almacenId = (String) body.get("almacenId");
         Number deltaN = (Number) body.getOrDefault("delta", 0);
         int delta = deltaN == null ? 0 : deltaN.intValue();
         String userId = authentication == null ? null : authentication.getName();
-        var r = stockService.adjustStock(productoId, almacenId, delta, userId);
-        if (r.containsKey("error")) return ResponseEntity.badRequest().body(r);
-        return ResponseEntity.ok(r);
+        // Un reintento con el mismo Idempotency-Key no vuelve a aplicar el delta
+        return idempotencyService.execute("stock-adjust", userId, idempotencyKey, body, () -> {
+            var r = stockService.adjustStock(productoId, almacenId, delta, userId);
+            if (r.containsKey("error")) return ResponseEntity.badRequest().body(r);
+            return ResponseEntity.ok(r);
+        });
     }
 
     @Operation(
@@ -173,4 +182,85 @@ public class StockController {
         if (r.containsKey("error")) return ResponseEntity.status(404).body(r);
         return ResponseEntity.ok(r);
     }
+
+    @Operation(
+        summary = "Definir punto de reorden",
+        description = "Establece el umbral de reorden de un producto en un almacén (null lo quita). Cuando la cantidad queda en o por debajo del umbral se registra una alerta.",
+        requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(
+            description = "Producto, almacén y umbral",
+            content = @Content(
+                mediaType = "application/json",
+                examples = @ExampleObject(
+                    name = "Punto de reorden",
+                    value = "{\"productoId\":\"507f191e810c19729de860ea\",\"almacenId\":\"507faaa1bcf86cd799439011\",\"puntoReorden\":10}"
+                )
+            )
+        ),
+        responses = {
+            @ApiResponse(responseCode = "200", description = "Punto de reorden actualizado", content = @Content),
+            @ApiResponse(responseCode = "400", description = "Datos inválidos o permisos insuficientes", content = @Content)
+        }
+    )
+    @PutMapping("/punto-reorden")
+    public ResponseEntity<?> puntoReorden(@RequestBody Map<String, Object> body, Authentication authentication) {
+        String productoId = (String) body.get("productoId");
+        String almacenId = (String) body.get("almacenId");
+        Number puntoN = (Number) body.get("puntoReorden");
+        Integer punto = puntoN == null ? null : puntoN.intValue();
+        String userId = authentication == null ? null : authentication.getName();
+        var r = stockService.setPuntoReorden(productoId, almacenId, punto, userId);
+        if (r.containsKey("error")) return ResponseEntity.badRequest().body(r);
+        return ResponseEntity.ok(r);
+    }
+
+    @Operation(
+        summary = "Productos bajo el punto de reorden",
+        description = "Lista paginada de registros de stock del almacén con cantidad en o por debajo de su punto de reorden.",
+        parameters = {
+            @Parameter(name = "almacenId", description = "ID del almacén", required = true, example = "507faaa1bcf86cd799439011")
+        },
+        responses = {
+            @ApiResponse(responseCode = "200", description = "Listado obtenido", content = @Content),
+            @ApiResponse(responseCode = "403", description = "Sin permisos sobre el almacén", content = @Content)
+        }
+    )
+    @GetMapping("/bajo-reorden")
+    public ResponseEntity<?> bajoReorden(@RequestParam String almacenId,
+                                         @RequestParam(defaultValue = "0") int page,
+                                         @RequestParam(defaultValue = "20") int size,
+                                         Authentication authentication) {
+        String userId = authentication == null ? null : authentication.getName();
+        var r = stockService.listarBajoPuntoReorden(almacenId, userId, page, size);
+        return respuestaLectura(r);
+    }
+
+    @Operation(
+        summary = "Alertas de stock",
+        description = "Historial de cruces del punto de reorden del almacén, más recientes primero. pendientes=true devuelve solo las no atendidas.",
+        parameters = {
+            @Parameter(name = "almacenId", description = "ID del almacén", required = true, example = "507faaa1bcf86cd799439011"),
+            @Parameter(name = "pendientes", description = "Solo alertas no atendidas", required = false, example = "true")
+        },
+        responses = {
+            @ApiResponse(responseCode = "200", description = "Alertas obtenidas", content = @Content),
+            @ApiResponse(responseCode = "403", description = "Sin permisos sobre el almacén", content = @Content)
+        }
+    )
+    @GetMapping("/alertas")
+    public ResponseEntity<?> alertas(@RequestParam String almacenId,
+                                     @RequestParam(defaultValue = "false") boolean pendientes,
+                                     @RequestParam(defaultValue = "0") int page,
+                                     @RequestParam(defaultValue = "20") int size,
+                                     Authentication authentication) {
+        String userId = authentication == null ? null : authentication.getName();
+        var r = stockService.listarAlertas(almacenId, pendientes, userId, page, size);
+        return respuestaLectura(r);
+    }
+
+    private ResponseEntity<?> respuestaLectura(Map<String, Object> r) {
+        Object error = r.get("error");
+        if (error == null) return ResponseEntity.ok(r);
+        if (String.valueOf(error).startsWith("Permisos")) return ResponseEntity.status(403).body(r);
+        return ResponseEntity.badRequest().body(r);
+    }
 }
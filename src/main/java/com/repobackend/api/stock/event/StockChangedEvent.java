@@ -0,0 +1,18 @@
+package com.repobackend.api.stock.event;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * El stock total de un producto cambió (ajuste, set absoluto o eliminación de un registro por almacén).
+ * A diferencia de StockAdjustmentEvent (auditoría de movimientos) lleva el total resultante.
+ */
+public class StockChangedEvent extends ApplicationEvent {
+    public final String productoId;
+    public final int total;
+
+    public StockChangedEvent(Object source, String productoId, int total) {
+        super(source);
+        this.productoId = productoId;
+        this.total = total;
+    }
+}
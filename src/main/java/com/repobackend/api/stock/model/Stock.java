@@ -13,6 +13,10 @@ public class Stock {
     private String almacenId;
     private Integer cantidad = 0;
     private Date actualizadoEn = new Date();
+    // Punto de reorden del producto en este almacén (null: sin umbral) y si la cantidad está en o por debajo.
+    // El flag lo mantiene StockAlertaService al cruzar el umbral; respalda el índice parcial de faltantes.
+    private Integer puntoReorden;
+    private Boolean bajoPuntoReorden;
 
     public String getId() { return id; }
     public void setId(String id) { this.id = id; }
@@ -28,4 +32,10 @@ public class Stock {
 
     public Date getActualizadoEn() { return actualizadoEn; }
     public void setActualizadoEn(Date actualizadoEn) { this.actualizadoEn = actualizadoEn; }
+
+    public Integer getPuntoReorden() { return puntoReorden; }
+    public void setPuntoReorden(Integer puntoReorden) { this.puntoReorden = puntoReorden; }
+
+    public Boolean getBajoPuntoReorden() { return bajoPuntoReorden; }
+    public void setBajoPuntoReorden(Boolean bajoPuntoReorden) { this.bajoPuntoReorden = bajoPuntoReorden; }
 }
@@ -0,0 +1,50 @@
+package com.repobackend.api.stock.model;
+
+import java.util.Date;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Cruce del punto de reorden de un producto en un almacén: BAJO_PUNTO_REORDEN al llegar o bajar del umbral,
+ * REPUESTO al volver a superarlo. Se registra una sola vez por cruce.
+ */
+@Document(collection = "stock_alertas")
+public class StockAlerta {
+    public static final String TIPO_BAJO = "BAJO_PUNTO_REORDEN";
+    public static final String TIPO_REPUESTO = "REPUESTO";
+
+    @Id
+    private String id;
+    private String productoId;
+    private String almacenId;
+    private String tipo;
+    private Integer cantidad;
+    private Integer puntoReorden;
+    private boolean atendida = false;
+    private Date creadoEn = new Date();
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getProductoId() { return productoId; }
+    public void setProductoId(String productoId) { this.productoId = productoId; }
+
+    public String getAlmacenId() { return almacenId; }
+    public void setAlmacenId(String almacenId) { this.almacenId = almacenId; }
+
+    public String getTipo() { return tipo; }
+    public void setTipo(String tipo) { this.tipo = tipo; }
+
+    public Integer getCantidad() { return cantidad; }
+    public void setCantidad(Integer cantidad) { this.cantidad = cantidad; }
+
+    public Integer getPuntoReorden() { return puntoReorden; }
+    public void setPuntoReorden(Integer puntoReorden) { this.puntoReorden = puntoReorden; }
+
+    public boolean isAtendida() { return atendida; }
+    public void setAtendida(boolean atendida) { this.atendida = atendida; }
+
+    public Date getCreadoEn() { return creadoEn; }
+    public void setCreadoEn(Date creadoEn) { this.creadoEn = creadoEn; }
+}
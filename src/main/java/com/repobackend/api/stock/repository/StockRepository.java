@@ -8,6 +8,7 @@ import com.repobackend.api.stock.model.Stock;
 
 public interface StockRepository extends MongoRepository<Stock, String> {
     List<Stock> findByProductoId(String productoId);
+    List<Stock> findByProductoIdIn(java.util.Collection<String> productoIds);
     List<Stock> findByProductoIdAndAlmacenIdIn(String productoId, java.util.List<String> almacenIds);
     Stock findByProductoIdAndAlmacenId(String productoId, String almacenId);
 }
@@ -0,0 +1,99 @@
+package com.repobackend.api.stock.service;
+
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.ComparisonOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import com.repobackend.api.stock.model.Stock;
+import com.repobackend.api.stock.model.StockAlerta;
+
+/**
+ * Detección incremental de faltantes: se evalúa con el documento que devuelve el findAndModify de cada ajuste,
+ * sin leer de nuevo el stock.
+ *
+ * El flag bajoPuntoReorden se cambia con una actualización condicional que además comprueba con $expr la
+ * cantidad actual contra el umbral; solo quien gana ese cambio registra la alerta. Así ajustes concurrentes
+ * generan una alerta por cruce y el flag queda consistente con la última cantidad escrita.
+ */
+@Service
+public class StockAlertaService {
+    private static final Logger logger = LoggerFactory.getLogger(StockAlertaService.class);
+    private static final int MAX_SIZE = 100;
+
+    private final MongoTemplate mongoTemplate;
+
+    public StockAlertaService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /** Evalúa el registro recién modificado; registra una alerta si cruzó el punto de reorden. */
+    public void evaluar(Stock s) {
+        if (s == null || s.getId() == null) return;
+        boolean estabaBajo = Boolean.TRUE.equals(s.getBajoPuntoReorden());
+        boolean bajo = s.getPuntoReorden() != null && s.getCantidad() != null && s.getCantidad() <= s.getPuntoReorden();
+        if (bajo == estabaBajo) return;
+        try {
+            Criteria c = Criteria.where("_id").is(s.getId());
+            if (bajo) {
+                c = c.and("bajoPuntoReorden").ne(true)
+                        .andOperator(Criteria.expr(ComparisonOperators.valueOf("cantidad").lessThanEqualTo("puntoReorden")));
+            } else {
+                // sin puntoReorden $gt contra null es true: quitar el umbral también cierra el faltante
+                c = c.and("bajoPuntoReorden").is(true)
+                        .andOperator(Criteria.expr(ComparisonOperators.valueOf("cantidad").greaterThan("puntoReorden")));
+            }
+            long changed = mongoTemplate.updateFirst(new Query(c), new Update().set("bajoPuntoReorden", bajo), Stock.class).getModifiedCount();
+            if (changed == 0) return;
+            StockAlerta a = new StockAlerta();
+            a.setProductoId(s.getProductoId());
+            a.setAlmacenId(s.getAlmacenId());
+            a.setTipo(bajo ? StockAlerta.TIPO_BAJO : StockAlerta.TIPO_REPUESTO);
+            a.setCantidad(s.getCantidad());
+            a.setPuntoReorden(s.getPuntoReorden());
+            // una alerta de reposición deja atendidas las de faltante pendientes del mismo producto/almacén
+            if (!bajo) {
+                a.setAtendida(true);
+                mongoTemplate.updateMulti(Query.query(Criteria.where("productoId").is(s.getProductoId())
+                                .and("almacenId").is(s.getAlmacenId()).and("atendida").is(false)),
+                        new Update().set("atendida", true), StockAlerta.class);
+            }
+            mongoTemplate.insert(a);
+            logger.info("Stock {} producto={} almacen={} cantidad={} puntoReorden={}", a.getTipo(), s.getProductoId(), s.getAlmacenId(), s.getCantidad(), s.getPuntoReorden());
+        } catch (Exception ex) {
+            // no bloquear el ajuste por la alerta
+            logger.warn("No se pudo evaluar el punto de reorden de {}/{}: {}", s.getProductoId(), s.getAlmacenId(), ex.getMessage());
+        }
+    }
+
+    /** Registros del almacén en o por debajo del punto de reorden (índice parcial sobre bajoPuntoReorden). */
+    public Map<String, Object> bajoPuntoReorden(String almacenId, int page, int size) {
+        if (page < 0) page = 0;
+        if (size <= 0 || size > MAX_SIZE) size = 20;
+        Criteria c = Criteria.where("bajoPuntoReorden").is(true).and("almacenId").is(almacenId);
+        long total = mongoTemplate.count(new Query(c), Stock.class);
+        Query q = new Query(c).with(Sort.by(Sort.Direction.ASC, "productoId")).skip((long) page * size).limit(size);
+        List<Stock> items = mongoTemplate.find(q, Stock.class);
+        return Map.of("stock", items, "total", total, "page", page, "size", size);
+    }
+
+    /** Alertas del almacén, más recientes primero. soloPendientes: solo las no atendidas. */
+    public Map<String, Object> alertas(String almacenId, boolean soloPendientes, int page, int size) {
+        if (page < 0) page = 0;
+        if (size <= 0 || size > MAX_SIZE) size = 20;
+        Criteria c = Criteria.where("almacenId").is(almacenId);
+        if (soloPendientes) c = c.and("atendida").is(false);
+        long total = mongoTemplate.count(new Query(c), StockAlerta.class);
+        Query q = new Query(c).with(Sort.by(Sort.Direction.DESC, "creadoEn")).skip((long) page * size).limit(size);
+        List<StockAlerta> items = mongoTemplate.find(q, StockAlerta.class);
+        return Map.of("alertas", items, "total", total, "page", page, "size", size);
+    }
+}
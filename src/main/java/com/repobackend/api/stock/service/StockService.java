@@ -1,13 +1,18 @@
 package com.repobackend.api.stock.service;
 
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
+import org.bson.Document;
+
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.Update;
@@ -18,6 +23,7 @@ import com.repobackend.api.stock.repository.StockRepository;
 import com.repobackend.api.producto.repository.ProductoRepository;
 import com.repobackend.api.producto.model.Producto;
 import com.repobackend.api.stock.event.StockAdjustmentEvent;
+import com.repobackend.api.stock.event.StockChangedEvent;
 import com.repobackend.api.taller.model.Almacen;
 import com.repobackend.api.taller.service.TallerService;
 
@@ -28,13 +34,15 @@ public class StockService {
     private final MongoTemplate mongoTemplate;
     private final ApplicationEventPublisher eventPublisher;
     private final TallerService tallerService;
+    private final StockAlertaService stockAlertaService;
 
-    public StockService(StockRepository stockRepository, ProductoRepository productoRepository, MongoTemplate mongoTemplate, ApplicationEventPublisher eventPublisher, TallerService tallerService) {
+    public StockService(StockRepository stockRepository, ProductoRepository productoRepository, MongoTemplate mongoTemplate, ApplicationEventPublisher eventPublisher, TallerService tallerService, StockAlertaService stockAlertaService) {
         this.stockRepository = stockRepository;
         this.productoRepository = productoRepository;
         this.mongoTemplate = mongoTemplate;
         this.eventPublisher = eventPublisher;
         this.tallerService = tallerService;
+        this.stockAlertaService = stockAlertaService;
     }
 
     // Obtener el desglose de stock por almacén para un producto
@@ -42,12 +50,39 @@ public class StockService {
         return stockRepository.findByProductoId(productoId);
     }
 
+    // Desglose por almacén de varios productos con una sola consulta $in: productoId -> filas
+    public Map<String, List<Stock>> getStockByProductos(Collection<String> productoIds) {
+        if (productoIds == null || productoIds.isEmpty()) return Map.of();
+        Map<String, List<Stock>> byProducto = new HashMap<>();
+        for (Stock s : stockRepository.findByProductoIdIn(productoIds)) {
+            byProducto.computeIfAbsent(s.getProductoId(), k -> new java.util.ArrayList<>()).add(s);
+        }
+        return byProducto;
+    }
+
     // Obtener cantidad total sumando todos los almacenes
     public int getTotalStock(String productoId) {
         List<Stock> rows = stockRepository.findByProductoId(productoId);
         return rows.stream().mapToInt(s -> s.getCantidad() == null ? 0 : s.getCantidad()).sum();
     }
 
+    /**
+     * Cantidad total por producto para varios productos en una sola agregación ($match + $group).
+     * Los productos sin registros de stock no aparecen en el mapa.
+     */
+    public Map<String, Integer> getTotalStockByProductos(Collection<String> productoIds) {
+        if (productoIds == null || productoIds.isEmpty()) return Map.of();
+        Aggregation agg = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("productoId").in(productoIds)),
+                Aggregation.group("productoId").sum("cantidad").as("total"));
+        Map<String, Integer> totals = new HashMap<>();
+        for (Document d : mongoTemplate.aggregate(agg, Stock.class, Document.class).getMappedResults()) {
+            Number total = (Number) d.get("total");
+            totals.put(String.valueOf(d.get("_id")), total == null ? 0 : total.intValue());
+        }
+        return totals;
+    }
+
     /**
      * Ajusta el stock atómicamente en (productoId, almacenId).
      * - Si delta > 0: incrementa (crea el registro si no existe).
@@ -81,6 +116,7 @@ public class StockService {
             Update u = new Update().inc("cantidad", delta).set("actualizadoEn", new Date()).setOnInsert("productoId", productoId).setOnInsert("almacenId", almacenId);
             FindAndModifyOptions opts = FindAndModifyOptions.options().returnNew(true).upsert(true);
             Stock updated = mongoTemplate.findAndModify(q, u, opts, Stock.class);
+            stockAlertaService.evaluar(updated);
             int total = getTotalStock(productoId);
             syncProductStock(productoId, total);
             // publicar evento de auditoría: tipo entrada (listener creará el movimiento sin ajustar stock)
@@ -104,6 +140,8 @@ public class StockService {
         if (updated == null) {
             return Map.of("error", "Stock insuficiente en almacen: " + almacenId);
         }
+        // detección de faltante con la cantidad que devolvió el findAndModify, sin otra lectura
+        stockAlertaService.evaluar(updated);
         int total = getTotalStock(productoId);
         syncProductStock(productoId, total);
         // publicar evento de auditoría: tipo salida
@@ -133,6 +171,7 @@ public class StockService {
         Update u = new Update().set("cantidad", Math.max(0, cantidad)).set("actualizadoEn", new Date()).setOnInsert("productoId", productoId).setOnInsert("almacenId", almacenId);
         FindAndModifyOptions opts = FindAndModifyOptions.options().returnNew(true).upsert(true);
         Stock updated = mongoTemplate.findAndModify(q, u, opts, Stock.class);
+        stockAlertaService.evaluar(updated);
         int total = getTotalStock(productoId);
         syncProductStock(productoId, total);
         // registrar movimiento: calcular diferencia para crear entrada/salida
@@ -151,6 +190,53 @@ public class StockService {
         return setStock(productoId, almacenId, cantidad, null);
     }
 
+    /**
+     * Define (o quita, con null) el punto de reorden de un producto en un almacén. Crea el registro de stock
+     * con cantidad 0 si no existía. Si el nuevo umbral deja la cantidad en faltante se registra la alerta.
+     */
+    public Map<String, Object> setPuntoReorden(String productoId, String almacenId, Integer puntoReorden, String realizadoPorUserId) {
+        if (productoId == null || almacenId == null) return Map.of("error", "productoId y almacenId son requeridos");
+        if (puntoReorden != null && puntoReorden < 0) return Map.of("error", "puntoReorden no puede ser negativo");
+        if (realizadoPorUserId != null) {
+            Optional<Almacen> mayAl = tallerService.findAlmacenById(almacenId);
+            if (mayAl.isEmpty()) return Map.of("error", "Almacen no encontrado");
+            String tallerId = mayAl.get().getTallerId();
+            boolean allowed = tallerService.isUserMemberWithAnyRole(realizadoPorUserId, tallerId, java.util.List.of("VENDEDOR", "ADMIN"));
+            if (!allowed) return Map.of("error", "Permisos insuficientes para modificar stock en este almacen");
+        }
+        Query q = Query.query(Criteria.where("productoId").is(productoId).and("almacenId").is(almacenId));
+        Update u = new Update().setOnInsert("productoId", productoId).setOnInsert("almacenId", almacenId).setOnInsert("cantidad", 0);
+        if (puntoReorden == null) u.unset("puntoReorden");
+        else u.set("puntoReorden", puntoReorden);
+        Stock updated = mongoTemplate.findAndModify(q, u, FindAndModifyOptions.options().returnNew(true).upsert(true), Stock.class);
+        stockAlertaService.evaluar(updated);
+        return Map.of("stock", updated);
+    }
+
+    /** Faltantes del almacén (cantidad en o bajo el punto de reorden), paginado. */
+    public Map<String, Object> listarBajoPuntoReorden(String almacenId, String userId, int page, int size) {
+        String error = validarLecturaAlmacen(almacenId, userId);
+        if (error != null) return Map.of("error", error);
+        return stockAlertaService.bajoPuntoReorden(almacenId, page, size);
+    }
+
+    /** Historial de cruces del punto de reorden del almacén, paginado. */
+    public Map<String, Object> listarAlertas(String almacenId, boolean soloPendientes, String userId, int page, int size) {
+        String error = validarLecturaAlmacen(almacenId, userId);
+        if (error != null) return Map.of("error", error);
+        return stockAlertaService.alertas(almacenId, soloPendientes, page, size);
+    }
+
+    private String validarLecturaAlmacen(String almacenId, String userId) {
+        if (almacenId == null || almacenId.isBlank()) return "almacenId es requerido";
+        Optional<Almacen> mayAl = tallerService.findAlmacenById(almacenId);
+        if (mayAl.isEmpty()) return "Almacen no encontrado";
+        if (!tallerService.isUserMemberWithAnyRole(userId, mayAl.get().getTallerId(), java.util.List.of("VENDEDOR", "ADMIN"))) {
+            return "Permisos insuficientes para ver el stock de este almacen";
+        }
+        return null;
+    }
+
     public Map<String, Object> removeStockRecord(String productoId, String almacenId, String realizadoPorUserId) {
         // Validar permisos si la acción viene de un usuario autenticado
         if (realizadoPorUserId != null) {
@@ -177,14 +263,12 @@ public class StockService {
 
     private void syncProductStock(String productoId, int total) {
         try {
-            Optional<Producto> may = productoRepository.findById(productoId);
-            if (may.isPresent()) {
-                Producto p = may.get();
-                p.setStock(total);
-                productoRepository.save(p);
-            }
+            // update atómico: el stock visible en el producto cambia, así que también su version (ETag)
+            Update u = new Update().set("stock", total).inc("version", 1).set("actualizadoEn", new Date());
+            mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(productoId)), u, Producto.class);
         } catch (Exception ex) {
             // noop, no bloquear la operación principal
         }
+        try { eventPublisher.publishEvent(new StockChangedEvent(this, productoId, total)); } catch (Exception ex) { /* ignore */ }
     }
 }
@@ -0,0 +1,131 @@
+package com.repobackend.api.auth.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.repobackend.api.auth.exception.OAuthException;
+import com.repobackend.api.common.http.OutboundHttpClient;
+import com.sun.net.httpserver.HttpServer;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+
+/**
+ * Verificación local de ID tokens contra un JWKS servido por un servidor HTTP local.
+ */
+public class GoogleIdTokenVerifierTest {
+    private static final String CLIENT_ID = "test-client.apps.googleusercontent.com";
+
+    private HttpServer server;
+    private KeyPair keyPair;
+    private final AtomicInteger jwksRequests = new AtomicInteger();
+    private GoogleIdTokenVerifier verifier;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        KeyPairGenerator gen = KeyPairGenerator.getInstance("RSA");
+        gen.initialize(2048);
+        keyPair = gen.generateKeyPair();
+        String jwks = jwks("kid-1", (RSAPublicKey) keyPair.getPublic());
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/certs", ex -> {
+            jwksRequests.incrementAndGet();
+            byte[] body = jwks.getBytes(StandardCharsets.UTF_8);
+            ex.getResponseHeaders().add("Cache-Control", "public, max-age=21600, must-revalidate, no-transform");
+            ex.sendResponseHeaders(200, body.length);
+            ex.getResponseBody().write(body);
+            ex.close();
+        });
+        server.start();
+        String uri = "http://127.0.0.1:" + server.getAddress().getPort() + "/certs";
+        verifier = new GoogleIdTokenVerifier(OutboundHttpClient.withDefaults(), uri, CLIENT_ID, 60_000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private static String jwks(String kid, RSAPublicKey key) {
+        return "{\"keys\":[{\"kty\":\"RSA\",\"alg\":\"RS256\",\"use\":\"sig\",\"kid\":\"" + kid + "\",\"n\":\""
+                + b64(key.getModulus()) + "\",\"e\":\"" + b64(key.getPublicExponent()) + "\"}]}";
+    }
+
+    private static String b64(BigInteger v) {
+        byte[] bytes = v.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) bytes = java.util.Arrays.copyOfRange(bytes, 1, bytes.length);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private String token(String kid, String audience, String issuer, long expiresInMs) {
+        return Jwts.builder()
+                .setHeaderParam("kid", kid)
+                .setSubject("1234567890")
+                .setAudience(audience)
+                .setIssuer(issuer)
+                .claim("email", "cliente@example.com")
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + expiresInMs))
+                .signWith(keyPair.getPrivate(), SignatureAlgorithm.RS256)
+                .compact();
+    }
+
+    @Test
+    public void verify_validToken_usesCachedJwks() throws Exception {
+        Map<String, Object> claims = verifier.verify(token("kid-1", CLIENT_ID, "https://accounts.google.com", 600_000));
+        verifier.verify(token("kid-1", CLIENT_ID, "accounts.google.com", 600_000));
+
+        assertEquals("cliente@example.com", claims.get("email"));
+        assertEquals("1234567890", claims.get("sub"));
+        assertEquals(1, jwksRequests.get());
+    }
+
+    @Test
+    public void verify_wrongAudience_isRejected() {
+        OAuthException ex = assertThrows(OAuthException.class,
+                () -> verifier.verify(token("kid-1", "otro-cliente", "https://accounts.google.com", 600_000)));
+        assertEquals(401, ex.getStatusCode());
+    }
+
+    @Test
+    public void verify_expiredToken_isRejected() {
+        OAuthException ex = assertThrows(OAuthException.class,
+                () -> verifier.verify(token("kid-1", CLIENT_ID, "https://accounts.google.com", -600_000)));
+        assertEquals(401, ex.getStatusCode());
+    }
+
+    @Test
+    public void verify_wrongIssuer_isRejected() {
+        OAuthException ex = assertThrows(OAuthException.class,
+                () -> verifier.verify(token("kid-1", CLIENT_ID, "https://evil.example.com", 600_000)));
+        assertEquals(401, ex.getStatusCode());
+    }
+
+    @Test
+    public void verify_unknownKid_isRejected() {
+        OAuthException ex = assertThrows(OAuthException.class,
+                () -> verifier.verify(token("kid-rotada", CLIENT_ID, "https://accounts.google.com", 600_000)));
+        assertEquals(401, ex.getStatusCode());
+    }
+
+    @Test
+    public void parseMaxAge_readsCacheControl() {
+        assertEquals(21_600_000L, GoogleIdTokenVerifier.parseMaxAgeMs("public, max-age=21600, must-revalidate"));
+    }
+}
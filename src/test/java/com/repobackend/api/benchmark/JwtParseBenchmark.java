@@ -0,0 +1,74 @@
+package com.repobackend.api.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.repobackend.api.auth.security.JwtUtil;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+
+/**
+ * Coste por petición de validar el access token en JwtAuthFilter.
+ *
+ * - perRequestParser: comportamiento anterior (parserBuilder().build() + verificación HMAC en cada llamada)
+ * - sharedParser: parser inmutable reutilizado, sin caché
+ * - cachedClaims: JwtUtil.parseToken con la caché de claims (caso normal: el mismo token repetido)
+ *
+ * Ejecutar: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.repobackend.api.benchmark.JwtParseBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtParseBenchmark {
+    private static final String SECRET = "benchmark-secret-with-at-least-32-bytes-of-entropy!";
+
+    private JwtUtil jwtUtil;
+    private JwtParser sharedParser;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil(SECRET, 10_000, 43_200_000L);
+        sharedParser = Jwts.parserBuilder().setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes())).build();
+        token = jwtUtil.generateToken("65f1c2a9e4b0a1b2c3d4e5f6", 43_200_000L);
+        jwtUtil.parseToken(token);
+    }
+
+    @Benchmark
+    public Claims perRequestParser() {
+        return Jwts.parserBuilder().setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes())).build()
+                .parseClaimsJws(token).getBody();
+    }
+
+    @Benchmark
+    public Claims sharedParser() {
+        return sharedParser.parseClaimsJws(token).getBody();
+    }
+
+    @Benchmark
+    public JwtUtil.TokenClaims cachedClaims() {
+        return jwtUtil.parseToken(token);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(JwtParseBenchmark.class.getSimpleName()).build()).run();
+    }
+}
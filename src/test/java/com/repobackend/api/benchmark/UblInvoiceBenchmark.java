@@ -0,0 +1,87 @@
+package com.repobackend.api.benchmark;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.repobackend.api.factura.dian.Cufe;
+import com.repobackend.api.factura.dian.DianEmisor;
+import com.repobackend.api.factura.dian.UblInvoiceWriter;
+import com.repobackend.api.factura.model.Factura;
+import com.repobackend.api.factura.model.FacturaItem;
+import com.repobackend.api.factura.service.FacturaCalculoService;
+
+/**
+ * Facturas electrónicas por segundo en un lote: CUFE + XML UBL escrito en streaming a un stream nulo
+ * (sin costo de I/O), para facturas de distinto tamaño.
+ *
+ * Ejecutar: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.repobackend.api.benchmark.UblInvoiceBenchmark
+ * Con -prof gc (jmh) se ve que la asignación por factura crece con las líneas pero no retiene un árbol del documento.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UblInvoiceBenchmark {
+    @Param({"20", "200"})
+    public int lineas;
+
+    private final DianEmisor emisor = new DianEmisor("900000000", "Hermotos", "clave", "2", "https://dian/?k=");
+    private final OutputStream nulo = OutputStream.nullOutputStream();
+    private Factura factura;
+
+    @Setup
+    public void setUp() {
+        Random rnd = new Random(42);
+        double[] tasas = {0.0, 5.0, 19.0};
+        List<FacturaItem> items = new ArrayList<>();
+        for (int i = 0; i < lineas; i++) {
+            FacturaItem it = new FacturaItem();
+            it.setProductoId("p" + i);
+            it.setNombreProducto("Repuesto " + i);
+            it.setCodigoProducto("COD-" + i);
+            it.setCantidad(1 + rnd.nextInt(20));
+            it.setPrecioUnitario(rnd.nextInt(10_000_000) / 100.0);
+            it.setDescuento(0.0);
+            it.setTasaIva(tasas[rnd.nextInt(tasas.length)]);
+            items.add(it);
+        }
+        factura = new Factura();
+        factura.setItems(items);
+        factura.setNumeroFactura("1001");
+        new FacturaCalculoService().calcularTotalesConResumen(factura);
+    }
+
+    @Benchmark
+    public String cufeYXml() throws XMLStreamException {
+        String cufe = Cufe.calcular("1001", "2024-06-01", "10:00:00-05:00", 150_000_000, 28_500_000, 0, 0,
+                178_500_000, emisor.nit(), "222222222222", emisor.claveTecnica(), emisor.ambiente());
+        UblInvoiceWriter.write(factura, factura.getResumenIva(), new UblInvoiceWriter.Encabezado("1001", "2024-06-01", "10:00:00-05:00", cufe,
+                "222222222222", "Consumidor final"), emisor, nulo);
+        return cufe;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(UblInvoiceBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,190 @@
+package com.repobackend.api.common.http;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Pruebas contra un servidor HTTP local (stub), sin salir a red.
+ */
+public class OutboundHttpClientTest {
+    private HttpServer server;
+    private String baseUrl;
+    private SimpleMeterRegistry registry;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    @BeforeEach
+    void startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(16));
+        server.createContext("/ok", ex -> respond(ex, 200, "{\"ok\":true}"));
+        server.createContext("/fail", ex -> respond(ex, 503, "down"));
+        server.createContext("/slow", ex -> {
+            int now = inFlight.incrementAndGet();
+            maxInFlight.accumulateAndGet(now, Math::max);
+            try {
+                Thread.sleep(150);
+            } catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+            }
+            inFlight.decrementAndGet();
+            respond(ex, 200, "slow");
+        });
+        server.createContext("/hang", ex -> {
+            try {
+                Thread.sleep(2000);
+            } catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+            }
+            respond(ex, 200, "late");
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        registry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    private static void respond(HttpExchange ex, int status, String body) throws java.io.IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        ex.sendResponseHeaders(status, bytes.length);
+        ex.getResponseBody().write(bytes);
+        ex.close();
+    }
+
+    private OutboundHttpClient client(int maxPerHost, int failureThreshold, Duration requestTimeout) {
+        HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        return new OutboundHttpClient(http, requestTimeout, Duration.ofSeconds(5), maxPerHost,
+                Duration.ofSeconds(5), failureThreshold, Duration.ofMinutes(1), registry);
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+    }
+
+    @Test
+    public void send_recordsMetricsPerHost() throws Exception {
+        OutboundHttpClient client = client(4, 5, Duration.ofSeconds(2));
+
+        HttpResponse<String> resp = client.send(get("/ok"));
+
+        assertEquals(200, resp.statusCode());
+        assertEquals(1L, registry.get("http.client.outbound")
+                .tag("host", "127.0.0.1").tag("outcome", "SUCCESS").timer().count());
+    }
+
+    @Test
+    public void circuitOpensAfterConsecutiveFailures() throws Exception {
+        OutboundHttpClient client = client(4, 3, Duration.ofSeconds(2));
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(503, client.send(get("/fail")).statusCode());
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, client.circuitState("127.0.0.1"));
+        assertThrows(CircuitOpenException.class, () -> client.send(get("/ok")));
+    }
+
+    @Test
+    public void requestTimeoutIsApplied() {
+        OutboundHttpClient client = client(4, 5, Duration.ofMillis(200));
+
+        assertThrows(HttpTimeoutException.class, () -> client.send(get("/hang")));
+    }
+
+    @Test
+    public void fanOutRespectsPerHostLimit() throws Exception {
+        OutboundHttpClient client = client(2, 5, Duration.ofSeconds(5));
+
+        List<CompletableFuture<HttpResponse<String>>> futures = new ArrayList<>();
+        for (int i = 0; i < 6; i++) futures.add(client.sendAsync(get("/slow")));
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get();
+
+        assertTrue(maxInFlight.get() <= 2, "max in flight was " + maxInFlight.get());
+        for (CompletableFuture<HttpResponse<String>> f : futures) assertEquals(200, f.get().statusCode());
+    }
+
+    @Test
+    public void openCircuitFailsAsyncWithoutNetwork() {
+        OutboundHttpClient client = client(4, 1, Duration.ofSeconds(2));
+        client.sendAsync(get("/fail")).join();
+
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> client.sendAsync(get("/ok")).get());
+        assertInstanceOf(CircuitOpenException.class, ex.getCause());
+    }
+
+    @Test
+    public void sendAsyncWithoutPermitDoesNotBlockCaller() throws Exception {
+        OutboundHttpClient client = client(1, 5, Duration.ofSeconds(5));
+        CompletableFuture<HttpResponse<String>> first = client.sendAsync(get("/slow"));
+
+        long start = System.nanoTime();
+        CompletableFuture<HttpResponse<String>> second = client.sendAsync(get("/slow"));
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(elapsedMs < 100, "sendAsync blocked for " + elapsedMs + " ms");
+        assertFalse(second.isDone());
+        assertEquals(200, first.get().statusCode());
+        assertEquals(200, second.get().statusCode());
+    }
+
+    @Test
+    public void readTimeoutReleasesPermit() throws Exception {
+        HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        OutboundHttpClient client = new OutboundHttpClient(http, Duration.ofSeconds(5), Duration.ofMillis(200), 1,
+                Duration.ofMillis(500), 5, Duration.ofMinutes(1), registry);
+
+        assertThrows(HttpTimeoutException.class, () -> client.send(get("/hang")));
+        assertEquals(200, client.send(get("/ok")).statusCode());
+    }
+
+    @Test
+    public void lateResultFromPreviousGenerationIsIgnored() {
+        long[] now = {0};
+        CircuitBreaker breaker = new CircuitBreaker(1, 1_000, () -> now[0]);
+        long slow = breaker.tryAcquire();
+        long failing = breaker.tryAcquire();
+
+        breaker.onFailure(failing);
+        breaker.onSuccess(slow);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        now[0] = 1_000;
+        long trial = breaker.tryAcquire();
+        assertTrue(trial > failing);
+        breaker.onFailure(slow);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        breaker.onSuccess(trial);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+}
@@ -0,0 +1,53 @@
+package com.repobackend.api.common.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * El camino rápido de toCentavos y la división con redondeo dan lo mismo que BigDecimal half-up.
+ */
+public class MoneyTest {
+
+    private static long referencia(double valor) {
+        return BigDecimal.valueOf(valor).setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    @Test
+    public void toCentavos_coincideConBigDecimal() {
+        Random rnd = new Random(20240601L);
+        for (int n = 0; n < 200_000; n++) {
+            long centavos = rnd.nextLong() % 1_000_000_000_000L;
+            double exacto = centavos / 100.0;
+            // valor de 2 decimales, vecinos a 1 ulp, medio centavo y un decimal cualquiera
+            double[] casos = {exacto, Math.nextUp(exacto), Math.nextDown(exacto),
+                    (centavos + 0.5) / 100.0, exacto + rnd.nextDouble() / 100.0};
+            for (double v : casos) assertEquals(referencia(v), Money.toCentavos(v), () -> "valor " + v);
+        }
+        assertEquals(101, Money.toCentavos(1.005));
+        assertEquals(-101, Money.toCentavos(-1.005));
+        assertEquals(referencia(1e13 + 0.125), Money.toCentavos(1e13 + 0.125));
+        assertEquals(0, Money.toCentavos(null));
+        assertThrows(IllegalArgumentException.class, () -> Money.toCentavos(Double.NaN));
+        assertThrows(IllegalArgumentException.class, () -> Money.toCentavos(Double.POSITIVE_INFINITY));
+    }
+
+    @Test
+    public void dividirRedondeando_halfUpSimetrico() {
+        Random rnd = new Random(7L);
+        for (int n = 0; n < 200_000; n++) {
+            long num = rnd.nextLong() % 1_000_000_000_000L;
+            long den = 1 + rnd.nextInt(20_000);
+            long esperado = BigDecimal.valueOf(num).divide(BigDecimal.valueOf(den), 0, RoundingMode.HALF_UP).longValueExact();
+            assertEquals(esperado, Money.dividirRedondeando(num, den), () -> num + "/" + den);
+        }
+        assertEquals(3, Money.dividirRedondeando(5, 2));
+        assertEquals(-3, Money.dividirRedondeando(-5, 2));
+        assertEquals(2, Money.dividirRedondeando(7, 3));
+    }
+}
@@ -0,0 +1,133 @@
+package com.repobackend.api.factura.dian;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import com.repobackend.api.factura.model.Factura;
+import com.repobackend.api.factura.model.FacturaItem;
+import com.repobackend.api.factura.service.FacturaCalculoService;
+
+/**
+ * CUFE contra el ejemplo del anexo técnico y estructura del XML UBL (se parsea con DOM solo en el test).
+ */
+public class UblInvoiceWriterTest {
+    private static final DianEmisor EMISOR = new DianEmisor("700085371", "Hermotos & Cía", "clave", "2", "https://dian/?k=");
+
+    @Test
+    public void cufe_ejemploAnexoTecnico() {
+        String cufe = Cufe.calcular("323200000129", "2019-01-16", "10:53:10-05:00", 150_000_000, 28_500_000, 0, 0,
+                178_500_000, "700085371", "800199436", "693ff6f2a553c3646a063436fd4dd9ded0311471", "1");
+        assertEquals("8bb918b19ba22a694f1da11c643b5e9de39adf60311cf179179e9b33381030bcd4c3c3f156c506ed5908f9276f5bd9b4", cufe);
+    }
+
+    @Test
+    public void qrBaseUrl_segunAmbiente() {
+        assertTrue(FacturaElectronicaService.qrBaseUrl("", "1").startsWith("https://catalogo-vpfe.dian.gov.co/"));
+        assertTrue(FacturaElectronicaService.qrBaseUrl(null, "2").startsWith("https://catalogo-vpfe-hab.dian.gov.co/"));
+        assertEquals("https://otro/?k=", FacturaElectronicaService.qrBaseUrl(" https://otro/?k= ", "1"));
+    }
+
+    @Test
+    public void write_generaUblConTotalesPorTasaYLineas() throws Exception {
+        Factura f = new Factura();
+        List<FacturaItem> items = new ArrayList<>();
+        items.add(item("Filtro <aceite>", 2, 10_000.0, 19.0));
+        items.add(item("Casco", 1, 50_000.5, 5.0));
+        items.add(item("Manual", 3, 1_000.0, 0.0));
+        f.setItems(items);
+        f.setNumeroFactura("1001");
+        f.setPrefijo("SETP");
+        new FacturaCalculoService().calcularTotalesConResumen(f);
+        UblInvoiceWriter.Encabezado enc = new UblInvoiceWriter.Encabezado("SETP1001", "2024-06-01", "10:00:00-05:00",
+                "abc", FacturaElectronicaService.CONSUMIDOR_FINAL, "Consumidor final");
+
+        CerrableStream out = new CerrableStream();
+        UblInvoiceWriter.write(f, f.getResumenIva(), enc, EMISOR, out);
+        assertFalse(out.cerrado, "el writer no debe cerrar el stream del llamador");
+
+        DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+        dbf.setNamespaceAware(true);
+        Document doc = dbf.newDocumentBuilder().parse(new ByteArrayInputStream(out.toByteArray()));
+        Element raiz = doc.getDocumentElement();
+        assertEquals(UblInvoiceWriter.NS_INVOICE, raiz.getNamespaceURI());
+        assertEquals("Invoice", raiz.getLocalName());
+        assertEquals("SETP1001", hijo(raiz, "ID").getTextContent());
+        assertEquals("abc", hijo(raiz, "UUID").getTextContent());
+        assertEquals("3", hijo(raiz, "LineCountNumeric").getTextContent());
+        assertEquals("Hermotos & Cía", doc.getElementsByTagNameNS(UblInvoiceWriter.NS_CBC, "RegistrationName").item(0).getTextContent());
+
+        Element taxTotal = (Element) raiz.getElementsByTagNameNS(UblInvoiceWriter.NS_CAC, "TaxTotal").item(0);
+        // 20000 * 19% = 3800; 50000.50 * 5% = 2500.025 -> 2500.03
+        assertEquals("6300.03", hijo(taxTotal, "TaxAmount").getTextContent());
+        assertEquals(3, hijos(taxTotal, UblInvoiceWriter.NS_CAC, "TaxSubtotal").size());
+
+        Element totales = (Element) raiz.getElementsByTagNameNS(UblInvoiceWriter.NS_CAC, "LegalMonetaryTotal").item(0);
+        assertEquals("73000.50", hijo(totales, "LineExtensionAmount").getTextContent());
+        assertEquals("79300.53", hijo(totales, "PayableAmount").getTextContent());
+        assertEquals("COP", hijo(totales, "PayableAmount").getAttribute("currencyID"));
+
+        List<Element> lineas = hijos(raiz, UblInvoiceWriter.NS_CAC, "InvoiceLine");
+        assertEquals(3, lineas.size());
+        assertEquals("Filtro <aceite>", lineas.get(0).getElementsByTagNameNS(UblInvoiceWriter.NS_CBC, "Description").item(0).getTextContent());
+        assertEquals("50000.50", hijo(lineas.get(1), "LineExtensionAmount").getTextContent());
+    }
+
+    @Test
+    public void write_variasFacturasSobreElMismoStream() throws Exception {
+        Factura f = new Factura();
+        f.setItems(List.of(item("A", 1, 100.0, 19.0)));
+        new FacturaCalculoService().calcularTotalesConResumen(f);
+        UblInvoiceWriter.Encabezado enc = new UblInvoiceWriter.Encabezado("1", "2024-06-01", "10:00:00-05:00", "x", "222222222222", "CF");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        UblInvoiceWriter.write(f, f.getResumenIva(), enc, EMISOR, out);
+        int primera = out.size();
+        UblInvoiceWriter.write(f, f.getResumenIva(), enc, EMISOR, out);
+        assertTrue(primera > 0);
+        assertEquals(2 * primera, out.size());
+    }
+
+    private static FacturaItem item(String nombre, int cantidad, double precio, double tasa) {
+        FacturaItem it = new FacturaItem();
+        it.setNombreProducto(nombre);
+        it.setCantidad(cantidad);
+        it.setPrecioUnitario(precio);
+        it.setDescuento(0.0);
+        it.setTasaIva(tasa);
+        return it;
+    }
+
+    private static Element hijo(Element padre, String nombre) {
+        return hijos(padre, UblInvoiceWriter.NS_CBC, nombre).get(0);
+    }
+
+    private static List<Element> hijos(Element padre, String ns, String nombre) {
+        List<Element> out = new ArrayList<>();
+        NodeList nl = padre.getChildNodes();
+        for (int i = 0; i < nl.getLength(); i++) {
+            if (nl.item(i) instanceof Element e && ns.equals(e.getNamespaceURI()) && nombre.equals(e.getLocalName())) out.add(e);
+        }
+        return out;
+    }
+
+    private static final class CerrableStream extends ByteArrayOutputStream {
+        boolean cerrado;
+
+        @Override
+        public void close() {
+            cerrado = true;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.repobackend.api.factura.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+import com.repobackend.api.factura.model.Factura;
+import com.repobackend.api.factura.model.FacturaItem;
+import com.repobackend.api.factura.model.ResumenIva;
+
+/**
+ * Propiedades del cálculo en centavos, contrastadas con una referencia en BigDecimal sobre facturas aleatorias
+ * (semilla fija, reproducible): IVA por línea redondeado half-up al centavo, totales = suma exacta de líneas
+ * y resumen por tasa = suma exacta de las líneas de cada tasa.
+ */
+public class FacturaCalculoServiceTest {
+    private static final double[] TASAS = {0.0, 5.0, 8.0, 19.0};
+
+    private final FacturaCalculoService calculo = new FacturaCalculoService();
+
+    @Test
+    public void calcularTotales_coincideConReferenciaDecimal() {
+        Random rnd = new Random(20240601L);
+        for (int n = 0; n < 5_000; n++) {
+            Factura f = new Factura();
+            List<FacturaItem> items = new ArrayList<>();
+            int lineas = 1 + rnd.nextInt(15);
+            for (int i = 0; i < lineas; i++) {
+                FacturaItem it = new FacturaItem();
+                it.setCantidad(1 + rnd.nextInt(50));
+                it.setPrecioUnitario(centavos(rnd.nextInt(50_000_000)));
+                it.setDescuento(rnd.nextInt(4) == 0 ? centavos(rnd.nextInt(100_000)) : 0.0);
+                it.setTasaIva(TASAS[rnd.nextInt(TASAS.length)]);
+                items.add(it);
+            }
+            f.setItems(items);
+            calculo.calcularTotalesConResumen(f);
+
+            BigDecimal bruto = BigDecimal.ZERO, descuentos = BigDecimal.ZERO, iva = BigDecimal.ZERO;
+            Map<Double, BigDecimal[]> porTasa = new TreeMap<>(); // tasa -> [base, iva, lineas]
+            for (FacturaItem it : items) {
+                BigDecimal b = dec(it.getPrecioUnitario()).multiply(BigDecimal.valueOf(it.getCantidad()));
+                BigDecimal base = b.subtract(dec(it.getDescuento()));
+                BigDecimal ivaItem = base.multiply(dec(it.getTasaIva())).divide(BigDecimal.valueOf(100)).setScale(2, RoundingMode.HALF_UP);
+                assertDecimal(base, it.getSubtotal());
+                assertDecimal(base, it.getBaseImponible());
+                assertDecimal(ivaItem, it.getValorIva());
+                assertDecimal(base.add(ivaItem), it.getTotalItem());
+                bruto = bruto.add(b);
+                descuentos = descuentos.add(dec(it.getDescuento()));
+                iva = iva.add(ivaItem);
+                BigDecimal[] acc = porTasa.computeIfAbsent(it.getTasaIva(), k -> new BigDecimal[] {BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO});
+                acc[0] = acc[0].add(base);
+                acc[1] = acc[1].add(ivaItem);
+                acc[2] = acc[2].add(BigDecimal.ONE);
+            }
+            // resumen por tasa: mismas tasas en orden, sumas exactas y suma de IVA = totalIva
+            List<ResumenIva> resumen = f.getResumenIva();
+            assertEquals(new ArrayList<>(porTasa.keySet()), resumen.stream().map(ResumenIva::getTasa).toList());
+            for (ResumenIva r : resumen) {
+                BigDecimal[] acc = porTasa.get(r.getTasa());
+                assertDecimal(acc[0], r.getBase());
+                assertDecimal(acc[1], r.getIva());
+                assertEquals(acc[2].intValue(), r.getLineas());
+            }
+            assertDecimal(bruto, f.getSubtotal());
+            assertDecimal(descuentos, f.getTotalDescuentos());
+            assertDecimal(bruto.subtract(descuentos), f.getBaseImponible());
+            assertDecimal(iva, f.getTotalIva());
+            assertDecimal(bruto.subtract(descuentos).add(iva), f.getTotal());
+        }
+    }
+
+    @Test
+    public void calcularItem_redondeaMitadHaciaArriba() {
+        FacturaItem it = new FacturaItem();
+        it.setCantidad(1);
+        it.setPrecioUnitario(0.50);
+        it.setDescuento(0.0);
+        it.setTasaIva(19.0); // 0.095 -> 0.10
+        calculo.calcularItem(it);
+        assertEquals(0.10, it.getValorIva());
+        assertEquals(0.60, it.getTotalItem());
+
+        it.setPrecioUnitario(1.005); // precio con más de 2 decimales: se redondea a 1.01 antes de calcular
+        it.setTasaIva(0.0);
+        calculo.calcularItem(it);
+        assertEquals(1.01, it.getSubtotal());
+    }
+
+    @Test
+    public void validarTotal_exactoAlCentavo() {
+        Factura f = new Factura();
+        FacturaItem it = new FacturaItem();
+        it.setCantidad(3);
+        it.setPrecioUnitario(33_333.33);
+        it.setTasaIva(19.0);
+        f.setItems(List.of(it));
+        calculo.validarTotal(f, 118_999.99); // 99_999.99 + 19_000.00
+        assertThrows(IllegalArgumentException.class, () -> calculo.validarTotal(f, 119_000.00));
+    }
+
+    private static double centavos(long c) {
+        return c / 100.0;
+    }
+
+    private static BigDecimal dec(Double d) {
+        return BigDecimal.valueOf(d == null ? 0.0 : d);
+    }
+
+    private static void assertDecimal(BigDecimal esperado, Double actual) {
+        assertEquals(0, esperado.setScale(2, RoundingMode.UNNECESSARY).compareTo(BigDecimal.valueOf(actual)),
+                () -> "esperado " + esperado + " pero fue " + actual);
+    }
+
+    @Test
+    public void resumenIva_agrupaPorTasaEnOrden() {
+        FacturaCalculoService.AcumuladorIva acc = new FacturaCalculoService.AcumuladorIva();
+        long[] tasas = {1900, 0, 500, 1900, 800, 1600, 0, 1000};
+        for (long t : tasas) acc.agregar(t, 10_000, t);
+        List<ResumenIva> r = acc.toList();
+        assertEquals(List.of(0.0, 5.0, 8.0, 10.0, 16.0, 19.0), r.stream().map(ResumenIva::getTasa).toList());
+        assertEquals(List.of(2, 1, 1, 1, 1, 2), r.stream().map(ResumenIva::getLineas).toList());
+        assertEquals(200.0, r.get(5).getBase());
+        assertEquals(38.0, r.get(5).getIva());
+    }
+
+    @Test
+    public void resumirIvaGuardado_usaValoresGuardadosSinRecalcular() {
+        // factura anterior al cálculo en centavos: base e IVA guardados distintos de los que daría recalcular
+        Factura f = new Factura();
+        FacturaItem a = new FacturaItem();
+        a.setCantidad(1);
+        a.setPrecioUnitario(1000.0);
+        a.setDescuento(100.0);
+        a.setTasaIva(19.0);
+        a.setBaseImponible(900.0);
+        a.setValorIva(170.99);
+        FacturaItem b = new FacturaItem();
+        b.setCantidad(2);
+        b.setPrecioUnitario(50.0);
+        b.setTasaIva(19.0);
+        b.setBaseImponible(100.0);
+        b.setValorIva(19.0);
+        f.setItems(List.of(a, b));
+        f.setBaseImponible(800.0);
+        f.setTotal(989.99);
+
+        List<ResumenIva> r = calculo.resumirIvaGuardado(f);
+        assertEquals(1, r.size());
+        assertEquals(1000.0, r.get(0).getBase());
+        assertEquals(189.99, r.get(0).getIva());
+        assertEquals(2, r.get(0).getLineas());
+        assertEquals(800.0, f.getBaseImponible());
+        assertEquals(989.99, f.getTotal());
+        assertEquals(null, f.getResumenIva());
+    }
+}
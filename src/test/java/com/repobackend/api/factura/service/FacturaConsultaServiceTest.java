@@ -0,0 +1,38 @@
+package com.repobackend.api.factura.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.regex.Pattern;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Cursor keyset opaco y prefijo literal del filtro por número de factura.
+ */
+public class FacturaConsultaServiceTest {
+
+    @Test
+    public void cursor_idaYVuelta() {
+        String id = new ObjectId().toHexString();
+        FacturaConsultaService.Cursor c = new FacturaConsultaService.Cursor(1735689600000L, id);
+        FacturaConsultaService.Cursor back = FacturaConsultaService.Cursor.decode(c.encode());
+        assertEquals(c, back);
+    }
+
+    @Test
+    public void cursor_invalidoLanzaIllegalArgument() {
+        assertThrows(IllegalArgumentException.class, () -> FacturaConsultaService.Cursor.decode("no-es-base64!"));
+        assertThrows(IllegalArgumentException.class, () -> FacturaConsultaService.Cursor.decode("MTIzOmFiYw")); // "123:abc"
+    }
+
+    @Test
+    public void escaparRegex_prefijoLiteral() {
+        Pattern p = Pattern.compile("^" + FacturaConsultaService.escaparRegex("FE-1.2(3)"));
+        assertTrue(p.matcher("FE-1.2(3)45").find());
+        assertFalse(p.matcher("FE-1x2(3)45").find());
+    }
+}
@@ -0,0 +1,62 @@
+package com.repobackend.api.producto.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.repobackend.api.producto.model.Compatibilidad;
+import com.repobackend.api.producto.model.Producto;
+
+/**
+ * Búsqueda por rango de años en el índice de compatibilidad y reemplazo de rangos al actualizar un producto.
+ */
+public class CompatibilidadIndexTest {
+
+    private static Compatibilidad compat(String marca, String modelo, int desde, Integer hasta, String motor) {
+        Compatibilidad c = new Compatibilidad();
+        c.setMarca(marca);
+        c.setModelo(modelo);
+        c.setAnioDesde(desde);
+        c.setAnioHasta(hasta);
+        c.setMotor(motor);
+        return c;
+    }
+
+    private static Producto producto(String id, String categoriaId, Compatibilidad... compatibilidades) {
+        Producto p = new Producto();
+        p.setId(id);
+        p.setCategoriaId(categoriaId);
+        p.setCompatibilidades(List.of(compatibilidades));
+        return p;
+    }
+
+    @Test
+    public void buscar_filtraPorAnioMotorYCategoria() {
+        CompatibilidadIndex index = new CompatibilidadIndex(null);
+        index.actualizar("p1", producto("p1", "frenos", compat("Yamaha", "FZ", 2015, 2020, null)));
+        index.actualizar("p2", producto("p2", "frenos", compat("YAMAHA", "fz", 2018, null, "150")));
+        index.actualizar("p3", producto("p3", "motor", compat("Yamaha", "FZ", 2010, 2014, null)));
+
+        assertEquals(List.of("p1"), index.buscar("yamaha", "FZ", 2016, null, null));
+        assertEquals(List.of("p1", "p2"), index.buscar("Yamahá", "FZ", 2019, "150", null));
+        assertEquals(List.of("p1"), index.buscar("Yamaha", "FZ", 2019, "250", null));
+        assertEquals(List.of("p2"), index.buscar("Yamaha", "FZ", 2030, null, "frenos"));
+        assertEquals(List.of("p3"), index.buscar("Yamaha", "FZ", 2012, null, null));
+        assertEquals(List.of(), index.buscar("Honda", "CB", 2012, null, null));
+    }
+
+    @Test
+    public void actualizar_reemplazaYEliminaRangos() {
+        CompatibilidadIndex index = new CompatibilidadIndex(null);
+        index.actualizar("p1", producto("p1", "frenos", compat("Yamaha", "FZ", 2015, 2020, null)));
+        index.actualizar("p1", producto("p1", "frenos", compat("Honda", "CB", 2015, 2020, null)));
+
+        assertEquals(List.of(), index.buscar("Yamaha", "FZ", 2016, null, null));
+        assertEquals(List.of("p1"), index.buscar("Honda", "CB", 2016, null, null));
+
+        index.actualizar("p1", null);
+        assertEquals(List.of(), index.buscar("Honda", "CB", 2016, null, null));
+    }
+}
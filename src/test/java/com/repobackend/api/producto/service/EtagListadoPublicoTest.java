@@ -0,0 +1,73 @@
+package com.repobackend.api.producto.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.List;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.repobackend.api.categoria.model.Categoria;
+import com.repobackend.api.categoria.service.CategoriaService;
+import com.repobackend.api.producto.model.Producto;
+
+/**
+ * ETag del listado público con documentos anteriores a version/actualizadoEn: leer el mismo documento dos
+ * veces debe dar el mismo ETag (antes los inicializadores del modelo ponían la hora de la lectura).
+ */
+public class EtagListadoPublicoTest {
+
+    private MongoClient client;
+    private MongoTemplate template;
+
+    @BeforeEach
+    public void setUp() {
+        // El cliente no se conecta hasta la primera operación; find y count se sirven en memoria
+        client = MongoClients.create("mongodb://localhost:1");
+        Document legado = new Document("_id", new ObjectId()).append("nombre", "Filtro de aceite");
+        template = new MongoTemplate(client, "test") {
+            @Override
+            public <T> List<T> find(Query query, Class<T> entityClass) {
+                return List.of(getConverter().read(entityClass, new Document(legado)));
+            }
+
+            @Override
+            public long count(Query query, Class<?> entityClass) {
+                return 1;
+            }
+        };
+    }
+
+    @AfterEach
+    public void tearDown() {
+        client.close();
+    }
+
+    @Test
+    public void producto_sinVersionNiActualizadoEn_etagEstable() throws Exception {
+        ProductoService service = new ProductoService(null, template, null, null, null, null, null);
+        Producto leido = template.find(new Query(), Producto.class).get(0);
+        assertNull(leido.getVersion());
+        assertNull(leido.getActualizadoEn());
+
+        String primero = service.etagListadoPublico(null, null, 0, 20);
+        Thread.sleep(5);
+        assertEquals(primero, service.etagListadoPublico(null, null, 0, 20));
+    }
+
+    @Test
+    public void categoria_sinVersionNiActualizadoEn_etagEstable() throws Exception {
+        CategoriaService service = new CategoriaService(null, null, null, template, null);
+        String primero = service.etagListadoPublico(null, 0, 20);
+        Thread.sleep(5);
+        assertEquals(primero, service.etagListadoPublico(null, 0, 20));
+    }
+}
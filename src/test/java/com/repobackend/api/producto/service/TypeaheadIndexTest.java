@@ -0,0 +1,48 @@
+package com.repobackend.api.producto.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.repobackend.api.producto.service.TypeaheadIndex.Sugerencia;
+
+/**
+ * Prefijos por palabra, alcance por taller y reemplazo de entradas en el índice de autocompletado.
+ */
+public class TypeaheadIndexTest {
+
+    private static List<String> ids(List<Sugerencia> sugerencias) {
+        return sugerencias.stream().map(Sugerencia::id).toList();
+    }
+
+    @Test
+    public void sugerir_porPrefijoDePalabraYCodigo() {
+        TypeaheadIndex index = new TypeaheadIndex(null);
+        index.reemplazar("producto:p1", new Sugerencia("producto", "p1", "Filtro de Aceite", "FA-150", "t1"));
+        index.reemplazar("producto:p2", new Sugerencia("producto", "p2", "Pastillas de freno", null, "t2"));
+        index.reemplazar("categoria:c1", new Sugerencia("categoria", "c1", "Frenos", null, null));
+
+        assertEquals(List.of("p1"), ids(index.sugerir("ACEI", null, 10)));
+        assertEquals(List.of("p1"), ids(index.sugerir("fa-1", null, 10)));
+        assertEquals(List.of("p2", "c1"), ids(index.sugerir("fre", null, 10)));
+        assertEquals(List.of("p1", "p2"), ids(index.sugerir("de", null, 10)));
+        assertEquals(List.of("p1"), ids(index.sugerir("de", null, 1)));
+        assertEquals(List.of("p2"), ids(index.sugerir("fre", "t2", 10)));
+        assertEquals(List.of(), ids(index.sugerir("fre", "t1", 10)));
+    }
+
+    @Test
+    public void reemplazar_quitaTerminosAnteriores() {
+        TypeaheadIndex index = new TypeaheadIndex(null);
+        index.reemplazar("producto:p1", new Sugerencia("producto", "p1", "Bujía", null, null));
+        index.reemplazar("producto:p1", new Sugerencia("producto", "p1", "Cadena", null, null));
+
+        assertEquals(List.of(), ids(index.sugerir("buj", null, 10)));
+        assertEquals(List.of("p1"), ids(index.sugerir("cad", null, 10)));
+
+        index.reemplazar("producto:p1", null);
+        assertEquals(List.of(), ids(index.sugerir("cad", null, 10)));
+    }
+}